@@ -0,0 +1,54 @@
+package walmart.labs.seathold.audit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Measures recording a reservation in the audit log against formatting the previous audit message with String.format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+    private static final Logger LOG = Logger.getLogger(AuditLogBenchmark.class.getName());
+
+    private static final String EMAIL = "benchmark@email.com";
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private Path path;
+    private AuditLog auditLog;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.path = Files.createTempFile("audit", ".log");
+        Files.delete(this.path);
+        this.auditLog = new AuditLog(this.path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.auditLog.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public void reserve() {
+        this.auditLog.reserve(this.ids.incrementAndGet(), System.currentTimeMillis(), 4, EMAIL);
+    }
+
+    @Benchmark
+    public void format() {
+        LOG.fine(String.format("RESERVED: %d seats reserved for customer: %s with confirmation code: %s", 4, EMAIL,
+                String.valueOf(this.ids.incrementAndGet())));
+    }
+}
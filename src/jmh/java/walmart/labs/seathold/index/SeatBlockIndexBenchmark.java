@@ -0,0 +1,94 @@
+package walmart.labs.seathold.index;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the best available block large enough for a request on a fragmented venue using the index and
+ * using a scan of every block in a priority queue, the approach the index replaced.  Each found block is returned
+ * unchanged, as if its hold expired at once, so the number of available blocks is constant during a run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SeatBlockIndexBenchmark {
+    private static final int seatsPerRow = 1000;
+    private static final int requests = 1024;
+
+    @Param({"1000", "10000", "40000"})
+    public int fragments;
+
+    @Param({"25"})
+    public int maxBlockSize;
+
+    private SeatBlockIndex index;
+    private PriorityQueue<SeatBlock> queue;
+    private int[] numSeats;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int blocksPerRow = seatsPerRow / this.maxBlockSize;
+        final int rows = (this.fragments + blocksPerRow - 1) / blocksPerRow;
+        final VenueScores scores = new VenueScores(new Venue(seatsPerRow, rows), (seat, row, venue) -> {
+            long hash = (row * (long) blocksPerRow + seat / this.maxBlockSize) * 2654435761L;
+            return (float) ((hash >>> 8) % 100) / 100.0f;
+        });
+
+        final Random random = new Random(1);
+        this.index = new SeatBlockIndex(this.maxBlockSize);
+        this.queue = new PriorityQueue<>(SeatBlockIndex.BEST_AVAILABLE);
+        for (int i = 0; i < this.fragments; i++) {
+            // Leave a gap after each block so that no two blocks are adjacent.
+            int size = random.nextInt(this.maxBlockSize - 1) + 1;
+            SeatBlock block = new SeatBlock(scores, i / blocksPerRow, (i % blocksPerRow) * this.maxBlockSize, size);
+            this.index.add(block);
+            this.queue.add(block);
+        }
+
+        this.numSeats = new int[requests];
+        for (int i = 0; i < requests; i++) {
+            this.numSeats[i] = random.nextInt(this.maxBlockSize - 1) + 1;
+        }
+    }
+
+    @Benchmark
+    public SeatBlock index() {
+        SeatBlock block = this.index.poll(nextRequest());
+        if (block != null) {
+            this.index.add(block);
+        }
+        return block;
+    }
+
+    @Benchmark
+    public SeatBlock priorityQueue() {
+        final int numSeats = nextRequest();
+        SeatBlock best = null;
+        // The queue iterates in heap order so every block is compared to find the best one large enough.
+        for (SeatBlock block : this.queue) {
+            if (block.size() >= numSeats && (best == null || SeatBlockIndex.BEST_AVAILABLE.compare(block, best) < 0)) {
+                best = block;
+            }
+        }
+        if (best != null) {
+            this.queue.remove(best);
+            this.queue.add(best);
+        }
+        return best;
+    }
+
+    private int nextRequest() {
+        this.next = (this.next + 1) % requests;
+        return this.numSeats[this.next];
+    }
+}
@@ -0,0 +1,52 @@
+package walmart.labs.seathold.journal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures appending hold records to the journal, with and without waiting for a group commit to make them durable.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    private static final String EMAIL = "benchmark@email.com";
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private Path path;
+    private Journal journal;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.path = Files.createTempFile("journal", ".log");
+        this.journal = new Journal(this.path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.journal.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    public long append() {
+        return this.journal.hold(this.ids.incrementAndGet(), System.currentTimeMillis(), 1, 2, 4, EMAIL);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long appendDurable() {
+        long position = this.journal.hold(this.ids.incrementAndGet(), System.currentTimeMillis(), 1, 2, 4, EMAIL);
+        this.journal.awaitDurable(position);
+        return position;
+    }
+}
@@ -0,0 +1,38 @@
+package walmart.labs.seathold.models;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures splitting a full row into the best block of seats and the remaining blocks for different row widths.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SeatBlockSplitBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int seatsPerRow;
+
+    @Param({"4"})
+    public int numSeats;
+
+    private SeatBlock row;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        VenueScores scores = new VenueScores(new Venue(this.seatsPerRow, 10), new MiddleOutScorer());
+        this.row = new SeatBlock(scores, 5, 0, this.seatsPerRow);
+    }
+
+    @Benchmark
+    public List<SeatBlock> split() {
+        return this.row.split(this.numSeats);
+    }
+}
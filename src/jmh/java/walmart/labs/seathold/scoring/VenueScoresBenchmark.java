@@ -0,0 +1,45 @@
+package walmart.labs.seathold.scoring;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.models.Venue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scoring every seat of a large venue with each of the scorer implementations, on the calling thread and in
+ * parallel on the common fork join pool.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VenueScoresBenchmark {
+    @Param({"middle-out", "standard"})
+    public String scorer;
+
+    @Param({"1000x100", "1000x1000"})
+    public String venue;
+
+    private Scorer instance;
+    private Venue venueInstance;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.instance = "standard".equals(this.scorer) ? new StandardScorer() : new MiddleOutScorer();
+        String[] dimensions = this.venue.split("x");
+        this.venueInstance = new Venue(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    @Benchmark
+    public VenueScores construct() {
+        return new VenueScores(this.venueInstance, this.instance);
+    }
+
+    @Benchmark
+    public VenueScores constructParallel() {
+        return new VenueScores(this.venueInstance, this.instance, ForkJoinPool.commonPool());
+    }
+}
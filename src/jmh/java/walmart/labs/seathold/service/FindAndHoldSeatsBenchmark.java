@@ -0,0 +1,78 @@
+package walmart.labs.seathold.service;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures holding seats in venues with different amounts of fragmentation.  Each hold is expired immediately so the
+ * venue stays at the same level of fragmentation for the whole run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FindAndHoldSeatsBenchmark {
+    private static final String EMAIL = "benchmark@email.com";
+
+    /**
+     * The fraction of the venue that is held, in holds of 1 to 8 seats, before every other hold is expired.  The
+     * higher the fraction the more of the available seats are in small blocks scattered throughout the venue.
+     */
+    @Param({"0", "0.5", "1"})
+    public double fragmentation;
+
+    @Param({"2", "8"})
+    public int numSeats;
+
+    private TicketServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Holds made while fragmenting the venue must not expire during the run.
+        this.service = new TicketServiceImpl(new Venue(200, 500), new MiddleOutScorer(), TimeUnit.DAYS.toMillis(1));
+        fragment(this.service, this.fragmentation, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.service.shutdown();
+    }
+
+    @Benchmark
+    public SeatHold findAndHoldSeats() {
+        SeatHold hold = this.service.findAndHoldSeats(this.numSeats, EMAIL);
+        if (hold != null) {
+            this.service.removeHolds(Collections.singleton(hold.getId()));
+        }
+        return hold;
+    }
+
+    /**
+     * Hold a fraction of the venue in random sized holds and expire every other hold.
+     */
+    static void fragment(TicketServiceImpl service, double fraction, Random random) {
+        final int target = (int) (service.numSeatsAvailable() * (1 - fraction));
+        List<Integer> expired = new ArrayList<>();
+        boolean expire = false;
+        SeatHold hold;
+        while (service.numSeatsAvailable() > target
+                && (hold = service.findAndHoldSeats(random.nextInt(8) + 1, EMAIL)) != null) {
+            if (expire) {
+                expired.add(hold.getId());
+            }
+            expire = !expire;
+        }
+        service.removeHolds(new HashSet<>(expired));
+    }
+}
@@ -0,0 +1,114 @@
+package walmart.labs.seathold.service;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.admission.AdmissionTicketService;
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.errors.RequestRejectedException;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a mix of holds, reservations and expirations against each service implementation with an increasing number
+ * of threads.  Every operation holds 1 to 8 seats, a quarter of the holds are reserved and the rest are left to expire
+ * after a short timeout.  Each iteration starts with a new venue, created outside of the measurement, so every
+ * iteration measures the same workload.  About a quarter of the million seats of the venue are taken in a one second
+ * iteration on a single core.  The admission service is the locking service behind admission control, a rejected hold
+ * is counted as a hold that could not be made.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MixedWorkloadBenchmark {
+    private static final String EMAIL = "benchmark@email.com";
+
+    private static final long HOLD_TIMEOUT = 10;
+
+    @Param({"locking", "sharded", "optimistic", "admission"})
+    public String service;
+
+    private Instance instance;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.instance = create();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.instance.shutdown.run();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SeatHold threads1() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SeatHold threads4() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public SeatHold threadsMax() {
+        return operation();
+    }
+
+    private SeatHold operation() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final TicketService service = this.instance.service;
+        SeatHold hold;
+        try {
+            hold = service.findAndHoldSeats(random.nextInt(8) + 1, EMAIL);
+        } catch (RequestRejectedException e) {
+            hold = null;
+        }
+        if (hold != null && random.nextInt(4) == 0) {
+            try {
+                service.reserveSeats(hold.getId(), EMAIL);
+            } catch (NoSuchSeatHoldException e) {
+                // The hold expired before it could be reserved.
+            }
+        }
+        return hold;
+    }
+
+    private Instance create() {
+        final Venue venue = new Venue(1000, 1000);
+        final MiddleOutScorer scorer = new MiddleOutScorer();
+        switch (this.service) {
+            case "sharded":
+                ShardedTicketService sharded = new ShardedTicketService(venue, scorer,
+                        Runtime.getRuntime().availableProcessors(), HOLD_TIMEOUT, ShardedTicketService.DEFAULT_TOLERANCE);
+                return new Instance(sharded, sharded::shutdown);
+            case "admission":
+                TicketServiceImpl admitted = new TicketServiceImpl(venue, scorer, HOLD_TIMEOUT);
+                return new Instance(new AdmissionTicketService(admitted, HOLD_TIMEOUT), admitted::shutdown);
+            case "optimistic":
+                OptimisticTicketService optimistic = new OptimisticTicketService(venue, scorer, HOLD_TIMEOUT);
+                return new Instance(optimistic, optimistic::shutdown);
+            default:
+                TicketServiceImpl locking = new TicketServiceImpl(venue, scorer, HOLD_TIMEOUT);
+                return new Instance(locking, locking::shutdown);
+        }
+    }
+
+    private static final class Instance {
+        private final TicketService service;
+        private final Runnable shutdown;
+
+        private Instance(TicketService service, Runnable shutdown) {
+            this.service = service;
+            this.shutdown = shutdown;
+        }
+    }
+}
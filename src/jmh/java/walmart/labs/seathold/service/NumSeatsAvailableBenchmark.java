@@ -0,0 +1,59 @@
+package walmart.labs.seathold.service;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading the number of available seats, alone and while other threads hold and expire seats.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumSeatsAvailableBenchmark {
+    private static final String EMAIL = "benchmark@email.com";
+
+    private TicketServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.service = new TicketServiceImpl(new Venue(200, 500), new MiddleOutScorer(), TimeUnit.DAYS.toMillis(1));
+        FindAndHoldSeatsBenchmark.fragment(this.service, 0.5, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.service.shutdown();
+    }
+
+    @Benchmark
+    public int numSeatsAvailable() {
+        return this.service.numSeatsAvailable();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public int contendedNumSeatsAvailable() {
+        return this.service.numSeatsAvailable();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public SeatHold contendedFindAndHoldSeats() {
+        SeatHold hold = this.service.findAndHoldSeats(4, EMAIL);
+        if (hold != null) {
+            this.service.removeHolds(Collections.singleton(hold.getId()));
+        }
+        return hold;
+    }
+}
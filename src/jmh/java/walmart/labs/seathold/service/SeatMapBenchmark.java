@@ -0,0 +1,77 @@
+package walmart.labs.seathold.service;
+
+import org.openjdk.jmh.annotations.*;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.SeatMap;
+import walmart.labs.seathold.models.SeatMapDeltas;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures copying the seat map, or following its changes, on several threads while another thread holds and expires
+ * seats.  The seat map and its deltas are read optimistically so the holds are not delayed by the readers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SeatMapBenchmark {
+    private static final String EMAIL = "benchmark@email.com";
+
+    @Param({"100"})
+    public int rows;
+
+    private TicketServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.service = new TicketServiceImpl(new Venue(100, this.rows), new MiddleOutScorer(), 60000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.service.shutdown();
+    }
+
+    @Benchmark
+    @Group("browse")
+    @GroupThreads(3)
+    public SeatMap seatMap() {
+        return this.service.getSeatMap();
+    }
+
+    @Benchmark
+    @Group("browse")
+    @GroupThreads(1)
+    public SeatHold holdAndExpire() {
+        SeatHold hold = this.service.findAndHoldSeats(4, EMAIL);
+        this.service.removeHolds(Collections.singleton(hold.getId()));
+        return hold;
+    }
+
+    @Benchmark
+    @Group("follow")
+    @GroupThreads(3)
+    public SeatMapDeltas seatMapDeltas(Subscriber subscriber) {
+        SeatMapDeltas deltas = this.service.getSeatMapDeltas(subscriber.version);
+        subscriber.version = deltas != null ? deltas.getVersion() : this.service.getSeatMap().getVersion();
+        return deltas;
+    }
+
+    @Benchmark
+    @Group("follow")
+    @GroupThreads(1)
+    public SeatHold followHoldAndExpire() {
+        return holdAndExpire();
+    }
+
+    @State(Scope.Thread)
+    public static class Subscriber {
+        private long version;
+    }
+}
@@ -0,0 +1,186 @@
+package walmart.labs.seathold.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limit on the number of requests in flight that adapts to their measured latency, with a bounded queue of the
+ * requests waiting for the limit.
+ * <p>
+ * After each request the limit moves toward limit * min(1, target / latency) + sqrt(limit).  While requests complete
+ * within the target latency the limit grows by the square root term, provided the requests in flight are using at
+ * least half of it.  Once the latency exceeds the target the limit shrinks in proportion, and it settles where the
+ * latency is just below the target.  The limit stays between the minimum and maximum supplied.
+ * <p>
+ * The lock of the limit is held only to update a few counters, never while a request runs.
+ */
+public class AdaptiveConcurrencyLimit {
+    /**
+     * The fraction of the way the limit moves toward its new value after each request.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The fraction of each new latency added to the average latency.
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = this.lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double averageLatencyNanos;
+
+    /**
+     * Construct a limit.
+     *
+     * @param initialLimit        - the limit before any latency is measured.
+     * @param minLimit            - the smallest limit, at least one.
+     * @param maxLimit            - the largest limit.
+     * @param targetLatencyMicros - the request latency the limit adapts to.
+     * @param queueCapacity       - the largest number of requests that may wait for the limit.
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyMicros,
+                                    int queueCapacity) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits are not valid: " + initialLimit + " between " + minLimit +
+                    " and " + maxLimit);
+        } else if (targetLatencyMicros <= 0) {
+            throw new IllegalArgumentException("Target latency must be greater than zero: " + targetLatencyMicros);
+        } else if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative: " + queueCapacity);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MICROSECONDS.toNanos(targetLatencyMicros);
+        this.queueCapacity = queueCapacity;
+        this.averageLatencyNanos = this.targetLatencyNanos;
+    }
+
+    /**
+     * Admit a request, waiting in the queue while the limit is reached.
+     *
+     * @param timeoutNanos - the longest time to wait in the queue.
+     * @return true if the request was admitted and must call release, false if the queue was full, the request timed
+     * out or the thread was interrupted.
+     */
+    public boolean acquire(long timeoutNanos) {
+        this.lock.lock();
+        try {
+            // Requests are admitted in arrival order, a new request waits behind those already queued.
+            if (this.queued == 0 && this.inFlight < (int) this.limit) {
+                this.inFlight++;
+                return true;
+            } else if (this.queued >= this.queueCapacity) {
+                return false;
+            }
+
+            this.queued++;
+            try {
+                long remaining = timeoutNanos;
+                while (this.inFlight >= (int) this.limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = this.available.awaitNanos(remaining);
+                }
+                this.inFlight++;
+                return true;
+            } catch (InterruptedException e) {
+                // Pass on a signal this request may have consumed.
+                this.available.signal();
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                this.queued--;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Release an admitted request and adapt the limit to its latency.
+     *
+     * @param latencyNanos - the time the request took once admitted.
+     */
+    public void release(long latencyNanos) {
+        this.lock.lock();
+        try {
+            final double limit = this.limit;
+            final boolean utilized = this.inFlight * 2 >= limit;
+            this.inFlight--;
+            this.averageLatencyNanos += (latencyNanos - this.averageLatencyNanos) * LATENCY_SMOOTHING;
+
+            final double gradient = Math.min(1.0, (double) this.targetLatencyNanos / Math.max(latencyNanos, 1));
+            if (gradient < 1.0 || utilized) {
+                final double target = limit * gradient + Math.sqrt(limit);
+                this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, limit + (target - limit) * SMOOTHING));
+            }
+            if ((int) this.limit > (int) limit) {
+                this.available.signalAll();
+            } else {
+                this.available.signal();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Estimate how long a rejected request should wait before retrying, the time for the requests in flight and in the
+     * queue to complete at the average latency.
+     *
+     * @return the time in milliseconds, at least one.
+     */
+    public long retryAfterMillis() {
+        this.lock.lock();
+        try {
+            final double rounds = Math.ceil((this.inFlight + this.queued + 1) / Math.max(this.limit, 1.0));
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) (rounds * this.averageLatencyNanos)));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The current limit.
+     *
+     * @return the number of requests that may be in flight.
+     */
+    public int getLimit() {
+        this.lock.lock();
+        try {
+            return (int) this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        this.lock.lock();
+        try {
+            return this.queued;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
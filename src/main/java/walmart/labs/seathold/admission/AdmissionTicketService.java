@@ -0,0 +1,221 @@
+package walmart.labs.seathold.admission;
+
+import walmart.labs.seathold.errors.RequestRejectedException;
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.ReserveRequest;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.service.BatchResult;
+import walmart.labs.seathold.service.TicketService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of a TicketService for bursts of requests, such as the opening of an on-sale.
+ * <p>
+ * A hold is rejected without reaching the service, or taking its lock, when the venue is sold out or the requested
+ * number of seats cannot currently be seated.  Otherwise the hold must be admitted by an
+ * {@link AdaptiveConcurrencyLimit}, waiting in its bounded queue while the limit is reached.  A hold that finds the
+ * queue full, or waits longer than the queue timeout, is shed.  Every rejected hold throws a
+ * {@link RequestRejectedException} with a hint of when to retry: the hold timeout when the seats are unavailable, since
+ * the seats of expiring holds may become available, or the estimated time to drain the queue when the service is
+ * overloaded.
+ * <p>
+ * Reservations are passed straight to the service.  They complete a sale for seats that are already held, so shedding
+ * them would waste the hold.
+ */
+public class AdmissionTicketService implements TicketService {
+    /**
+     * The default request latency the concurrency limit adapts to.
+     */
+    public static final long DEFAULT_TARGET_LATENCY_MICROS = 1000;
+
+    /**
+     * The default number of holds that may wait for the concurrency limit.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The default longest time a hold waits for the concurrency limit.
+     */
+    public static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 100;
+
+    private final TicketService service;
+    private final AdaptiveConcurrencyLimit limit;
+    private final long queueTimeoutNanos;
+    private final long unavailableRetryAfterMillis;
+    private final LongAdder[] rejected = new LongAdder[RequestRejectedException.Reason.values().length];
+
+
+    /**
+     * Construct an admission controlled service with the default limit and queue.
+     *
+     * @param service     - the service that fulfills the requests.
+     * @param holdTimeout - the hold timeout of the service, the retry hint when seats are unavailable.
+     */
+    public AdmissionTicketService(TicketService service, long holdTimeout) {
+        this(service, new AdaptiveConcurrencyLimit(Runtime.getRuntime().availableProcessors(), 1, 1000,
+                DEFAULT_TARGET_LATENCY_MICROS, DEFAULT_QUEUE_CAPACITY), DEFAULT_QUEUE_TIMEOUT_MILLIS, holdTimeout);
+    }
+
+    /**
+     * Construct an admission controlled service.
+     *
+     * @param service                     - the service that fulfills the requests.
+     * @param limit                       - the concurrency limit and queue for holds.
+     * @param queueTimeoutMillis          - the longest time a hold waits in the queue.
+     * @param unavailableRetryAfterMillis - the retry hint when the seats are unavailable, typically the hold timeout.
+     */
+    public AdmissionTicketService(TicketService service, AdaptiveConcurrencyLimit limit, long queueTimeoutMillis,
+                                  long unavailableRetryAfterMillis) {
+        this.service = service;
+        this.limit = limit;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.unavailableRetryAfterMillis = unavailableRetryAfterMillis;
+        for (int i = 0; i < this.rejected.length; i++) {
+            this.rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return this.service.numSeatsAvailable();
+    }
+
+    @Override
+    public boolean canSeat(int numSeats) {
+        return this.service.canSeat(numSeats);
+    }
+
+    /**
+     * Find and hold the best available seats for a customer once the request is admitted.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information or null if the service could
+     * not hold the seats
+     * @throws RequestRejectedException if the request was rejected before reaching the service.
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        if (numSeats > 0) {
+            checkSeats(numSeats);
+        }
+        admit();
+        final long start = System.nanoTime();
+        try {
+            return this.service.findAndHoldSeats(numSeats, customerEmail);
+        } finally {
+            this.limit.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Find and hold the best available seats for a batch of customers.  The requests that cannot be seated are
+     * rejected individually and the rest are admitted together, as a single request, so the service still fulfills
+     * them as one batch.
+     *
+     * @param requests the hold requests in arrival order
+     * @return a result for each request in the same order, a failure with a RequestRejectedException for each
+     * rejected request
+     */
+    @Override
+    public List<BatchResult<SeatHold>> findAndHoldSeatsBatch(List<HoldRequest> requests) {
+        final List<BatchResult<SeatHold>> results = new ArrayList<>(requests.size());
+        final List<HoldRequest> admitted = new ArrayList<>(requests.size());
+        for (HoldRequest request : requests) {
+            try {
+                if (request.getNumSeats() > 0) {
+                    checkSeats(request.getNumSeats());
+                }
+                admitted.add(request);
+                results.add(null);
+            } catch (RequestRejectedException e) {
+                results.add(BatchResult.failure(e));
+            }
+        }
+        if (admitted.isEmpty()) {
+            return results;
+        }
+
+        List<BatchResult<SeatHold>> fulfilled;
+        try {
+            admit();
+            final long start = System.nanoTime();
+            try {
+                fulfilled = this.service.findAndHoldSeatsBatch(admitted);
+            } finally {
+                this.limit.release(System.nanoTime() - start);
+            }
+        } catch (RequestRejectedException e) {
+            fulfilled = new ArrayList<>(admitted.size());
+            for (int i = 0; i < admitted.size(); i++) {
+                fulfilled.add(BatchResult.failure(e));
+            }
+        }
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, fulfilled.get(next++));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return this.service.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public List<BatchResult<String>> reserveSeatsBatch(List<ReserveRequest> requests) {
+        return this.service.reserveSeatsBatch(requests);
+    }
+
+    /**
+     * Retrieve the concurrency limit, for example to monitor the limit and the number of holds queued.
+     *
+     * @return the concurrency limit.
+     */
+    public AdaptiveConcurrencyLimit getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * The number of holds rejected for a reason.
+     *
+     * @param reason - the reason.
+     * @return the number of holds.
+     */
+    public long getRejectedCount(RequestRejectedException.Reason reason) {
+        return this.rejected[reason.ordinal()].sum();
+    }
+
+    /**
+     * Reject a hold that cannot currently succeed without acquiring the service lock.
+     */
+    private void checkSeats(int numSeats) {
+        if (this.service.numSeatsAvailable() == 0) {
+            throw reject(RequestRejectedException.Reason.SOLD_OUT, this.unavailableRetryAfterMillis);
+        } else if (!this.service.canSeat(numSeats)) {
+            throw reject(RequestRejectedException.Reason.CANNOT_SEAT, this.unavailableRetryAfterMillis);
+        }
+    }
+
+    /**
+     * Wait for the concurrency limit to admit a hold, or shed it.
+     */
+    private void admit() {
+        if (!this.limit.acquire(this.queueTimeoutNanos)) {
+            throw reject(RequestRejectedException.Reason.OVERLOADED, this.limit.retryAfterMillis());
+        }
+    }
+
+    private RequestRejectedException reject(RequestRejectedException.Reason reason, long retryAfterMillis) {
+        this.rejected[reason.ordinal()].increment();
+        return new RequestRejectedException(reason, retryAfterMillis);
+    }
+}
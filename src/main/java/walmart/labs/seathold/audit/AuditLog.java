@@ -0,0 +1,348 @@
+package walmart.labs.seathold.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An asynchronous audit trail of the holds, reservations and expirations of ticket services.
+ * <p>
+ * Each event is a fixed size binary record written into a lock-free ring buffer.  A producer claims the next slot
+ * with a compare and set, writes the record directly into the buffer without formatting it or allocating and then
+ * publishes the slot.  A single drain thread appends the published records to the audit file in the order their
+ * slots were claimed.  Recording an event therefore costs a handful of memory writes on the calling thread.  When the
+ * ring is full producers wait for the drain thread rather than drop records so the trail is complete.
+ * <p>
+ * The file is a header followed by records of RECORD_SIZE bytes:
+ * <pre>
+ *   int magic, int version
+ *   long time, int holdId, int row, int firstSeat, int seats, byte type, byte truncated, short length,
+ *   byte[EMAIL_CAPACITY] email
+ * </pre>
+ * Emails longer than EMAIL_CAPACITY UTF-8 bytes are truncated and flagged.  {@link AuditLogReader} prints the records
+ * of a file as text.
+ */
+public class AuditLog implements Closeable {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(AuditLog.class.getName());
+
+    /**
+     * Receives the records of an audit file as it is read.
+     */
+    public interface Listener {
+        void record(byte type, long time, int holdId, int row, int firstSeat, int seats, String email,
+                    boolean truncated);
+    }
+
+    public static final byte HOLD = 1;
+    public static final byte RESERVE = 2;
+    public static final byte EXPIRE = 3;
+
+    /**
+     * The size of every record.
+     */
+    public static final int RECORD_SIZE = 128;
+
+    /**
+     * The number of email bytes a record can contain.
+     */
+    public static final int EMAIL_CAPACITY = RECORD_SIZE - 28;
+
+    /**
+     * The default number of records in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The default time the drain thread waits when no records are pending.
+     */
+    public static final long DEFAULT_DRAIN_INTERVAL_MICROS = 1000;
+
+    private static final int MAGIC = 0x41554454;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final ByteBuffer ring;
+    private final int mask;
+    private final long drainIntervalNanos;
+
+    /**
+     * The sequence of the record published in each slot, a slot is ready to drain when it holds the sequence expected.
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * The sequence of the next record to be claimed.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * The sequence of the next record to be drained, the slots before it may be reused.
+     */
+    private volatile long drained;
+
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+
+
+    /**
+     * Open, or create, an audit file with the default capacity and drain interval.
+     *
+     * @param path - the audit file.
+     * @throws IOException if the file cannot be opened or is not an audit file.
+     */
+    public AuditLog(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY, DEFAULT_DRAIN_INTERVAL_MICROS);
+    }
+
+    /**
+     * Open, or create, an audit file.  New records are appended after the last whole record in the file.
+     *
+     * @param path                - the audit file.
+     * @param capacity            - the number of records in the ring buffer, a power of two.
+     * @param drainIntervalMicros - the longest time a published record waits to be drained.
+     * @throws IOException if the file cannot be opened or is not an audit file.
+     */
+    public AuditLog(Path path, int capacity, long drainIntervalMicros) throws IOException {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        } else if (drainIntervalMicros <= 0) {
+            throw new IllegalArgumentException("Drain interval must be greater than zero: " + drainIntervalMicros);
+        }
+        this.mask = capacity - 1;
+        this.drainIntervalNanos = TimeUnit.MICROSECONDS.toNanos(drainIntervalMicros);
+        this.ring = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.published.set(i, -1);
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (this.channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            write(header);
+        } else {
+            // Discard a record torn by a crash so the records that follow stay aligned.
+            readHeader(this.channel, path);
+            final long end = FILE_HEADER_SIZE + (this.channel.size() - FILE_HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+            this.channel.truncate(end);
+            this.channel.position(end);
+        }
+
+        this.drainer = new Thread(this::drain, "audit-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Record a hold of a contiguous range of seats.
+     */
+    public void hold(int holdId, long time, int row, int firstSeat, int seats, String email) {
+        append(HOLD, time, holdId, row, firstSeat, seats, email);
+    }
+
+    /**
+     * Record a reservation.
+     */
+    public void reserve(int holdId, long time, int seats, String email) {
+        append(RESERVE, time, holdId, -1, -1, seats, email);
+    }
+
+    /**
+     * Record an expiration.
+     */
+    public void expire(int holdId, long time, int seats, String email) {
+        append(EXPIRE, time, holdId, -1, -1, seats, email);
+    }
+
+    /**
+     * Drain the pending records and stop the drain thread.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        LockSupport.unpark(this.drainer);
+        try {
+            this.drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.channel.force(false);
+        this.channel.close();
+    }
+
+    /**
+     * Read every record of an audit file in the order they were appended.
+     *
+     * @param path     - the audit file.
+     * @param listener - receives the records.
+     * @throws IOException if the file cannot be read or is not an audit file.
+     */
+    public static void read(Path path, Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(channel, path);
+            final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            for (long offset = FILE_HEADER_SIZE; offset + RECORD_SIZE <= channel.size(); offset += RECORD_SIZE) {
+                record.clear();
+                while (record.hasRemaining() && channel.read(record, offset + record.position()) > 0) {
+                    // Read the whole record.
+                }
+                final long time = record.getLong(0);
+                final int holdId = record.getInt(8);
+                final int row = record.getInt(12);
+                final int firstSeat = record.getInt(16);
+                final int seats = record.getInt(20);
+                final byte type = record.get(24);
+                final boolean truncated = record.get(25) != 0;
+                final int length = Math.min(record.getShort(26), EMAIL_CAPACITY);
+                final String email = length >= 0 ? new String(record.array(), 28, length, StandardCharsets.UTF_8)
+                        : null;
+                listener.record(type, time, holdId, row, firstSeat, seats, email, truncated);
+            }
+        }
+    }
+
+    private static void readHeader(FileChannel channel, Path path) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.position() < FILE_HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an audit file: " + path);
+        } else if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported audit file version: " + path);
+        }
+    }
+
+    /**
+     * Write a record into the next slot of the ring and publish it.
+     */
+    private void append(byte type, long time, int holdId, int row, int firstSeat, int seats, String email) {
+        final long sequence = claim();
+        final int offset = (int) (sequence & this.mask) * RECORD_SIZE;
+        final ByteBuffer ring = this.ring;
+        ring.putLong(offset, time);
+        ring.putInt(offset + 8, holdId);
+        ring.putInt(offset + 12, row);
+        ring.putInt(offset + 16, firstSeat);
+        ring.putInt(offset + 20, seats);
+        ring.put(offset + 24, type);
+        if (email != null) {
+            putEmail(ring, offset, email);
+        } else {
+            ring.put(offset + 25, (byte) 0);
+            ring.putShort(offset + 26, (short) -1);
+        }
+        this.published.lazySet((int) (sequence & this.mask), sequence);
+    }
+
+    /**
+     * Claim the next sequence, waiting for the drain thread while the ring is full.
+     */
+    private long claim() {
+        while (true) {
+            final long sequence = this.claimed.get();
+            if (sequence - this.drained > this.mask) {
+                if (!this.running) {
+                    throw new IllegalStateException("The audit log has been closed.");
+                }
+                LockSupport.unpark(this.drainer);
+                Thread.yield();
+            } else if (this.claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Copy an email and its length into a record.  ASCII emails are copied a character at a time without allocating.
+     * Emails longer than EMAIL_CAPACITY bytes are truncated at a character boundary and flagged.
+     *
+     * @param offset - the offset of the record within the ring.
+     */
+    private static void putEmail(ByteBuffer ring, int offset, String email) {
+        final int length = email.length();
+        for (int i = 0; i < length; i++) {
+            final char c = email.charAt(i);
+            if (c >= 0x80) {
+                final byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+                int n = Math.min(bytes.length, EMAIL_CAPACITY);
+                // Back up to the first byte of a character so the truncated email still decodes.
+                while (n > 0 && n < bytes.length && (bytes[n] & 0xc0) == 0x80) {
+                    n--;
+                }
+                for (int j = 0; j < n; j++) {
+                    ring.put(offset + 28 + j, bytes[j]);
+                }
+                ring.put(offset + 25, (byte) (bytes.length > EMAIL_CAPACITY ? 1 : 0));
+                ring.putShort(offset + 26, (short) n);
+                return;
+            } else if (i < EMAIL_CAPACITY) {
+                ring.put(offset + 28 + i, (byte) c);
+            }
+        }
+        ring.put(offset + 25, (byte) (length > EMAIL_CAPACITY ? 1 : 0));
+        ring.putShort(offset + 26, (short) Math.min(length, EMAIL_CAPACITY));
+    }
+
+    /**
+     * The body of the drain thread.  Appends each run of published records to the file.
+     */
+    private void drain() {
+        final ByteBuffer view = this.ring.duplicate();
+        boolean stopping = false;
+        while (true) {
+            final long next = this.drained;
+            int count = 0;
+            while (count <= this.mask && this.published.get((int) ((next + count) & this.mask)) == next + count) {
+                count++;
+            }
+
+            if (count > 0) {
+                // Write the records up to the end of the ring, then any that wrapped around to the start.
+                final int first = (int) (next & this.mask);
+                final int head = Math.min(count, this.mask + 1 - first);
+                try {
+                    view.limit((first + head) * RECORD_SIZE).position(first * RECORD_SIZE);
+                    write(view);
+                    if (head < count) {
+                        view.limit((count - head) * RECORD_SIZE).position(0);
+                        write(view);
+                    }
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "Unable to write " + count + " audit records", e);
+                }
+                this.drained = next + count;
+            } else if (stopping) {
+                return; // **EXIT**
+            } else if (!this.running) {
+                // Drain the records published before the log was closed.
+                stopping = true;
+            } else {
+                LockSupport.parkNanos(this.drainIntervalNanos);
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package walmart.labs.seathold.audit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+/**
+ * Prints the records of an audit file as text, one line per record.
+ * <pre>
+ *   java -cp seatblock.jar walmart.labs.seathold.audit.AuditLogReader audit.log
+ * </pre>
+ */
+public class AuditLogReader {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AuditLogReader <audit file>");
+            System.exit(1);
+        }
+        print(Paths.get(args[0]), System.out);
+    }
+
+    /**
+     * Print the records of an audit file.
+     *
+     * @param path - the audit file.
+     * @param out  - receives a line for each record.
+     * @throws IOException if the file cannot be read or is not an audit file.
+     */
+    public static void print(Path path, PrintStream out) throws IOException {
+        AuditLog.read(path, (type, time, holdId, row, firstSeat, seats, email, truncated) ->
+                out.println(format(type, time, holdId, row, firstSeat, seats, email, truncated)));
+    }
+
+    /**
+     * Format a record as text.
+     *
+     * @return the text of the record.
+     */
+    public static String format(byte type, long time, int holdId, int row, int firstSeat, int seats, String email,
+                                boolean truncated) {
+        final String customer = truncated ? email + "..." : email;
+        final String timestamp = Instant.ofEpochMilli(time).toString();
+        switch (type) {
+            case AuditLog.HOLD:
+                return String.format("%s HELD: %d seats in row %d from seat %d held for customer: %s with hold id: %d",
+                        timestamp, seats, row, firstSeat, customer, holdId);
+            case AuditLog.RESERVE:
+                return String.format("%s RESERVED: %d seats reserved for customer: %s with confirmation code: %d",
+                        timestamp, seats, customer, holdId);
+            case AuditLog.EXPIRE:
+                return String.format("%s EXPIRED: %d seats held for customer: %s with hold id: %d",
+                        timestamp, seats, customer, holdId);
+            default:
+                return String.format("%s UNKNOWN(%d): hold id: %d", timestamp, type, holdId);
+        }
+    }
+}
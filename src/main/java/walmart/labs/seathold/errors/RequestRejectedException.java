@@ -0,0 +1,58 @@
+package walmart.labs.seathold.errors;
+
+/**
+ * Thrown to indicate that a request was rejected before it reached the ticket service, along with a hint of how long
+ * the caller should wait before retrying.
+ */
+public class RequestRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The reasons a request is rejected.
+     */
+    public enum Reason {
+        /**
+         * Every seat is held or reserved.
+         */
+        SOLD_OUT,
+
+        /**
+         * The requested number of seats cannot currently be seated.
+         */
+        CANNOT_SEAT,
+
+        /**
+         * The service is at its concurrency limit and the request queue is full or the request waited too long.
+         */
+        OVERLOADED
+    }
+
+    private final Reason reason;
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs a RequestRejectedException.  The stack trace is not filled in, rejections are frequent during a burst
+     * and are not errors of the caller.
+     *
+     * @param reason           - the reason the request was rejected.
+     * @param retryAfterMillis - the time the caller should wait before retrying.
+     */
+    public RequestRejectedException(Reason reason, long retryAfterMillis) {
+        super("Request rejected: " + reason + ", retry after " + retryAfterMillis + "ms", null, false, false);
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public Reason getReason() {
+        return this.reason;
+    }
+
+    /**
+     * The time the caller should wait before retrying, for example as the Retry-After of an HTTP 503 response.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getRetryAfterMillis() {
+        return this.retryAfterMillis;
+    }
+}
@@ -0,0 +1,330 @@
+package walmart.labs.seathold.expiry;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Expires seat holds using a hashed timing wheel.
+ * <p>
+ * The wheel is an array of buckets each covering one tick of time.  A hold is placed in the bucket for the tick that
+ * contains its deadline along with the number of full rotations of the wheel that must pass before it is due, so
+ * scheduling and cancelling a hold are both O(1).  A single worker thread advances the wheel one tick at a time and
+ * expires every due hold in the bucket as a batch.  Holds never expire before their deadline and expire at most one
+ * tick after it, so the tick duration bounds the expiry jitter.  When no holds are pending the worker sleeps until the
+ * next hold is scheduled.
+ * <p>
+ * A scheduler may be shared by any number of listeners.  Expired holds are delivered to each listener in a single call
+ * per batch without holding the scheduler lock.
+ */
+public class HoldExpiryScheduler {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(HoldExpiryScheduler.class.getName());
+
+    /**
+     * The default tick duration in milliseconds.
+     */
+    public static final long DEFAULT_TICK_DURATION = 10;
+
+    /**
+     * The default number of buckets in the wheel.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    /**
+     * Receives the ids of holds that have expired.
+     */
+    public interface Listener {
+        /**
+         * Invoked from the scheduler thread with a batch of expired holds.
+         *
+         * @param holdIds - the ids of the expired holds.
+         */
+        void holdsExpired(Set<Integer> holdIds);
+    }
+
+    /**
+     * A handle to a scheduled hold expiration.
+     */
+    public final class Timeout {
+        private final Listener listener;
+        private final int holdId;
+        private final long deadline;
+        private long remainingRounds;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Listener listener, int holdId, long deadline) {
+            this.listener = listener;
+            this.holdId = holdId;
+            this.deadline = deadline;
+        }
+
+        public int getHoldId() {
+            return this.holdId;
+        }
+
+        /**
+         * Cancel this expiration.
+         *
+         * @return true if the expiration was pending and has been cancelled.
+         */
+        public boolean cancel() {
+            return HoldExpiryScheduler.this.cancel(this);
+        }
+    }
+
+    /**
+     * The tick duration in nanoseconds.
+     */
+    private final long tickDuration;
+
+    /**
+     * The wheel buckets, each the head of a doubly linked list of timeouts.
+     */
+    private final Timeout[] wheel;
+
+    /**
+     * A mask used to map a tick to a bucket.
+     */
+    private final int mask;
+
+    /**
+     * The time the wheel was started.
+     */
+    private final long startTime;
+
+    /**
+     * The next tick that the worker will process.
+     */
+    private long tick;
+
+    /**
+     * The number of pending timeouts.
+     */
+    private int pending;
+
+    /**
+     * True until the scheduler is shut down.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The worker thread.
+     */
+    private final Thread worker;
+
+
+    /**
+     * Construct a scheduler with the default tick duration.
+     */
+    public HoldExpiryScheduler() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Construct a scheduler.
+     *
+     * @param tickDuration - the tick duration in milliseconds, the maximum amount of time a hold may outlive its
+     *                     deadline.
+     * @param wheelSize    - the number of buckets in the wheel, rounded up to a power of two.
+     */
+    public HoldExpiryScheduler(long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than zero: " + tickDuration);
+        } else if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("Wheel size is not valid: " + wheelSize);
+        }
+
+        int n = 1;
+        while (n < wheelSize) {
+            n <<= 1;
+        }
+        this.wheel = new Timeout[n];
+        this.mask = n - 1;
+        this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+
+        this.worker = new Thread(this::run, "hold-expiry");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedule a hold to expire.
+     *
+     * @param listener - the listener to notify when the hold expires.
+     * @param holdId   - the hold id.
+     * @param delay    - the delay in milliseconds until the hold expires.
+     * @return a handle that can be used to cancel the expiration.
+     */
+    public Timeout schedule(Listener listener, int holdId, long delay) {
+        final long now = System.nanoTime();
+        Timeout timeout = new Timeout(listener, holdId, now + TimeUnit.MILLISECONDS.toNanos(delay));
+
+        synchronized (this) {
+            if (!this.running) {
+                throw new IllegalStateException("The hold expiry scheduler has been shut down.");
+            }
+
+            if (this.pending == 0) {
+                // The wheel has been idle, there is nothing to process between the last tick and now.
+                this.tick = Math.max(this.tick, (now - this.startTime) / this.tickDuration);
+            }
+
+            long deadlineTick = (timeout.deadline - this.startTime) / this.tickDuration;
+            timeout.remainingRounds = Math.max(deadlineTick - this.tick, 0) / this.wheel.length;
+            int bucket = (int) (Math.max(deadlineTick, this.tick) & this.mask);
+            link(timeout, bucket);
+
+            if (this.pending++ == 0) {
+                // Wake the worker.
+                notifyAll();
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * The number of holds waiting to expire.
+     *
+     * @return the number of pending expirations.
+     */
+    public synchronized int size() {
+        return this.pending;
+    }
+
+    /**
+     * Stop the worker thread.  Pending holds will not expire.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            this.running = false;
+            notifyAll();
+        }
+        try {
+            this.worker.join(1000);
+        } catch (InterruptedException e) {
+            LOG.warning("Exception while shutting down: " + e.toString());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.bucket < 0) {
+            // The timeout has already expired or been cancelled.
+            return false;
+        }
+        unlink(timeout);
+        this.pending--;
+        return true;
+    }
+
+    private void link(Timeout timeout, int bucket) {
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = this.wheel[bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        this.wheel[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            this.wheel[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    /**
+     * The worker loop.
+     */
+    private void run() {
+        final List<Timeout> expired = new ArrayList<>();
+
+        while (this.running) {
+            try {
+                synchronized (this) {
+                    while (this.running && this.pending == 0) {
+                        wait();
+                    }
+
+                    // Sleep until the end of the next tick.
+                    long wakeTime = this.startTime + (this.tick + 1) * this.tickDuration;
+                    long sleep;
+                    while (this.running && (sleep = wakeTime - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, sleep);
+                    }
+
+                    // Process every tick that has ended, there may be more than one if the worker fell behind.
+                    final long now = System.nanoTime();
+                    while (this.running && this.pending > 0 &&
+                            this.startTime + (this.tick + 1) * this.tickDuration <= now) {
+                        expireBucket((int) (this.tick & this.mask), expired);
+                        this.tick++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                break; // **EXIT**
+            }
+
+            if (!expired.isEmpty()) {
+                notifyListeners(expired);
+                expired.clear();
+            }
+        }
+    }
+
+    /**
+     * Remove the due timeouts from a bucket.
+     *
+     * @param bucket  - the bucket index.
+     * @param expired - the list to add the expired timeouts to.
+     */
+    private void expireBucket(int bucket, List<Timeout> expired) {
+        Timeout timeout = this.wheel[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                unlink(timeout);
+                this.pending--;
+                expired.add(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Deliver a batch of expired holds to their listeners, one call per listener.
+     *
+     * @param expired - the expired timeouts.
+     */
+    private void notifyListeners(List<Timeout> expired) {
+        Map<Listener, Set<Integer>> batches = new IdentityHashMap<>();
+        for (Timeout timeout : expired) {
+            batches.computeIfAbsent(timeout.listener, l -> new HashSet<>()).add(timeout.holdId);
+        }
+
+        for (Map.Entry<Listener, Set<Integer>> batch : batches.entrySet()) {
+            try {
+                batch.getKey().holdsExpired(batch.getValue());
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Exception while expiring holds", e);
+            }
+        }
+    }
+}
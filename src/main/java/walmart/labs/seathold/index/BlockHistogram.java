@@ -0,0 +1,164 @@
+package walmart.labs.seathold.index;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A live histogram of the sizes of the available blocks of a SeatBlockIndex, counted exactly by size across the index
+ * and by power of two size class within each row.  The index updates the histogram as blocks are added and removed so
+ * it is never recomputed.
+ * <p>
+ * The counts are atomic so they may be read by any thread without a lock, for example to tell which party sizes can
+ * still be seated.  Each count is exact once a change to the index completes, but a reader may see the counts of a
+ * change that is in progress, such as a block that has been removed before its remaining seats are added back.
+ * <p>
+ * NOTE: Only the owning index modifies the histogram.
+ */
+public final class BlockHistogram {
+    private final int maxBlockSize;
+    private final int fromRow;
+    private final int toRow;
+    private final int sizeClasses;
+
+    /**
+     * The number of blocks of each size, indexed by size - 1.
+     */
+    private final AtomicIntegerArray counts;
+
+    /**
+     * The number of blocks in each size class of each row, indexed by (row - fromRow) * sizeClasses + class.
+     */
+    private final AtomicIntegerArray rowCounts;
+
+    /**
+     * Construct a histogram.
+     *
+     * @param maxBlockSize - the largest block size.
+     * @param fromRow      - the first row counted by row, inclusive.
+     * @param toRow        - the last row counted by row, exclusive.
+     */
+    BlockHistogram(int maxBlockSize, int fromRow, int toRow) {
+        this.maxBlockSize = maxBlockSize;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.sizeClasses = sizeClass(maxBlockSize) + 1;
+        this.counts = new AtomicIntegerArray(maxBlockSize);
+        this.rowCounts = new AtomicIntegerArray(Math.max(toRow - fromRow, 0) * this.sizeClasses);
+    }
+
+    /**
+     * Count a block.  The caller must be the only thread modifying the histogram.
+     */
+    void add(int row, int size) {
+        this.counts.lazySet(size - 1, this.counts.get(size - 1) + 1);
+        if (row >= this.fromRow && row < this.toRow) {
+            final int i = (row - this.fromRow) * this.sizeClasses + sizeClass(size);
+            this.rowCounts.lazySet(i, this.rowCounts.get(i) + 1);
+        }
+    }
+
+    /**
+     * Stop counting a block.  The caller must be the only thread modifying the histogram.
+     */
+    void remove(int row, int size) {
+        this.counts.lazySet(size - 1, this.counts.get(size - 1) - 1);
+        if (row >= this.fromRow && row < this.toRow) {
+            final int i = (row - this.fromRow) * this.sizeClasses + sizeClass(size);
+            this.rowCounts.lazySet(i, this.rowCounts.get(i) - 1);
+        }
+    }
+
+    public int getMaxBlockSize() {
+        return this.maxBlockSize;
+    }
+
+    /**
+     * The number of power of two size classes, class k counts the blocks of 2^k to 2^(k+1) - 1 seats.
+     *
+     * @return the number of size classes.
+     */
+    public int getSizeClasses() {
+        return this.sizeClasses;
+    }
+
+    /**
+     * The number of available blocks of exactly the supplied size.
+     *
+     * @param size - the block size.
+     * @return the number of blocks, zero if the size is larger than any block.
+     */
+    public int getBlockCount(int size) {
+        return size >= 1 && size <= this.maxBlockSize ? this.counts.get(size - 1) : 0;
+    }
+
+    /**
+     * Copy the number of available blocks of each size.
+     *
+     * @return the block counts indexed by size - 1.
+     */
+    public int[] getBlockCounts() {
+        final int[] result = new int[this.maxBlockSize];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * The number of available blocks in each power of two size class.
+     *
+     * @return the block counts indexed by size class.
+     */
+    public int[] getSizeClassCounts() {
+        final int[] result = new int[this.sizeClasses];
+        for (int i = 0; i < this.maxBlockSize; i++) {
+            result[sizeClass(i + 1)] += this.counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * The number of available blocks of a row in each power of two size class.
+     *
+     * @param row - the row index.
+     * @return the block counts indexed by size class.
+     * @throws IndexOutOfBoundsException if the row is not counted by this histogram.
+     */
+    public int[] getSizeClassCounts(int row) {
+        if (row < this.fromRow || row >= this.toRow) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not counted by this histogram");
+        }
+        final int[] result = new int[this.sizeClasses];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = this.rowCounts.get((row - this.fromRow) * this.sizeClasses + k);
+        }
+        return result;
+    }
+
+    /**
+     * The largest size class with an available block in a row, every party of up to 2^k seats can be seated together
+     * in the row.
+     *
+     * @param row - the row index.
+     * @return the size class or -1 if the row has no available seats.
+     * @throws IndexOutOfBoundsException if the row is not counted by this histogram.
+     */
+    public int getLargestSizeClass(int row) {
+        final int[] counts = getSizeClassCounts(row);
+        for (int k = counts.length - 1; k >= 0; k--) {
+            if (counts[k] > 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The size class of a block size.
+     *
+     * @param size - the block size.
+     * @return floor(log2(size)).
+     */
+    public static int sizeClass(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size);
+    }
+}
@@ -0,0 +1,103 @@
+package walmart.labs.seathold.index;
+
+import walmart.labs.seathold.models.SeatBlock;
+
+/**
+ * An open addressing hash table of seat blocks keyed by a primitive long, used in place of a HashMap so that finding,
+ * adding and removing a block allocates neither a boxed key nor an entry.
+ * <p>
+ * Collisions are resolved by linear probing and removals shift the following entries back so no tombstones are left
+ * behind.  The table doubles when it is half full.
+ * <p>
+ * NOTE: This class is not thread safe.
+ */
+final class BlockTable {
+    private long[] keys;
+    private SeatBlock[] values;
+    private int mask;
+    private int size;
+
+    BlockTable() {
+        this.keys = new long[16];
+        this.values = new SeatBlock[16];
+        this.mask = 15;
+    }
+
+    SeatBlock get(long key) {
+        for (int i = index(key); this.values[i] != null; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                return this.values[i];
+            }
+        }
+        return null;
+    }
+
+    void put(long key, SeatBlock value) {
+        int i = index(key);
+        for (; this.values[i] != null; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                this.values[i] = value;
+                return;
+            }
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        if (++this.size > (this.mask + 1) >> 1) {
+            resize();
+        }
+    }
+
+    /**
+     * Remove the entry for a key provided it maps to the supplied block.
+     *
+     * @return true if the entry was removed.
+     */
+    boolean remove(long key, SeatBlock value) {
+        int i = index(key);
+        for (; this.values[i] != null; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                break;
+            }
+        }
+        if (this.values[i] != value || value == null) {
+            return false;
+        }
+
+        // Shift back the entries that probed past the removed slot.
+        int hole = i;
+        for (int j = (i + 1) & this.mask; this.values[j] != null; j = (j + 1) & this.mask) {
+            int home = index(this.keys[j]);
+            if (((j - home) & this.mask) >= ((j - hole) & this.mask)) {
+                this.keys[hole] = this.keys[j];
+                this.values[hole] = this.values[j];
+                hole = j;
+            }
+        }
+        this.values[hole] = null;
+        this.size--;
+        return true;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private void resize() {
+        final long[] keys = this.keys;
+        final SeatBlock[] values = this.values;
+        this.keys = new long[keys.length * 2];
+        this.values = new SeatBlock[values.length * 2];
+        this.mask = this.keys.length - 1;
+        this.size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                put(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+}
@@ -0,0 +1,214 @@
+package walmart.labs.seathold.index;
+
+import walmart.labs.seathold.models.SeatBlock;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking index of available seat blocks for use without a lock.
+ * <p>
+ * Each block is kept in a ConcurrentSkipListSet of the blocks of its exact size and in one of its power of two size
+ * class, both in best available order.  The best block having at least N seats is the best of the first blocks of the
+ * sizes from N to the end of the size class of N and the first blocks of the larger size classes, so finding it reads
+ * at most N + log2(maxBlockSize) first blocks no matter how many blocks are indexed.
+ * <p>
+ * A block is claimed by removing it from the set of its size, only one thread can succeed in removing a given block so
+ * the thread that does owns its seats.  The claiming thread then removes the block from its size class, until it does
+ * other threads may find the block there and fail to claim it.
+ * <p>
+ * The blocks are also keyed by their first and last seats so a released block is merged with the adjacent available
+ * blocks of its row.  The neighbours are claimed like any other block, a neighbour claimed first by a hold is simply
+ * not merged.
+ */
+public class ConcurrentSeatBlockIndex {
+    /**
+     * The blocks of each size, indexed by size - 1.
+     */
+    private final ConcurrentSkipListSet<SeatBlock>[] sizes;
+
+    /**
+     * The blocks of each size class, class k contains the blocks with 2^k to 2^(k+1) - 1 seats.
+     */
+    private final ConcurrentSkipListSet<SeatBlock>[] classes;
+
+    /**
+     * The blocks keyed by row and first seat.
+     */
+    private final Map<Long, SeatBlock> byFirstSeat = new ConcurrentHashMap<>();
+
+    /**
+     * The blocks keyed by row and the seat following their last seat.
+     */
+    private final Map<Long, SeatBlock> byEndSeat = new ConcurrentHashMap<>();
+
+    /**
+     * The number of blocks in the index.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Construct a new index.
+     *
+     * @param maxBlockSize - the largest block size that will be indexed.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentSeatBlockIndex(int maxBlockSize) {
+        if (maxBlockSize < 1) {
+            throw new IllegalArgumentException("Max block size must be greater than zero: " + maxBlockSize);
+        }
+        this.sizes = (ConcurrentSkipListSet<SeatBlock>[]) new ConcurrentSkipListSet[maxBlockSize];
+        for (int i = 0; i < this.sizes.length; i++) {
+            this.sizes[i] = new ConcurrentSkipListSet<>(SeatBlockIndex.BEST_AVAILABLE);
+        }
+        this.classes = (ConcurrentSkipListSet<SeatBlock>[]) new ConcurrentSkipListSet[sizeClass(maxBlockSize) + 1];
+        for (int k = 0; k < this.classes.length; k++) {
+            this.classes[k] = new ConcurrentSkipListSet<>(SeatBlockIndex.BEST_AVAILABLE);
+        }
+    }
+
+    /**
+     * Add an available block to the index.
+     *
+     * @param block - the block to add.
+     */
+    public void add(SeatBlock block) {
+        if (block.size() < 1 || block.size() > this.sizes.length) {
+            throw new IllegalArgumentException("Block size is not valid for this index: " + block.size());
+        }
+        // Key the block, then add it to its size before its size class, a block found by key or in its size class can
+        // then always be claimed unless it already has been.
+        this.byFirstSeat.put(SeatBlockIndex.key(block.getRow(), block.getFirstSeat()), block);
+        this.byEndSeat.put(SeatBlockIndex.key(block.getRow(), block.getFirstSeat() + block.size()), block);
+        final ConcurrentSkipListSet<SeatBlock> blocks = this.sizes[block.size() - 1];
+        if (blocks.add(block)) {
+            final ConcurrentSkipListSet<SeatBlock> sizeClass = this.classes[sizeClass(block.size())];
+            sizeClass.add(block);
+            if (!blocks.contains(block)) {
+                // The block was claimed before it was added to its size class, so the claiming thread could not
+                // remove it from there.
+                sizeClass.remove(block);
+            }
+            this.size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove a block from the index.
+     *
+     * @param block - the block to remove.
+     * @return true if this call removed the block.
+     */
+    public boolean remove(SeatBlock block) {
+        if (block.size() >= 1 && block.size() <= this.sizes.length && this.sizes[block.size() - 1].remove(block)) {
+            this.classes[sizeClass(block.size())].remove(block);
+            this.byFirstSeat.remove(SeatBlockIndex.key(block.getRow(), block.getFirstSeat()), block);
+            this.byEndSeat.remove(SeatBlockIndex.key(block.getRow(), block.getFirstSeat() + block.size()), block);
+            this.size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return a block of seats to the index, merging it with the available blocks that are adjacent to it in its row.
+     * The released block itself is never indexed, a new block covering its seats and those of the neighbours that were
+     * claimed is added.  The seats of the claimed neighbours cannot be held until the new block is added.
+     *
+     * @param block - the released block.
+     * @return the block that was added.
+     */
+    public SeatBlock release(SeatBlock block) {
+        final int row = block.getRow();
+        int firstSeat = block.getFirstSeat();
+        int endSeat = firstSeat + block.size();
+
+        final SeatBlock left = this.byEndSeat.get(SeatBlockIndex.key(row, firstSeat));
+        if (left != null && remove(left)) {
+            firstSeat = left.getFirstSeat();
+        }
+        final SeatBlock right = this.byFirstSeat.get(SeatBlockIndex.key(row, endSeat));
+        if (right != null && remove(right)) {
+            endSeat += right.size();
+        }
+
+        final SeatBlock result = block.slice(firstSeat, endSeat - firstSeat);
+        add(result);
+        return result;
+    }
+
+    /**
+     * Retrieve, without removing, the best available block having at least the supplied number of seats.  The result
+     * may be claimed by another thread at any time.
+     *
+     * @param minSize - the minimum number of seats.
+     * @return the best available block or null if no block is large enough.
+     */
+    public SeatBlock best(int minSize) {
+        final int from = Math.max(minSize, 1);
+        if (from > this.sizes.length) {
+            return null;
+        }
+
+        // Every block of the larger size classes is large enough, within the size class of minSize only the sizes
+        // from minSize are.
+        final int c = sizeClass(from);
+        final int to = Math.min((2 << c) - 1, this.sizes.length);
+        SeatBlock result = null;
+        for (int s = from; s <= to; s++) {
+            result = better(result, first(this.sizes[s - 1]));
+        }
+        for (int k = c + 1; k < this.classes.length; k++) {
+            result = better(result, first(this.classes[k]));
+        }
+        return result;
+    }
+
+    /**
+     * Claim the best available block having at least the supplied number of seats.
+     *
+     * @param minSize - the minimum number of seats.
+     * @return the claimed block or null if no block is large enough.
+     */
+    public SeatBlock poll(int minSize) {
+        SeatBlock block;
+        while ((block = best(minSize)) != null) {
+            if (remove(block)) {
+                return block;
+            }
+            // Another thread claimed the block first, try the next best.
+        }
+        return null;
+    }
+
+    /**
+     * The number of blocks in the index.
+     *
+     * @return the number of blocks.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    private static SeatBlock first(ConcurrentSkipListSet<SeatBlock> blocks) {
+        // The set may become empty at any time so avoid first() which throws when it is.
+        Iterator<SeatBlock> iterator = blocks.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static SeatBlock better(SeatBlock a, SeatBlock b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return SeatBlockIndex.BEST_AVAILABLE.compare(b, a) < 0 ? b : a;
+    }
+
+    private static int sizeClass(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size);
+    }
+}
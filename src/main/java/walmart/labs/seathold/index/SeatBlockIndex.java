@@ -0,0 +1,409 @@
+package walmart.labs.seathold.index;
+
+import walmart.labs.seathold.models.SeatBlock;
+
+import java.util.*;
+
+/**
+ * An index of available seat blocks keyed by block size and score.
+ * <p>
+ * The index is a segment tree over block sizes.  Each leaf contains the blocks of a single size in best available
+ * order and each internal node references the best block beneath it.  Finding the best available block having at
+ * least a given number of seats is therefore O(log n) rather than a scan of every available block.
+ * <p>
+ * The blocks are also keyed by their first and last seats so a released block is merged with the adjacent available
+ * blocks of its row in O(1), keeping the number of blocks, and the fragmentation of the venue, bounded.
+ * <p>
+ * Taking seats from a block and releasing them reuse the blocks removed from the index where possible and the keys are
+ * kept in primitive tables, so beyond the entries of the sorted buckets the hold path allocates at most one block.
+ * <p>
+ * NOTE: This class is not thread safe.  Callers are responsible for synchronizing access.
+ */
+public class SeatBlockIndex implements Iterable<SeatBlock> {
+    /**
+     * Orders seat blocks in best available order.  Higher scores come first, ties are broken front to back, left to
+     * right and finally by block id so that distinct blocks never compare as equal.
+     */
+    public static final Comparator<SeatBlock> BEST_AVAILABLE = (a, b) -> {
+        int result = Float.compare(b.getScore(), a.getScore());
+        if (result == 0) {
+            result = Integer.compare(a.getRow(), b.getRow());
+        }
+        if (result == 0) {
+            result = Integer.compare(a.getFirstSeat(), b.getFirstSeat());
+        }
+        if (result == 0) {
+            result = Integer.compare(a.getId(), b.getId());
+        }
+        return result;
+    };
+
+    /**
+     * The largest block size that can be indexed.
+     */
+    private final int maxBlockSize;
+
+    /**
+     * The number of leaves in the segment tree, always a power of two.
+     */
+    private final int leaves;
+
+    /**
+     * The blocks of each size in best available order, indexed by size - 1.  Buckets are created on first use.
+     */
+    private final TreeSet<SeatBlock>[] buckets;
+
+    /**
+     * The segment tree.  Node 1 is the root, the children of node i are 2i and 2i + 1 and the leaf for block size s
+     * is node leaves + s - 1.  Each node references the best block within its range of sizes or null.
+     */
+    private final SeatBlock[] tree;
+
+    /**
+     * The blocks keyed by row and first seat.
+     */
+    private final BlockTable byFirstSeat = new BlockTable();
+
+    /**
+     * The blocks keyed by row and the seat following their last seat.
+     */
+    private final BlockTable byEndSeat = new BlockTable();
+
+    /**
+     * The live histogram of the block sizes.
+     */
+    private final BlockHistogram histogram;
+
+    /**
+     * The number of blocks in the index.
+     */
+    private int size;
+
+    /**
+     * The total number of seats contained within the indexed blocks.
+     */
+    private int seatCount;
+
+    /**
+     * Construct a new index whose histogram counts the blocks by size but not by row.
+     *
+     * @param maxBlockSize - the largest block size that will be indexed, typically the number of seats per row.
+     */
+    public SeatBlockIndex(int maxBlockSize) {
+        this(maxBlockSize, 0, 0);
+    }
+
+    /**
+     * Construct a new index.
+     *
+     * @param maxBlockSize - the largest block size that will be indexed, typically the number of seats per row.
+     * @param fromRow      - the first row counted by row in the histogram, inclusive.
+     * @param toRow        - the last row counted by row in the histogram, exclusive.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SeatBlockIndex(int maxBlockSize, int fromRow, int toRow) {
+        if (maxBlockSize < 1) {
+            throw new IllegalArgumentException("Max block size must be greater than zero: " + maxBlockSize);
+        }
+        this.maxBlockSize = maxBlockSize;
+
+        int n = 1;
+        while (n < maxBlockSize) {
+            n <<= 1;
+        }
+        this.leaves = n;
+        this.buckets = (TreeSet<SeatBlock>[]) new TreeSet[maxBlockSize];
+        this.tree = new SeatBlock[2 * n];
+        this.histogram = new BlockHistogram(maxBlockSize, fromRow, toRow);
+    }
+
+    /**
+     * Add an available block to the index.
+     *
+     * @param block - the block to add.
+     * @throws IllegalArgumentException if the block is empty or larger than the max block size.
+     */
+    public void add(SeatBlock block) {
+        final int blockSize = block.size();
+        if (blockSize < 1 || blockSize > this.maxBlockSize) {
+            throw new IllegalArgumentException("Block size is not valid for this index: " + blockSize);
+        }
+
+        TreeSet<SeatBlock> bucket = this.buckets[blockSize - 1];
+        if (bucket == null) {
+            bucket = new TreeSet<>(BEST_AVAILABLE);
+            this.buckets[blockSize - 1] = bucket;
+        }
+
+        if (bucket.add(block)) {
+            this.byFirstSeat.put(key(block.getRow(), block.getFirstSeat()), block);
+            this.byEndSeat.put(key(block.getRow(), block.getFirstSeat() + blockSize), block);
+            this.size++;
+            this.seatCount += blockSize;
+            this.histogram.add(block.getRow(), blockSize);
+            update(blockSize);
+        }
+    }
+
+    /**
+     * Remove a block from the index.
+     *
+     * @param block - the block to remove.
+     * @return true if the block was found and removed.
+     */
+    public boolean remove(SeatBlock block) {
+        final int blockSize = block.size();
+        if (blockSize < 1 || blockSize > this.maxBlockSize) {
+            return false;
+        }
+
+        TreeSet<SeatBlock> bucket = this.buckets[blockSize - 1];
+        if (bucket != null && bucket.remove(block)) {
+            this.byFirstSeat.remove(key(block.getRow(), block.getFirstSeat()), block);
+            this.byEndSeat.remove(key(block.getRow(), block.getFirstSeat() + blockSize), block);
+            this.size--;
+            this.seatCount -= blockSize;
+            this.histogram.remove(block.getRow(), blockSize);
+            update(blockSize);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Find the available block starting at a seat.
+     *
+     * @param row       - the row index.
+     * @param firstSeat - the first seat of the block.
+     * @return the block or null if no available block starts at the seat.
+     */
+    public SeatBlock find(int row, int firstSeat) {
+        return this.byFirstSeat.get(key(row, firstSeat));
+    }
+
+    /**
+     * Remove a block from the index and take the best "size" seats from it.  The seats on either side of the taken
+     * seats are returned to the index, the removed block is reused for one of them.
+     *
+     * @param block - an indexed block.
+     * @param size  - the number of seats to take.
+     * @return the first seat of the taken seats.
+     * @throws IllegalArgumentException if the block is not indexed or has fewer than "size" seats.
+     */
+    public int take(SeatBlock block, int size) {
+        if (size < 1 || size > block.size() || !remove(block)) {
+            throw new IllegalArgumentException("Cannot take " + size + " seats from the block: " + block.getRow() +
+                    "-" + block.getFirstSeat());
+        }
+        final int firstSeat = block.getFirstSeat();
+        final int endSeat = firstSeat + block.size();
+        final int taken = block.bestStartingSeat(size);
+
+        if (taken > firstSeat && taken + size < endSeat) {
+            add(block.slice(taken + size, endSeat - taken - size));
+            add(block.resize(firstSeat, taken - firstSeat));
+        } else if (taken > firstSeat) {
+            add(block.resize(firstSeat, taken - firstSeat));
+        } else if (taken + size < endSeat) {
+            add(block.resize(taken + size, endSeat - taken - size));
+        }
+        return taken;
+    }
+
+    /**
+     * Return a block of seats to the index, merging it with the available blocks that are adjacent to it in its row.
+     * The released block itself is never indexed, an adjacent block is extended to cover its seats or a copy is added
+     * when it has no available neighbours.
+     *
+     * @param block - the released block.
+     * @return the block that was added or extended.
+     */
+    public SeatBlock release(SeatBlock block) {
+        final SeatBlock left = this.byEndSeat.get(key(block.getRow(), block.getFirstSeat()));
+        final SeatBlock right = this.byFirstSeat.get(key(block.getRow(), block.getFirstSeat() + block.size()));
+        final SeatBlock result;
+        if (left != null) {
+            remove(left);
+            if (right != null) {
+                remove(right);
+            }
+            result = left.resize(left.getFirstSeat(), left.size() + block.size() + (right != null ? right.size() : 0));
+        } else if (right != null) {
+            remove(right);
+            result = right.resize(block.getFirstSeat(), block.size() + right.size());
+        } else {
+            result = block.slice(block.getFirstSeat(), block.size());
+        }
+        add(result);
+        return result;
+    }
+
+    /**
+     * Retrieve the best available block having at least the supplied number of seats.
+     *
+     * @param minSize - the minimum number of seats.
+     * @return the best available block or null if no block is large enough.
+     */
+    public SeatBlock best(int minSize) {
+        if (minSize > this.maxBlockSize) {
+            return null;
+        }
+
+        int left = this.leaves + Math.max(minSize, 1) - 1;
+        int right = this.leaves + this.maxBlockSize;
+        SeatBlock result = null;
+        while (left < right) {
+            if ((left & 1) == 1) {
+                result = better(result, this.tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = better(result, this.tree[--right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve the size of the largest block in the index.
+     *
+     * @return the largest block size or zero if the index is empty.
+     */
+    public int largestBlockSize() {
+        if (this.tree[1] == null) {
+            return 0;
+        }
+
+        // Descend toward the largest size that has a block.
+        int node = 1;
+        while (node < this.leaves) {
+            node = this.tree[2 * node + 1] != null ? 2 * node + 1 : 2 * node;
+        }
+        return node - this.leaves + 1;
+    }
+
+    /**
+     * Remove and return the best available block having at least the supplied number of seats.
+     *
+     * @param minSize - the minimum number of seats.
+     * @return the best available block or null if no block is large enough.
+     */
+    public SeatBlock poll(int minSize) {
+        SeatBlock result = best(minSize);
+        if (result != null) {
+            remove(result);
+        }
+        return result;
+    }
+
+    /**
+     * The number of blocks in the index.
+     *
+     * @return the number of blocks.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * The total number of seats contained within the indexed blocks.
+     *
+     * @return the number of seats.
+     */
+    public int getSeatCount() {
+        return this.seatCount;
+    }
+
+    /**
+     * The fragmentation of the available seats, one minus the ratio of the fewest blocks the available seats could
+     * form to the number of blocks.  The value is zero when every block is as large as possible and approaches one as
+     * the seats are split into many small blocks.
+     *
+     * @return the fragmentation between zero and one.
+     */
+    public double fragmentation() {
+        if (this.size == 0) {
+            return 0.0;
+        }
+        final int fewestBlocks = (this.seatCount + this.maxBlockSize - 1) / this.maxBlockSize;
+        return 1.0 - (double) fewestBlocks / this.size;
+    }
+
+    /**
+     * Retrieve the live histogram of the block sizes, which may be read without synchronizing with the index.
+     *
+     * @return the histogram.
+     */
+    public BlockHistogram getHistogram() {
+        return this.histogram;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getMaxBlockSize() {
+        return this.maxBlockSize;
+    }
+
+    /**
+     * Returns an iterator over the blocks in best available order.
+     * <p>
+     * NOTE: The iterator is over a sorted copy of the index and is intended for reporting and debugging rather than
+     * the hold path.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<SeatBlock> iterator() {
+        List<SeatBlock> blocks = blocks();
+        blocks.sort(BEST_AVAILABLE);
+        return Collections.unmodifiableList(blocks).iterator();
+    }
+
+    /**
+     * Copy the blocks in the index, ordered by size.  Copying without sorting keeps the time spent reading the index
+     * short when the blocks are sorted by the caller.
+     *
+     * @return a new list of the blocks.
+     */
+    public List<SeatBlock> blocks() {
+        List<SeatBlock> blocks = new ArrayList<>(this.size);
+        for (TreeSet<SeatBlock> bucket : this.buckets) {
+            if (bucket != null) {
+                blocks.addAll(bucket);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Refresh the leaf for the supplied block size and each of its ancestors.
+     *
+     * @param blockSize - the block size that changed.
+     */
+    private void update(int blockSize) {
+        TreeSet<SeatBlock> bucket = this.buckets[blockSize - 1];
+        int node = this.leaves + blockSize - 1;
+        this.tree[node] = bucket.isEmpty() ? null : bucket.first();
+
+        for (node >>= 1; node > 0; node >>= 1) {
+            this.tree[node] = better(this.tree[2 * node], this.tree[2 * node + 1]);
+        }
+    }
+
+    static long key(int row, int seat) {
+        return (long) row << 32 | seat;
+    }
+
+    private static SeatBlock better(SeatBlock a, SeatBlock b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        } else {
+            return BEST_AVAILABLE.compare(a, b) <= 0 ? a : b;
+        }
+    }
+}
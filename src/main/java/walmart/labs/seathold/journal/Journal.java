@@ -0,0 +1,484 @@
+package walmart.labs.seathold.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of the holds, reservations and expirations of a ticket service, used to restore
+ * the service after a restart.
+ * <p>
+ * The journal file is written through memory-mapped regions.  Appending a record only copies it into the mapped region
+ * so it is visible to the operating system immediately and survives a crash of the process.  To survive a crash of the
+ * machine a record must also be forced to the storage device.  A single flush thread forces all of the records
+ * appended since its last flush at once, callers that need a record to be durable wait until a flush covers it.  This
+ * group commit keeps the cost of forcing the journal to one flush per commit interval no matter how many records are
+ * appended.
+ * <p>
+ * Each record is a length, a CRC32 checksum of the body and the body.  Records never span regions, the unused end of
+ * a region is marked with a length of -1.  Replay stops at the first record with a length of zero or an invalid
+ * checksum so a record torn by a crash is discarded.
+ * <p>
+ * Emails longer than EMAIL_CAPACITY UTF-8 bytes are truncated, at a character boundary, so every hold record fits in
+ * the smallest region.
+ */
+public class Journal implements Closeable {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(Journal.class.getName());
+
+    /**
+     * Receives the records of a journal as it is replayed.
+     */
+    public interface Listener {
+        void hold(int holdId, long holdTime, int row, int firstSeat, int size, String email);
+
+        void reserve(int holdId, long time);
+
+        void expire(int holdId, long time);
+    }
+
+    /**
+     * The default size of a mapped region.
+     */
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The default time between flushes when records are pending.
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL_MICROS = 1000;
+
+    /**
+     * The largest number of UTF-8 bytes of an email kept in a hold record, the longest valid email address.
+     */
+    public static final int EMAIL_CAPACITY = 320;
+
+    static final byte HOLD = 1;
+    static final byte RESERVE = 2;
+    static final byte EXPIRE = 3;
+
+    /**
+     * The length and checksum preceding each record body.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The type, hold id and time that begin every record body.
+     */
+    private static final int BODY_SIZE = 1 + 4 + 8;
+
+    /**
+     * The row, first seat, size and email length that follow in the body of a hold record.
+     */
+    private static final int HOLD_SIZE = 4 + 4 + 4 + 2;
+
+    /**
+     * The length that marks the unused end of a region.
+     */
+    private static final int END_OF_REGION = -1;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final long commitIntervalNanos;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The region currently being appended to.
+     */
+    private volatile MappedByteBuffer region;
+
+    /**
+     * The file offset of the current region.
+     */
+    private long regionStart;
+
+    /**
+     * The file offset following the last appended record.
+     */
+    private volatile long position;
+
+    /**
+     * The file offset up to which the journal has been forced to the storage device.
+     */
+    private volatile long flushed;
+
+    /**
+     * The failure to force the journal, once set no further records are acknowledged as durable.
+     */
+    private volatile UncheckedIOException flushFailure;
+
+    /**
+     * Waiters are notified through this monitor when the journal has been flushed.
+     */
+    private final Object flushMonitor = new Object();
+
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+
+    /**
+     * Open, or create, a journal with the default region size and commit interval.
+     *
+     * @param path - the journal file.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public Journal(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE, DEFAULT_COMMIT_INTERVAL_MICROS);
+    }
+
+    /**
+     * Open, or create, a journal.  New records are appended after the last valid record in the file.
+     *
+     * @param path                 - the journal file.
+     * @param regionSize           - the size of each mapped region.
+     * @param commitIntervalMicros - the longest time appended records wait to be flushed.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public Journal(Path path, int regionSize, long commitIntervalMicros) throws IOException {
+        if (regionSize < 1024) {
+            throw new IllegalArgumentException("Region size must be at least 1024 bytes: " + regionSize);
+        } else if (commitIntervalMicros <= 0) {
+            throw new IllegalArgumentException("Commit interval must be greater than zero: " + commitIntervalMicros);
+        }
+        this.regionSize = regionSize;
+        this.commitIntervalNanos = TimeUnit.MICROSECONDS.toNanos(commitIntervalMicros);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        // Find the end of the journal and continue appending from there.
+        final long end = scan(null, 0);
+        this.regionStart = end / regionSize * regionSize;
+        this.region = map(this.regionStart);
+        this.region.position((int) (end - this.regionStart));
+        this.position = end;
+        this.flushed = end;
+
+        this.flusher = new Thread(this::flush, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Replay every record of the journal in the order they were appended.
+     *
+     * @param listener - receives the records.
+     * @throws IOException if the journal cannot be read.
+     */
+    public void replay(Listener listener) throws IOException {
+        replay(listener, 0);
+    }
+
+    /**
+     * Replay the records of the journal that were appended after a position, for example the position recorded in a
+     * snapshot.
+     *
+     * @param listener     - receives the records.
+     * @param fromPosition - a position returned by {@link #getPosition()} or when appending a record.
+     * @throws IOException if the journal cannot be read.
+     */
+    public void replay(Listener listener, long fromPosition) throws IOException {
+        if (fromPosition < 0 || fromPosition > this.position) {
+            throw new IllegalArgumentException("Position is not within the journal: " + fromPosition);
+        }
+        scan(listener, fromPosition);
+    }
+
+    /**
+     * Append a hold.  An email longer than EMAIL_CAPACITY UTF-8 bytes is truncated.
+     *
+     * @return the position following the record, see {@link #awaitDurable(long)}.
+     */
+    public synchronized long hold(int holdId, long holdTime, int row, int firstSeat, int size, String email) {
+        byte[] emailBytes = email != null ? email.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = emailBytes.length;
+        if (length > EMAIL_CAPACITY) {
+            // Back up to the first byte of a character so the truncated email still decodes.
+            length = EMAIL_CAPACITY;
+            while (length > 0 && (emailBytes[length] & 0xc0) == 0x80) {
+                length--;
+            }
+        }
+        ByteBuffer buffer = begin(HOLD, holdId, holdTime, HOLD_SIZE + length);
+        buffer.putInt(row).putInt(firstSeat).putInt(size).putShort((short) length).put(emailBytes, 0, length);
+        return end(buffer);
+    }
+
+    /**
+     * Append a reservation.
+     *
+     * @return the position following the record, see {@link #awaitDurable(long)}.
+     */
+    public synchronized long reserve(int holdId, long time) {
+        return end(begin(RESERVE, holdId, time, 0));
+    }
+
+    /**
+     * Append an expiration.
+     *
+     * @return the position following the record, see {@link #awaitDurable(long)}.
+     */
+    public synchronized long expire(int holdId, long time) {
+        return end(begin(EXPIRE, holdId, time, 0));
+    }
+
+    /**
+     * The position following the last appended record.
+     *
+     * @return the position.
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Wait until the journal has been forced to the storage device up to the supplied position.
+     *
+     * @param position - a position returned when appending a record.
+     * @throws UncheckedIOException if the journal could not be forced to the storage device.
+     */
+    public void awaitDurable(long position) {
+        if (this.flushed >= position) {
+            return;
+        }
+        LockSupport.unpark(this.flusher);
+
+        boolean interrupted = false;
+        synchronized (this.flushMonitor) {
+            while (this.flushed < position && this.running && this.flushFailure == null) {
+                try {
+                    this.flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final UncheckedIOException failure = this.flushFailure;
+        if (failure != null && this.flushed < position) {
+            throw new UncheckedIOException("The journal is not durable up to position: " + position,
+                    failure.getCause());
+        }
+    }
+
+    /**
+     * Flush the journal and stop the flush thread.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        LockSupport.unpark(this.flusher);
+        try {
+            this.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (this.flushFailure != null) {
+                throw this.flushFailure.getCause();
+            }
+            synchronized (this) {
+                force(this.region);
+                this.flushed = this.position;
+            }
+        } finally {
+            synchronized (this.flushMonitor) {
+                this.flushMonitor.notifyAll();
+            }
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Reserve space for a record in the current region and write the common part of its body.
+     */
+    private ByteBuffer begin(byte type, int holdId, long time, int extra) {
+        final int recordSize = HEADER_SIZE + BODY_SIZE + extra;
+        if (recordSize > this.regionSize) {
+            throw new IllegalArgumentException("Record is larger than a region: " + recordSize);
+        }
+        if (this.region.remaining() < recordSize) {
+            nextRegion();
+        }
+        ByteBuffer buffer = this.region;
+        buffer.position(buffer.position() + HEADER_SIZE);
+        buffer.put(type).putInt(holdId).putLong(time);
+        return buffer;
+    }
+
+    /**
+     * Complete a record by writing its header.  The length is written last so a partially written record reads as the
+     * end of the journal.
+     */
+    private long end(ByteBuffer buffer) {
+        final int end = buffer.position();
+        final int start = (int) (this.position - this.regionStart);
+        final int length = end - start - HEADER_SIZE;
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_SIZE).limit(end);
+        this.crc.reset();
+        this.crc.update(body);
+
+        buffer.putInt(start + 4, (int) this.crc.getValue());
+        buffer.putInt(start, length);
+        this.position = this.regionStart + end;
+        return this.position;
+    }
+
+    /**
+     * Mark the end of the current region, force it and map the next one.
+     */
+    private void nextRegion() {
+        if (this.region.remaining() >= 4) {
+            this.region.putInt(this.region.position(), END_OF_REGION);
+        }
+        force(this.region);
+        this.regionStart += this.regionSize;
+        this.region = map(this.regionStart);
+        this.position = this.regionStart;
+    }
+
+    /**
+     * Force a region to the storage device.
+     *
+     * @param region - the region.
+     * @throws UncheckedIOException if the region could not be forced.
+     */
+    void force(MappedByteBuffer region) {
+        try {
+            region.force();
+        } catch (UncheckedIOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new UncheckedIOException(new IOException("Unable to force the journal", e));
+        }
+    }
+
+    private MappedByteBuffer map(long offset) {
+        try {
+            return this.channel.map(FileChannel.MapMode.READ_WRITE, offset, this.regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map the journal at offset: " + offset, e);
+        }
+    }
+
+    /**
+     * Read the valid records of the journal from a position.
+     *
+     * @param listener - receives the records or null to only find the end.
+     * @param offset   - the position of the first record to read.
+     * @return the position following the last valid record.
+     */
+    private long scan(Listener listener, long offset) throws IOException {
+        final long size = this.channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        final CRC32 checksum = new CRC32();
+        ByteBuffer body = ByteBuffer.allocate(256);
+
+        while (offset + HEADER_SIZE <= size) {
+            final long regionEnd = (offset / this.regionSize + 1) * this.regionSize;
+            if (regionEnd - offset < HEADER_SIZE) {
+                offset = regionEnd;
+                continue;
+            }
+
+            header.clear();
+            this.channel.read(header, offset);
+            final int length = header.getInt(0);
+            if (length == END_OF_REGION) {
+                offset = regionEnd;
+                continue;
+            } else if (length < BODY_SIZE || offset + HEADER_SIZE + length > Math.min(size, regionEnd)) {
+                break; // **EXIT**
+            }
+
+            if (body.capacity() < length) {
+                body = ByteBuffer.allocate(length);
+            }
+            body.clear().limit(length);
+            this.channel.read(body, offset + HEADER_SIZE);
+            body.flip();
+            checksum.reset();
+            checksum.update(body.array(), 0, length);
+            if ((int) checksum.getValue() != header.getInt(4)) {
+                LOG.warning("Discarding a torn journal record at offset: " + offset);
+                break; // **EXIT**
+            }
+
+            if (listener != null) {
+                dispatch(body, listener);
+            }
+            offset += HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private static void dispatch(ByteBuffer body, Listener listener) {
+        final byte type = body.get();
+        final int holdId = body.getInt();
+        final long time = body.getLong();
+        switch (type) {
+            case HOLD:
+                int row = body.getInt();
+                int firstSeat = body.getInt();
+                int size = body.getInt();
+                byte[] email = new byte[body.getShort() & 0xffff];
+                body.get(email);
+                listener.hold(holdId, time, row, firstSeat, size, new String(email, StandardCharsets.UTF_8));
+                break;
+            case RESERVE:
+                listener.reserve(holdId, time);
+                break;
+            case EXPIRE:
+                listener.expire(holdId, time);
+                break;
+            default:
+                LOG.warning("Skipping an unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * The body of the flush thread.  Forces the journal whenever records are pending and wakes the waiting callers.
+     * <p>
+     * A failed force stops the thread.  The records may not have reached the storage device and a later force that
+     * succeeds does not prove they did, so the waiting callers fail rather than acknowledge them.
+     */
+    private void flush() {
+        while (this.running) {
+            final long target = this.position;
+            if (target > this.flushed) {
+                try {
+                    force(this.region);
+                    // Records before the current region were forced when the region changed.
+                    this.flushed = target;
+                } catch (UncheckedIOException e) {
+                    LOG.log(Level.SEVERE, "Unable to flush the journal", e);
+                    this.flushFailure = e;
+                    this.running = false;
+                }
+                synchronized (this.flushMonitor) {
+                    this.flushMonitor.notifyAll();
+                }
+            } else {
+                LockSupport.parkNanos(this, this.commitIntervalNanos);
+            }
+        }
+    }
+}
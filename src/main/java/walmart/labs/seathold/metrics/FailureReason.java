@@ -0,0 +1,36 @@
+package walmart.labs.seathold.metrics;
+
+/**
+ * The reasons a hold or reservation request is not fulfilled.
+ */
+public enum FailureReason {
+    /**
+     * A hold was requested when every seat is held or reserved.
+     */
+    NO_SEATS_AVAILABLE,
+
+    /**
+     * A hold was requested for more seats than are available.
+     */
+    NOT_ENOUGH_SEATS,
+
+    /**
+     * Enough seats are available but not together in a single row.
+     */
+    NO_CONTIGUOUS_BLOCK,
+
+    /**
+     * The request arguments were not valid.
+     */
+    INVALID_REQUEST,
+
+    /**
+     * A reservation was requested for a hold that does not exist or has expired.
+     */
+    NO_SUCH_HOLD,
+
+    /**
+     * A reservation was requested for a hold that belongs to another customer.
+     */
+    WRONG_CUSTOMER
+}
@@ -0,0 +1,131 @@
+package walmart.labs.seathold.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds with log-linear buckets, similar to an HdrHistogram.
+ * <p>
+ * Values below 32 each have their own bucket, above that every power of two range is divided into 16 buckets so a
+ * recorded value is reported within about 6% of its actual value.  Recording a value is a few atomic increments and
+ * does not allocate.  Reading the histogram while values are being recorded returns approximate results.
+ */
+public class LatencyHistogram {
+    /**
+     * The number of bits of a value that are kept to select its bucket within a power of two range.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for any positive long value.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos - the latency in nanoseconds, negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        this.counts.incrementAndGet(bucket(value));
+        this.count.incrementAndGet();
+        this.total.addAndGet(value);
+
+        long current;
+        while (value > (current = this.max.get()) && !this.max.compareAndSet(current, value)) {
+            // Retry until the maximum is at least the value.
+        }
+    }
+
+    /**
+     * The number of recorded values.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * The mean of the recorded values.
+     *
+     * @return the mean in nanoseconds or zero if no values have been recorded.
+     */
+    public double getMean() {
+        final long n = this.count.get();
+        return n == 0 ? 0 : (double) this.total.get() / n;
+    }
+
+    /**
+     * The largest recorded value.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * The value at a percentile of the recorded values.  The result is the largest value that shares a bucket with
+     * the value at the percentile, limited to the largest recorded value.
+     *
+     * @param percentile - the percentile from 0 to 100.
+     * @return the value in nanoseconds or zero if no values have been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += this.counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clear the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+    static int bucket(long value) {
+        final int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long lowestEquivalentValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long highestEquivalentValue(int bucket) {
+        return bucket + 1 < BUCKETS ? lowestEquivalentValue(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+}
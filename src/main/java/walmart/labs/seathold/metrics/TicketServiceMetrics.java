@@ -0,0 +1,343 @@
+package walmart.labs.seathold.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The latencies, counters and gauges of a ticket service.
+ * <p>
+ * The recording methods take primitive values and only update histograms and atomic counters so they do not allocate.
+ * The lock wait and lock hold histograms separate the time spent waiting for the service monitor from the time spent
+ * holding it.  The free block gauge is computed from the service when it is read.
+ */
+public class TicketServiceMetrics implements TicketServiceMetricsMXBean {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(TicketServiceMetrics.class.getName());
+
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+    private final LatencyHistogram reserveLatency = new LatencyHistogram();
+    private final LatencyHistogram expirySweepLatency = new LatencyHistogram();
+    private final LatencyHistogram expiryLag = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram lockHold = new LatencyHistogram();
+
+    private final AtomicLong holds = new AtomicLong();
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLongArray failures = new AtomicLongArray(REASONS.length);
+
+    /**
+     * Computes the number of free blocks in each size class.
+     */
+    private final Supplier<int[]> freeBlockSizeClasses;
+
+    /**
+     * Computes the fragmentation of the free blocks.
+     */
+    private final DoubleSupplier fragmentation;
+
+    /**
+     * The JMX name the metrics are registered under or null if they are not registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * Construct the metrics of a service.
+     *
+     * @param freeBlockSizeClasses - computes the number of free blocks in each power of two size class.
+     * @param fragmentation        - computes the fragmentation of the free blocks.
+     */
+    public TicketServiceMetrics(Supplier<int[]> freeBlockSizeClasses, DoubleSupplier fragmentation) {
+        this.freeBlockSizeClasses = freeBlockSizeClasses;
+        this.fragmentation = fragmentation;
+    }
+
+    /**
+     * Record a successful hold.
+     *
+     * @param nanos - the latency of the request including any time waiting for the service lock.
+     */
+    public void recordHold(long nanos) {
+        this.holds.incrementAndGet();
+        this.holdLatency.record(nanos);
+    }
+
+    /**
+     * Record a successful reservation.
+     *
+     * @param nanos - the latency of the request including any time waiting for the service lock.
+     */
+    public void recordReservation(long nanos) {
+        this.reservations.incrementAndGet();
+        this.reserveLatency.record(nanos);
+    }
+
+    /**
+     * Record a hold that could not be made.
+     *
+     * @param reason - the reason the hold failed.
+     * @param nanos  - the latency of the request.
+     */
+    public void recordHoldFailure(FailureReason reason, long nanos) {
+        this.failures.incrementAndGet(reason.ordinal());
+        this.holdLatency.record(nanos);
+    }
+
+    /**
+     * Record a reservation that could not be made.
+     *
+     * @param reason - the reason the reservation failed.
+     * @param nanos  - the latency of the request.
+     */
+    public void recordReservationFailure(FailureReason reason, long nanos) {
+        this.failures.incrementAndGet(reason.ordinal());
+        this.reserveLatency.record(nanos);
+    }
+
+    /**
+     * Record a single expired hold.
+     *
+     * @param lagNanos - the time between the hold's deadline and its expiration.
+     */
+    public void recordExpiration(long lagNanos) {
+        this.expirations.incrementAndGet();
+        this.expiryLag.record(lagNanos);
+    }
+
+    /**
+     * Record the processing of a batch of expired holds.
+     *
+     * @param nanos - the time taken to return the seats of the batch.
+     */
+    public void recordExpirySweep(long nanos) {
+        this.expirySweepLatency.record(nanos);
+    }
+
+    /**
+     * Record an acquisition of the service lock.
+     *
+     * @param waitNanos - the time spent waiting to acquire the lock.
+     * @param holdNanos - the time the lock was held.
+     */
+    public void recordLock(long waitNanos, long holdNanos) {
+        this.lockWait.record(waitNanos);
+        this.lockHold.record(holdNanos);
+    }
+
+    public LatencyHistogram getHoldLatency() {
+        return this.holdLatency;
+    }
+
+    public LatencyHistogram getReserveLatency() {
+        return this.reserveLatency;
+    }
+
+    public LatencyHistogram getExpirySweepLatency() {
+        return this.expirySweepLatency;
+    }
+
+    public LatencyHistogram getExpiryLag() {
+        return this.expiryLag;
+    }
+
+    public LatencyHistogram getLockWait() {
+        return this.lockWait;
+    }
+
+    public LatencyHistogram getLockHold() {
+        return this.lockHold;
+    }
+
+    public long getFailures(FailureReason reason) {
+        return this.failures.get(reason.ordinal());
+    }
+
+    @Override
+    public long getHolds() {
+        return this.holds.get();
+    }
+
+    @Override
+    public long getReservations() {
+        return this.reservations.get();
+    }
+
+    @Override
+    public long getExpirations() {
+        return this.expirations.get();
+    }
+
+    @Override
+    public Map<String, Long> getFailures() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (FailureReason reason : REASONS) {
+            result.put(reason.name(), getFailures(reason));
+        }
+        return result;
+    }
+
+    @Override
+    public double getHoldLatencyMean() {
+        return this.holdLatency.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getHoldLatencyP50() {
+        return micros(this.holdLatency.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getHoldLatencyP99() {
+        return micros(this.holdLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getHoldLatencyP999() {
+        return micros(this.holdLatency.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public long getHoldLatencyMax() {
+        return micros(this.holdLatency.getMax());
+    }
+
+    @Override
+    public long getReserveLatencyP50() {
+        return micros(this.reserveLatency.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getReserveLatencyP99() {
+        return micros(this.reserveLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getReserveLatencyMax() {
+        return micros(this.reserveLatency.getMax());
+    }
+
+    @Override
+    public long getExpirySweepLatencyP99() {
+        return micros(this.expirySweepLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getExpiryLagP99() {
+        return micros(this.expiryLag.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getLockWaitP50() {
+        return micros(this.lockWait.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getLockWaitP99() {
+        return micros(this.lockWait.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getLockWaitMax() {
+        return micros(this.lockWait.getMax());
+    }
+
+    @Override
+    public long getLockHoldP50() {
+        return micros(this.lockHold.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getLockHoldP99() {
+        return micros(this.lockHold.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getLockHoldMax() {
+        return micros(this.lockHold.getMax());
+    }
+
+    @Override
+    public int getFreeBlockCount() {
+        int result = 0;
+        for (int count : getFreeBlockSizeClasses()) {
+            result += count;
+        }
+        return result;
+    }
+
+    @Override
+    public int[] getFreeBlockSizeClasses() {
+        return this.freeBlockSizeClasses.get();
+    }
+
+    @Override
+    public double getFragmentation() {
+        return this.fragmentation.getAsDouble();
+    }
+
+    @Override
+    public void reset() {
+        this.holdLatency.reset();
+        this.reserveLatency.reset();
+        this.expirySweepLatency.reset();
+        this.expiryLag.reset();
+        this.lockWait.reset();
+        this.lockHold.reset();
+        this.holds.set(0);
+        this.reservations.set(0);
+        this.expirations.set(0);
+        for (int i = 0; i < REASONS.length; i++) {
+            this.failures.set(i, 0);
+        }
+    }
+
+    /**
+     * Register the metrics with the platform MBean server.
+     *
+     * @param name - the name of the service, used as the name key of the object name.
+     */
+    public synchronized void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("walmart.labs.seathold:type=TicketService,name="
+                    + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register the ticket service metrics: " + name, e);
+        }
+    }
+
+    /**
+     * Unregister the metrics from the platform MBean server if they are registered.
+     */
+    public synchronized void unregister() {
+        if (this.objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+            } catch (JMException e) {
+                LOG.log(Level.WARNING, "Unable to unregister the ticket service metrics: " + this.objectName, e);
+            }
+            this.objectName = null;
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,71 @@
+package walmart.labs.seathold.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the metrics of a ticket service.  Latencies are reported in microseconds.
+ */
+public interface TicketServiceMetricsMXBean {
+    long getHolds();
+
+    long getReservations();
+
+    long getExpirations();
+
+    Map<String, Long> getFailures();
+
+    double getHoldLatencyMean();
+
+    long getHoldLatencyP50();
+
+    long getHoldLatencyP99();
+
+    long getHoldLatencyP999();
+
+    long getHoldLatencyMax();
+
+    long getReserveLatencyP50();
+
+    long getReserveLatencyP99();
+
+    long getReserveLatencyMax();
+
+    long getExpirySweepLatencyP99();
+
+    long getExpiryLagP99();
+
+    long getLockWaitP50();
+
+    long getLockWaitP99();
+
+    long getLockWaitMax();
+
+    long getLockHoldP50();
+
+    long getLockHoldP99();
+
+    long getLockHoldMax();
+
+    int getFreeBlockCount();
+
+    /**
+     * The number of free blocks in each power of two size class, entry k counts the blocks of 2^k to 2^(k+1) - 1
+     * seats.
+     *
+     * @return the block counts.
+     */
+    int[] getFreeBlockSizeClasses();
+
+    /**
+     * The fragmentation of the free blocks, zero when the free seats form the fewest possible blocks and approaching
+     * one as they are split into many small blocks.
+     *
+     * @return the fragmentation.
+     */
+    double getFragmentation();
+
+    /**
+     * Clear the recorded latencies and counters.
+     */
+    void reset();
+}
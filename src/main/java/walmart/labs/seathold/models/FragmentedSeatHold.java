@@ -0,0 +1,137 @@
+package walmart.labs.seathold.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hold whose seats are not contiguous.  The hold is made up of seat blocks, typically in neighbouring rows, and takes
+ * the id, email and hold time of its first block.
+ */
+public class FragmentedSeatHold implements SeatHold {
+    /**
+     * The blocks of the hold, best first.
+     */
+    private final SeatBlock[] blocks;
+
+    /**
+     * The total number of seats.
+     */
+    private final int size;
+
+    /**
+     * Construct a hold from its blocks.
+     *
+     * @param blocks - the blocks, the first block identifies the hold.
+     */
+    public FragmentedSeatHold(SeatBlock... blocks) {
+        if (blocks.length == 0) {
+            throw new IllegalArgumentException("A hold requires at least one block.");
+        }
+        this.blocks = blocks;
+        int size = 0;
+        for (SeatBlock block : blocks) {
+            size += block.size();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Create a hold with an additional block, for example when restoring the blocks of a hold one at a time.
+     *
+     * @param hold  - a hold.
+     * @param block - the additional block.
+     * @return a new fragmented hold.
+     */
+    public static FragmentedSeatHold with(SeatHold hold, SeatBlock block) {
+        final SeatBlock[] blocks;
+        if (hold instanceof FragmentedSeatHold) {
+            SeatBlock[] existing = ((FragmentedSeatHold) hold).blocks;
+            blocks = Arrays.copyOf(existing, existing.length + 1);
+        } else {
+            blocks = new SeatBlock[]{(SeatBlock) hold, null};
+        }
+        blocks[blocks.length - 1] = block;
+        return new FragmentedSeatHold(blocks);
+    }
+
+    @Override
+    public int getId() {
+        return this.blocks[0].getId();
+    }
+
+    @Override
+    public String getEmail() {
+        return this.blocks[0].getEmail();
+    }
+
+    public long getHoldTime() {
+        return this.blocks[0].getHoldTime();
+    }
+
+    /**
+     * Retrieve the blocks of the hold.
+     *
+     * @return an unmodifiable list of the blocks, best first.
+     */
+    public List<SeatBlock> getBlocks() {
+        return Collections.unmodifiableList(Arrays.asList(this.blocks));
+    }
+
+    /**
+     * Retrieve the seats of the hold.
+     *
+     * @return an unmodifiable view of the seats of each block in turn, each Seat is created when it is accessed.
+     */
+    @Override
+    public List<Seat> getSeats() {
+        return new AbstractList<Seat>() {
+            @Override
+            public Seat get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                int i = 0;
+                while (index >= blocks[i].size()) {
+                    index -= blocks[i++].size();
+                }
+                return blocks[i].getSeats().get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int getRangeCount() {
+        return this.blocks.length;
+    }
+
+    @Override
+    public int getRow(int range) {
+        return this.blocks[range].getRow();
+    }
+
+    @Override
+    public int getFirstSeat(int range) {
+        return this.blocks[range].getFirstSeat();
+    }
+
+    @Override
+    public int getRangeSize(int range) {
+        return this.blocks[range].size();
+    }
+
+    public String toString() {
+        return "FragmentedSeatHold(" + getId() + ", " + this.blocks.length + " blocks, " + this.size + " seats)";
+    }
+}
@@ -0,0 +1,26 @@
+package walmart.labs.seathold.models;
+
+/**
+ * A request to find and hold a number of seats for a customer, used when submitting holds in a batch.
+ */
+public class HoldRequest {
+    private final int numSeats;
+    private final String customerEmail;
+
+    public HoldRequest(int numSeats, String customerEmail) {
+        this.numSeats = numSeats;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public String toString() {
+        return String.format("HoldRequest(numSeats: %d, customerEmail: %s)", this.numSeats, this.customerEmail);
+    }
+}
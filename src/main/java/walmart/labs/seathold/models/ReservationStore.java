@@ -0,0 +1,164 @@
+package walmart.labs.seathold.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A queryable store of the reservations of a venue.  Reservations can be found by confirmation code, by seat and by
+ * customer email, and the number of reserved seats in a range of rows is maintained in a Fenwick tree.
+ * <p>
+ * The reservation id of each seat is kept in a primitive array indexed by row * seatsPerRow + seat so finding the
+ * reservation of a seat is two array lookups.  Adding a reservation only writes to its own seats, appends to lock-free
+ * queues and updates the tree atomically, no lock is acquired so the store adds no contention to a reservation and
+ * services managing distinct rows may share a store.  Lookups never block.
+ */
+public class ReservationStore {
+    /**
+     * The number of seats in each row.
+     */
+    private final int seatsPerRow;
+
+    /**
+     * The reservation id of each seat or zero if the seat is not reserved.
+     */
+    private final AtomicIntegerArray seatReservations;
+
+    /**
+     * The reservations by id.
+     */
+    private final Map<Integer, SeatHold> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * The reservations of each customer in the order they were made.
+     */
+    private final Map<String, Queue<SeatHold>> emailReservations = new ConcurrentHashMap<>();
+
+    /**
+     * A Fenwick tree of the number of reserved seats in each row.  Entry i covers the rows (i - lowbit(i), i].
+     */
+    private final AtomicIntegerArray rowCounts;
+
+
+    /**
+     * Construct an empty reservation store.
+     *
+     * @param venue - the venue.
+     */
+    public ReservationStore(Venue venue) {
+        this.seatsPerRow = venue.getSeatsPerRow();
+        this.seatReservations = new AtomicIntegerArray(venue.getMaxSeats());
+        this.rowCounts = new AtomicIntegerArray(venue.getRows() + 1);
+    }
+
+    /**
+     * Add a reservation.  The seats must not already be reserved.
+     *
+     * @param reservation - the reserved seats, the id of the hold is the confirmation code.
+     */
+    public void add(SeatHold reservation) {
+        // Publish the reservation before the seats refer to it.
+        this.reservations.put(reservation.getId(), reservation);
+
+        if (reservation instanceof FragmentedSeatHold) {
+            for (SeatBlock block : ((FragmentedSeatHold) reservation).getBlocks()) {
+                addSeats(reservation.getId(), block);
+            }
+        } else {
+            addSeats(reservation.getId(), (SeatBlock) reservation);
+        }
+        if (reservation.getEmail() != null) {
+            this.emailReservations.computeIfAbsent(reservation.getEmail(), e -> new ConcurrentLinkedQueue<>())
+                    .add(reservation);
+        }
+    }
+
+    private void addSeats(int reservationId, SeatBlock block) {
+        final int first = block.getRow() * this.seatsPerRow + block.getFirstSeat();
+        for (int i = first; i < first + block.size(); i++) {
+            this.seatReservations.set(i, reservationId);
+        }
+        for (int i = block.getRow() + 1; i < this.rowCounts.length(); i += i & -i) {
+            this.rowCounts.addAndGet(i, block.size());
+        }
+    }
+
+    /**
+     * Find a reservation by confirmation code.
+     *
+     * @param reservationId - the reservation id.
+     * @return the reservation or null if it does not exist.
+     */
+    public SeatHold get(int reservationId) {
+        return this.reservations.get(reservationId);
+    }
+
+    /**
+     * Find the reservation that contains a seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return the reservation or null if the seat is not reserved.
+     */
+    public SeatHold getReservation(int seat, int row) {
+        final int id = this.seatReservations.get(row * this.seatsPerRow + seat);
+        return id != 0 ? this.reservations.get(id) : null;
+    }
+
+    /**
+     * Find the reservations of a customer.
+     *
+     * @param email - the customer email.
+     * @return the reservations in the order they were made.
+     */
+    public List<SeatHold> getReservations(String email) {
+        Queue<SeatHold> reservations = this.emailReservations.get(email);
+        return reservations != null ? new ArrayList<>(reservations) : Collections.emptyList();
+    }
+
+    /**
+     * Retrieve every reservation.
+     *
+     * @return an unmodifiable view of the reservations.
+     */
+    public Collection<SeatHold> getReservations() {
+        return Collections.unmodifiableCollection(this.reservations.values());
+    }
+
+    /**
+     * The number of seats reserved in a range of rows.
+     *
+     * @param fromRow - the first row, inclusive.
+     * @param toRow   - the last row, exclusive.
+     * @return the number of reserved seats.
+     */
+    public int countReservedSeats(int fromRow, int toRow) {
+        return prefixCount(toRow) - prefixCount(fromRow);
+    }
+
+    /**
+     * The number of reservations.
+     *
+     * @return the reservation count.
+     */
+    public int size() {
+        return this.reservations.size();
+    }
+
+    /**
+     * The number of seats reserved in the rows before a row.
+     */
+    private int prefixCount(int row) {
+        int count = 0;
+        for (int i = row; i > 0; i -= i & -i) {
+            count += this.rowCounts.get(i);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,26 @@
+package walmart.labs.seathold.models;
+
+/**
+ * A request to reserve the seats of a hold for a customer, used when submitting reservations in a batch.
+ */
+public class ReserveRequest {
+    private final int seatHoldId;
+    private final String customerEmail;
+
+    public ReserveRequest(int seatHoldId, String customerEmail) {
+        this.seatHoldId = seatHoldId;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public String toString() {
+        return String.format("ReserveRequest(seatHoldId: %d, customerEmail: %s)", this.seatHoldId, this.customerEmail);
+    }
+}
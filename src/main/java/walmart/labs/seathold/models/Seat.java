@@ -1,16 +1,18 @@
 package walmart.labs.seathold.models;
 
+/**
+ * A lightweight view of a single seat.  Seat state is stored by the SeatStore, instances are only created when seats
+ * are returned to callers.
+ */
 public class Seat implements Comparable {
-    private int seat;
-    private int row;
-    private float score;
-    private String code;
+    private final int seat;
+    private final int row;
+    private final float score;
 
     public Seat(int seat, int row, float score) {
         this.seat = seat;
         this.row = row;
         this.score = score;
-        this.code = String.format("%d-%d", this.seat, this.row);
     }
 
     @Override
@@ -41,13 +43,13 @@ public class Seat implements Comparable {
 
     @Override
     public int hashCode() {
-        return code.hashCode();
+        return (this.row << 16) ^ this.seat;
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof Seat) {
-            return this.code.equals(((Seat) o).code);
+            return this.seat == ((Seat) o).seat && this.row == ((Seat) o).row;
         } else {
             throw new IllegalArgumentException(String.format("Invalid parameter type: %s", o.getClass().getName()));
         }
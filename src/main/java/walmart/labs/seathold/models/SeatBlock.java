@@ -1,20 +1,24 @@
 package walmart.labs.seathold.models;
 
-import walmart.labs.seathold.common.SeatHoldUtils;
+import walmart.labs.seathold.scoring.VenueScores;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * The SeatHold is a concrete representation of the SeatHold interface.
+ * <p>
+ * A seat block is a contiguous range of seats within a single row.  The block only stores the bounds of the range,
+ * Seat instances are created as views when the seats are requested.
  */
 public class SeatBlock implements Comparable, Iterable, SeatHold {
     /**
      * An internal sequence.
      */
-    private static int ID = 0;
+    private static final AtomicInteger ID = new AtomicInteger();
     /**
      * Logging instance.
      */
@@ -23,7 +27,7 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
     /**
      * A unique id for this seat hold.
      */
-    private int id = ++ID;
+    private int id = ID.incrementAndGet();
 
     /**
      * The time this seat block was held.
@@ -41,35 +45,83 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
     private float score;
 
     /**
-     * The list of seats associated with this block.
+     * The venue scores for the seats.
      */
-    private List<Seat> seats = new ArrayList<>();
+    private VenueScores scores;
+
+    /**
+     * The row of the seats.
+     */
+    private int row;
+
+    /**
+     * The index of the first seat in the block.
+     */
+    private int firstSeat;
+
+    /**
+     * The number of seats in the block.
+     */
+    private int size;
 
 
     /**
      * Construct a new SeatBlock.
      *
-     * @param email - the customers email for this hold block.
-     * @param seats - the seats for this hold block.
+     * @param scores    - the venue scores.
+     * @param row       - the row of the seats.
+     * @param firstSeat - the index of the first seat.
+     * @param size      - the number of seats.
      */
-    public SeatBlock(String email, List<Seat> seats) {
-        this.email = email;
-
-        float scoreSum = 0.0f;
-        for (Seat s : seats) {
-            scoreSum += s.getScore();
-            this.seats.add(s);
+    public SeatBlock(VenueScores scores, int row, int firstSeat, int size) {
+        this.scores = scores;
+        this.row = row;
+        this.firstSeat = firstSeat;
+        this.size = size;
+
+        if (size > 0) {
+            this.score = scores.average(row, firstSeat, firstSeat + size);
         }
-        this.score = SeatHoldUtils.round(scoreSum / this.seats.size());
     }
 
     /**
-     * Construct a new seat block instance.
+     * Restore a seat hold with its original id, email and hold time, for example when replaying a journal.
      *
-     * @param seats - the initial seats in the hold block.
+     * @param scores    - the venue scores.
+     * @param row       - the row of the seats.
+     * @param firstSeat - the index of the first seat.
+     * @param size      - the number of seats.
+     * @param id        - the id of the hold.
+     * @param email     - the customer email.
+     * @param holdTime  - the time the seats were held.
+     * @return the seat block.
      */
-    public SeatBlock(List<Seat> seats) {
-        this(null, seats);
+    public static SeatBlock restore(VenueScores scores, int row, int firstSeat, int size, int id, String email,
+                                    long holdTime) {
+        SeatBlock block = new SeatBlock(scores, row, firstSeat, size);
+        block.id = id;
+        block.email = email;
+        block.holdTime = holdTime;
+        advanceIds(id);
+        return block;
+    }
+
+    /**
+     * Ensure the ids of blocks created from now on are greater than the supplied id.
+     *
+     * @param id - an id that is already in use.
+     */
+    public static void advanceIds(int id) {
+        ID.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * The most recently assigned id.
+     *
+     * @return the id.
+     */
+    public static int lastId() {
+        return ID.get();
     }
 
     @Override
@@ -88,8 +140,23 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
      * @return an Iterator.
      */
     @Override
-    public Iterator iterator() {
-        return this.seats.iterator();
+    public Iterator<Seat> iterator() {
+        return new Iterator<Seat>() {
+            private int seat = firstSeat;
+
+            @Override
+            public boolean hasNext() {
+                return this.seat < firstSeat + size;
+            }
+
+            @Override
+            public Seat next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return seat(this.seat++);
+            }
+        };
     }
 
     /**
@@ -112,7 +179,9 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
     @Override
     @SuppressWarnings("unchecked")
     public void forEach(Consumer action) {
-        this.seats.forEach(action);
+        for (int seat = this.firstSeat; seat < this.firstSeat + this.size; seat++) {
+            action.accept(seat(seat));
+        }
     }
 
     /**
@@ -121,20 +190,11 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
      *
      * @return a {@code Spliterator} over the elements described by this
      * {@code Iterable}.
-     * @implSpec The default implementation creates an
-     * <em><a href="Spliterator.html#binding">early-binding</a></em>
-     * spliterator from the iterable's {@code Iterator}.  The spliterator
-     * inherits the <em>fail-fast</em> properties of the iterable's iterator.
-     * @implNote The default implementation should usually be overridden.  The
-     * spliterator returned by the default implementation has poor splitting
-     * capabilities, is unsized, and does not report any spliterator
-     * characteristics. Implementing classes can nearly always provide a
-     * better implementation.
-     * @since 1.8
      */
     @Override
-    public Spliterator spliterator() {
-        return this.seats.spliterator();
+    public Spliterator<Seat> spliterator() {
+        return Spliterators.spliterator(iterator(), this.size,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
     }
 
     public int getId() {
@@ -154,12 +214,68 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
         return this.holdTime;
     }
 
+    public float getScore() {
+        return this.score;
+    }
+
+    /**
+     * Retrieve the row of the seats in this block.
+     *
+     * @return the row index.
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Retrieve the seat index of the first seat in this block.
+     *
+     * @return the seat index.
+     */
+    public int getFirstSeat() {
+        return this.firstSeat;
+    }
+
+    /**
+     * Retrieve the seats in this block.
+     *
+     * @return an unmodifiable view of the seats, each Seat is created when it is accessed.
+     */
     public List<Seat> getSeats() {
-        return Arrays.asList(this.seats.toArray(new Seat[this.seats.size()]));
+        return new SeatView();
     }
 
     public int size() {
-        return this.seats.size();
+        return this.size;
+    }
+
+    @Override
+    public int getRangeCount() {
+        return 1;
+    }
+
+    @Override
+    public int getRow(int range) {
+        checkRange(range);
+        return this.row;
+    }
+
+    @Override
+    public int getFirstSeat(int range) {
+        checkRange(range);
+        return this.firstSeat;
+    }
+
+    @Override
+    public int getRangeSize(int range) {
+        checkRange(range);
+        return this.size;
+    }
+
+    private static void checkRange(int range) {
+        if (range != 0) {
+            throw new IndexOutOfBoundsException("Range: " + range);
+        }
     }
 
     /**
@@ -172,7 +288,7 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
      * @return a list of seat blocks where the first is the best available "size" seats.
      */
     public List<SeatBlock> split(int size) {
-        if (size > this.seats.size()) {
+        if (size > this.size) {
             throw new ArrayIndexOutOfBoundsException("Split size is greater than the number of seats: " + size);
         }
         List<SeatBlock> results = new ArrayList<>();
@@ -190,45 +306,29 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
                 LOG.finer("Split seat block into two, keeping the left most.");
             }
 
-            List<Seat> left = this.seats.subList(0, size);
-            List<Seat> right = this.seats.subList(size, this.seats.size());
-
-            results.add(new SeatBlock(left));
-            results.add(new SeatBlock(right));
-        } else if (bestStartingIndex + size == this.seats.size()) {
+            results.add(newBlock(0, size));
+            if (size < this.size) {
+                results.add(newBlock(size, this.size));
+            }
+        } else if (bestStartingIndex + size == this.size) {
             // Split into two returning the right most.
 
             if (LOG.isLoggable(Level.FINER)) {
                 LOG.finer("Split seat block into two, keeping the right most.");
             }
 
-            List<Seat> left = this.seats.subList(0, bestStartingIndex);
-            List<Seat> right = this.seats.subList(bestStartingIndex, this.seats.size());
-
-            results.add(new SeatBlock(right));
-            results.add(new SeatBlock(left));
+            results.add(newBlock(bestStartingIndex, this.size));
+            results.add(newBlock(0, bestStartingIndex));
         } else if (bestStartingIndex > 0) {
-            // Potentially split into three groups, returning the middle.
+            // Split into three groups, returning the middle.
 
             if (LOG.isLoggable(Level.FINER)) {
                 LOG.finer("Split seat block into three, keeping the middle.");
             }
 
-            List<Seat> left = this.seats.subList(0, bestStartingIndex);
-            List<Seat> middle = this.seats.subList(bestStartingIndex, bestStartingIndex + size);
-            List<Seat> right;
-            if (bestStartingIndex + size < this.seats.size()) {
-                right = this.seats.subList(bestStartingIndex + size, this.seats.size());
-            } else {
-                right = new ArrayList<>();
-            }
-
-            results.add(new SeatBlock(middle));
-            results.add(new SeatBlock(left));
-            if (right.size() > 0) {
-                // There is a block on the right.
-                results.add(new SeatBlock(right));
-            }
+            results.add(newBlock(bestStartingIndex, bestStartingIndex + size));
+            results.add(newBlock(0, bestStartingIndex));
+            results.add(newBlock(bestStartingIndex + size, this.size));
         }
 
         if (LOG.isLoggable(Level.FINER)) {
@@ -247,32 +347,95 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
     }
 
     /**
-     * Retrieve the best starting seat index for a new block of "size".
+     * Move the bounds of this block within its row and recalculate its score, for example to reuse a block removed from
+     * an index for the seats left over by a hold.  The block must not be held or indexed while it is resized.
+     *
+     * @param firstSeat - the index of the first seat.
+     * @param size      - the number of seats.
+     * @return this block.
+     */
+    public SeatBlock resize(int firstSeat, int size) {
+        this.firstSeat = firstSeat;
+        this.size = size;
+        this.score = size > 0 ? this.scores.average(this.row, firstSeat, firstSeat + size) : 0.0f;
+        return this;
+    }
+
+    /**
+     * Create a new block of seats in the same row as this block.
+     *
+     * @param firstSeat - the index of the first seat.
+     * @param size      - the number of seats.
+     * @return a new seat block.
+     */
+    public SeatBlock slice(int firstSeat, int size) {
+        return new SeatBlock(this.scores, this.row, firstSeat, size);
+    }
+
+    /**
+     * Find the first seat of the best "size" seats within this block.
+     *
+     * @param size - the number of seats needed.
+     * @return the seat index.
+     */
+    public int bestStartingSeat(int size) {
+        return this.scores.bestStartingSeat(this.row, this.firstSeat, this.firstSeat + this.size, size);
+    }
+
+    /**
+     * Create a new block from a portion of this block's seats.
+     *
+     * @param from - the offset of the first seat within this block, inclusive.
+     * @param to   - the offset of the last seat within this block, exclusive.
+     * @return a new seat block.
+     */
+    private SeatBlock newBlock(int from, int to) {
+        return new SeatBlock(this.scores, this.row, this.firstSeat + from, to - from);
+    }
+
+    /**
+     * Create a view of a seat in this block.
+     *
+     * @param seat - the seat index.
+     * @return the seat.
+     */
+    private Seat seat(int seat) {
+        return new Seat(seat, this.row, this.scores.getScore(seat, this.row));
+    }
+
+    /**
+     * Retrieve the best starting seat index for a new block of "size".  The window scores are calculated with the
+     * venue score prefix sums in O(n) time.
      *
      * @param size - the size of the block needed.
      * @return the starting index of the seat index for a new block of "size".
      */
     private int bestStartingIndex(int size) {
-        int bestStartingIndex = 0;
-        float maxAverage = 0.0f;
-        for (int i = 0; i <= this.seats.size() - size; ++i) {
+        int bestStartingIndex = this.scores.bestStartingSeat(this.row, this.firstSeat, this.firstSeat + this.size,
+                size) - this.firstSeat;
 
-            float sum = 0.0f;
-            for (int j = i; j < i + size; j++) {
-                sum += this.seats.get(j).getScore();
-            }
-            float average = sum / size;
+        if (LOG.isLoggable(Level.FINEST)) {
+            LOG.finest("Found best starting index: " + bestStartingIndex);
+        }
+        return bestStartingIndex;
+    }
 
-            if (average > maxAverage) {
-                maxAverage = average;
-                bestStartingIndex = i;
+    /**
+     * A read only view of the seats of this block.
+     */
+    private final class SeatView extends AbstractList<Seat> implements RandomAccess {
+        @Override
+        public Seat get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
             }
+            return seat(firstSeat + index);
         }
 
-        if (LOG.isLoggable(Level.FINEST)) {
-            LOG.finest("Found best starting index: " + bestStartingIndex);
+        @Override
+        public int size() {
+            return size;
         }
-        return bestStartingIndex;
     }
 
     /**
@@ -285,9 +448,9 @@ public class SeatBlock implements Comparable, Iterable, SeatHold {
         StringBuilder sb = new StringBuilder();
         sb.append("SeatBlock(" + this.score + ")");
         sb.append("\n");
-        for (Seat seat : this.seats) {
+        for (int seat = this.firstSeat; seat < this.firstSeat + this.size; seat++) {
             sb.append("\t");
-            sb.append(seat);
+            sb.append(seat(seat));
             sb.append("\n");
         }
         return sb.toString();
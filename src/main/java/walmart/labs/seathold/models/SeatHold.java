@@ -4,10 +4,56 @@ import java.util.List;
 
 /**
  * The SeatHold interface represents a set of seats that are currently held for a customer.
+ * <p>
+ * The seats are one or more contiguous ranges, each a row, first seat and length, which can be read without copying or
+ * allocating.  getSeats returns an unmodifiable view that creates each Seat when it is accessed.
  */
 public interface SeatHold {
     int getId();
     String getEmail();
     List<Seat> getSeats();
     int size();
+
+    /**
+     * The number of contiguous ranges of seats, one unless the seats of the hold are not contiguous.  The default
+     * implementation finds the ranges in getSeats, implementations should read them without copying.
+     *
+     * @return the range count.
+     */
+    default int getRangeCount() {
+        return SeatRanges.count(getSeats());
+    }
+
+    /**
+     * The row of a range of seats.
+     *
+     * @param range - the range index.
+     * @return the row index.
+     */
+    default int getRow(int range) {
+        final List<Seat> seats = getSeats();
+        return seats.get(SeatRanges.start(seats, range)).getRow();
+    }
+
+    /**
+     * The first seat of a range of seats.
+     *
+     * @param range - the range index.
+     * @return the seat index.
+     */
+    default int getFirstSeat(int range) {
+        final List<Seat> seats = getSeats();
+        return seats.get(SeatRanges.start(seats, range)).getSeat();
+    }
+
+    /**
+     * The number of seats in a range.
+     *
+     * @param range - the range index.
+     * @return the number of seats.
+     */
+    default int getRangeSize(int range) {
+        final List<Seat> seats = getSeats();
+        return SeatRanges.start(seats, range + 1) - SeatRanges.start(seats, range);
+    }
 }
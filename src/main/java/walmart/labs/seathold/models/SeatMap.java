@@ -0,0 +1,189 @@
+package walmart.labs.seathold.models;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the state of the seats in a range of rows, for example to render the seat map of a venue.  The
+ * states are consistent with each other, every seat is copied from the same version of the service that produced the
+ * map.
+ * <p>
+ * A map can be encoded as a compact run length encoding for new subscribers, who then follow the changes with
+ * {@link SeatMapDeltas} starting from the version of the map:
+ * <pre>
+ *   long version, int fromRow, int toRow, (byte state, varint length)*
+ * </pre>
+ * The runs are of seats in row order and may span rows.
+ */
+public class SeatMap {
+    private final Venue venue;
+    private final int fromRow;
+    private final int toRow;
+    private final long version;
+    private final byte[] states;
+
+    /**
+     * Construct a seat map.
+     *
+     * @param venue   - the venue.
+     * @param fromRow - the first row of the map, inclusive.
+     * @param toRow   - the last row of the map, exclusive.
+     * @param version - the version of the service the states were copied from.
+     * @param states  - the seat states indexed by (row - fromRow) * seatsPerRow + seat, which are not copied.
+     */
+    public SeatMap(Venue venue, int fromRow, int toRow, long version, byte[] states) {
+        if (states.length != (toRow - fromRow) * venue.getSeatsPerRow()) {
+            throw new IllegalArgumentException("Expected " + (toRow - fromRow) * venue.getSeatsPerRow() +
+                    " states: " + states.length);
+        }
+        this.venue = venue;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.version = version;
+        this.states = states;
+    }
+
+    public Venue getVenue() {
+        return this.venue;
+    }
+
+    public int getFromRow() {
+        return this.fromRow;
+    }
+
+    public int getToRow() {
+        return this.toRow;
+    }
+
+    /**
+     * The version of the service the map was copied from.  The version increases after every change to the seats so a
+     * map with the same version as a previous map has the same states.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Retrieve the state of a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index, between fromRow and toRow.
+     * @return one of SeatStore.AVAILABLE, HELD or RESERVED.
+     */
+    public byte getState(int seat, int row) {
+        if (row < this.fromRow || row >= this.toRow || seat < 0 || seat >= this.venue.getSeatsPerRow()) {
+            throw new IndexOutOfBoundsException("Seat " + seat + " in row " + row + " is not in the map");
+        }
+        return this.states[(row - this.fromRow) * this.venue.getSeatsPerRow() + seat];
+    }
+
+    /**
+     * Count the seats of the map in a state.
+     *
+     * @param state - one of SeatStore.AVAILABLE, HELD or RESERVED.
+     * @return the number of seats.
+     */
+    public int count(byte state) {
+        int count = 0;
+        for (byte s : this.states) {
+            if (s == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Apply a list of deltas to this map.
+     *
+     * @param deltas - deltas following this version of the map or an earlier one.
+     * @return a new map of the version of the deltas.
+     */
+    public SeatMap apply(SeatMapDeltas deltas) {
+        if (deltas.getFromVersion() > this.version) {
+            throw new IllegalArgumentException("The deltas from version " + deltas.getFromVersion() +
+                    " do not follow version " + this.version);
+        }
+        final int seatsPerRow = this.venue.getSeatsPerRow();
+        final byte[] states = this.states.clone();
+        for (int i = 0; i < deltas.size(); i++) {
+            final int row = deltas.getRow(i);
+            if (row >= this.fromRow && row < this.toRow) {
+                final int from = (row - this.fromRow) * seatsPerRow + deltas.getFirstSeat(i);
+                Arrays.fill(states, from, from + deltas.getRangeSize(i), deltas.getState(i));
+            }
+        }
+        return new SeatMap(this.venue, this.fromRow, this.toRow, Math.max(this.version, deltas.getVersion()),
+                states);
+    }
+
+    /**
+     * Encode the map as runs of seats in the same state.
+     *
+     * @return the encoded map.
+     */
+    public byte[] encode() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16 + this.states.length / 8);
+        final ByteBuffer header = ByteBuffer.allocate(16).putLong(this.version).putInt(this.fromRow)
+                .putInt(this.toRow);
+        out.write(header.array(), 0, header.capacity());
+        for (int i = 0; i < this.states.length; ) {
+            final byte state = this.states[i];
+            int length = 1;
+            while (i + length < this.states.length && this.states[i + length] == state) {
+                length++;
+            }
+            out.write(state);
+            // Write the length seven bits at a time, the high bit marks the bytes that are followed by another.
+            int remaining = length;
+            while (remaining >= 0x80) {
+                out.write((remaining & 0x7f) | 0x80);
+                remaining >>>= 7;
+            }
+            out.write(remaining);
+            i += length;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a map encoded by {@link #encode()}.
+     *
+     * @param venue   - the venue of the map.
+     * @param encoded - the encoded map.
+     * @return the map.
+     * @throws IllegalArgumentException if the runs do not cover the rows of the map.
+     */
+    public static SeatMap decode(Venue venue, byte[] encoded) {
+        final ByteBuffer in = ByteBuffer.wrap(encoded);
+        final long version = in.getLong();
+        final int fromRow = in.getInt();
+        final int toRow = in.getInt();
+        final byte[] states = new byte[(toRow - fromRow) * venue.getSeatsPerRow()];
+        int i = 0;
+        while (in.hasRemaining()) {
+            final byte state = in.get();
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                length |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (length > states.length - i) {
+                throw new IllegalArgumentException("The runs exceed the " + states.length + " seats of the map");
+            }
+            Arrays.fill(states, i, i + length, state);
+            i += length;
+        }
+        if (i != states.length) {
+            throw new IllegalArgumentException("The runs cover " + i + " of the " + states.length +
+                    " seats of the map");
+        }
+        return new SeatMap(venue, fromRow, toRow, version, states);
+    }
+}
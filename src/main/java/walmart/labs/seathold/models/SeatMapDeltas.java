@@ -0,0 +1,92 @@
+package walmart.labs.seathold.models;
+
+/**
+ * An immutable, ordered list of changes to the seat map of a service.  Each delta sets the state of a range of seats in
+ * a row and records the version of the service after the change.  Applying the deltas, in order, to a seat map of
+ * fromVersion or later produces the seat map of the version returned by getVersion.
+ */
+public class SeatMapDeltas {
+    private final long fromVersion;
+    private final long version;
+    private final long[] versions;
+    private final int[] rows;
+    private final int[] firstSeats;
+    private final int[] sizes;
+    private final byte[] states;
+
+    /**
+     * Construct a list of deltas, the arrays are not copied.
+     *
+     * @param fromVersion - the version the deltas follow.
+     * @param version     - the version of the service after the last delta.
+     */
+    SeatMapDeltas(long fromVersion, long version, long[] versions, int[] rows, int[] firstSeats, int[] sizes,
+                  byte[] states) {
+        this.fromVersion = fromVersion;
+        this.version = version;
+        this.versions = versions;
+        this.rows = rows;
+        this.firstSeats = firstSeats;
+        this.sizes = sizes;
+        this.states = states;
+    }
+
+    /**
+     * The version the deltas follow, the deltas contain every change made after it.
+     *
+     * @return the version.
+     */
+    public long getFromVersion() {
+        return this.fromVersion;
+    }
+
+    /**
+     * The version of the service once the deltas are applied, the version to resume from.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * The number of deltas.
+     *
+     * @return the number of deltas.
+     */
+    public int size() {
+        return this.versions.length;
+    }
+
+    /**
+     * The version of the service after a delta.
+     *
+     * @param index - the delta index.
+     * @return the version.
+     */
+    public long getVersion(int index) {
+        return this.versions[index];
+    }
+
+    public int getRow(int index) {
+        return this.rows[index];
+    }
+
+    public int getFirstSeat(int index) {
+        return this.firstSeats[index];
+    }
+
+    public int getRangeSize(int index) {
+        return this.sizes[index];
+    }
+
+    /**
+     * The new state of the seats of a delta.
+     *
+     * @param index - the delta index.
+     * @return one of SeatStore.AVAILABLE, HELD or RESERVED.
+     */
+    public byte getState(int index) {
+        return this.states[index];
+    }
+}
@@ -0,0 +1,117 @@
+package walmart.labs.seathold.models;
+
+/**
+ * The most recent changes to the seat map of a service, kept so that subscribers can follow the seat map by fetching
+ * only the changes made since the version they last saw rather than the whole map.
+ * <p>
+ * The deltas are kept in a ring of primitive arrays, once the ring is full each new delta replaces the oldest one.  A
+ * subscriber that falls further behind than the ring can no longer resume and must start again from a full seat map.
+ * <p>
+ * NOTE: This class is not thread safe.  Callers are responsible for synchronizing access.
+ */
+public class SeatMapFeed {
+    /**
+     * The default number of deltas kept.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final long[] versions;
+    private final int[] rows;
+    private final int[] firstSeats;
+    private final int[] sizes;
+    private final byte[] states;
+    private final int mask;
+
+    /**
+     * The number of deltas appended.
+     */
+    private long count;
+
+    /**
+     * The version of the last delta replaced, a subscriber can resume from this version or later.
+     */
+    private long evictedVersion;
+
+    /**
+     * Construct a feed.
+     *
+     * @param capacity - the number of deltas kept, a power of two.
+     */
+    public SeatMapFeed(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.versions = new long[capacity];
+        this.rows = new int[capacity];
+        this.firstSeats = new int[capacity];
+        this.sizes = new int[capacity];
+        this.states = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Append the change of the seats in a block to a new state.  The versions of the deltas must not decrease.
+     *
+     * @param version - the version of the service after the change.
+     * @param block   - the seats that changed.
+     * @param state   - one of SeatStore.AVAILABLE, HELD or RESERVED.
+     */
+    public void append(long version, SeatBlock block, byte state) {
+        final int i = (int) (this.count & this.mask);
+        if (this.count > this.mask) {
+            this.evictedVersion = this.versions[i];
+        }
+        this.versions[i] = version;
+        this.rows[i] = block.getRow();
+        this.firstSeats[i] = block.getFirstSeat();
+        this.sizes[i] = block.size();
+        this.states[i] = state;
+        this.count++;
+    }
+
+    /**
+     * Copy the deltas made after a version.
+     *
+     * @param fromVersion - the version the subscriber last saw.
+     * @param version     - the current version of the service.
+     * @return the deltas or null if some of the deltas after fromVersion have been replaced.
+     * @throws IllegalArgumentException if fromVersion is after the current version.
+     */
+    public SeatMapDeltas since(long fromVersion, long version) {
+        if (fromVersion > version) {
+            // Error, the subscriber cannot have seen a version the service has not reached.
+            throw new IllegalArgumentException("Version is after the current version: " + fromVersion);
+        } else if (fromVersion < this.evictedVersion) {
+            return null;
+        }
+
+        // Binary search for the first delta after fromVersion.
+        final long count = this.count;
+        long low = Math.max(count - this.mask - 1, 0);
+        long high = count;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (this.versions[(int) (mid & this.mask)] <= fromVersion) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        final int size = (int) (count - low);
+        final long[] versions = new long[size];
+        final int[] rows = new int[size];
+        final int[] firstSeats = new int[size];
+        final int[] sizes = new int[size];
+        final byte[] states = new byte[size];
+        for (int j = 0; j < size; j++) {
+            final int i = (int) ((low + j) & this.mask);
+            versions[j] = this.versions[i];
+            rows[j] = this.rows[i];
+            firstSeats[j] = this.firstSeats[i];
+            sizes[j] = this.sizes[i];
+            states[j] = this.states[i];
+        }
+        return new SeatMapDeltas(fromVersion, version, versions, rows, firstSeats, sizes, states);
+    }
+}
@@ -0,0 +1,58 @@
+package walmart.labs.seathold.models;
+
+import java.util.List;
+
+/**
+ * Finds the contiguous ranges of a list of seats for the default range methods of {@link SeatHold}.  A range ends where
+ * the next seat is in another row or does not immediately follow the previous seat.
+ */
+final class SeatRanges {
+    private SeatRanges() {
+    }
+
+    /**
+     * Count the ranges of a list of seats.
+     *
+     * @param seats - the seats in range order.
+     * @return the number of ranges.
+     */
+    static int count(List<Seat> seats) {
+        int count = 0;
+        for (int i = 0; i < seats.size(); i++) {
+            if (startsRange(seats, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find the index of the first seat of a range.
+     *
+     * @param seats - the seats in range order.
+     * @param range - the range index, or the range count for the end of the list.
+     * @return the index within the list.
+     * @throws IndexOutOfBoundsException if the list has fewer ranges.
+     */
+    static int start(List<Seat> seats, int range) {
+        int found = -1;
+        for (int i = 0; i < seats.size(); i++) {
+            if (startsRange(seats, i) && ++found == range) {
+                return i;
+            }
+        }
+        if (range >= 0 && range == found + 1) {
+            return seats.size();
+        }
+        throw new IndexOutOfBoundsException("Range: " + range);
+    }
+
+    private static boolean startsRange(List<Seat> seats, int i) {
+        if (i == 0) {
+            return true;
+        }
+        final Seat previous = seats.get(i - 1);
+        final Seat seat = seats.get(i);
+        return seat.getRow() != previous.getRow() || seat.getSeat() != previous.getSeat() + 1;
+    }
+}
@@ -0,0 +1,100 @@
+package walmart.labs.seathold.models;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The state of every seat in a venue stored as an atomic bitmap with one AtomicLongArray per row.  Each seat uses two
+ * bits so a single long holds the state of 32 seats.  The bitmap records states, it does not decide who owns a seat:
+ * the caller owns the range it sets, for example through a claim made in a seat block index, and each long the range
+ * covers is updated atomically so the seats of other callers that share it are preserved.
+ * <p>
+ * The states are the same values used by the SeatStore.
+ */
+public class SeatStateBitmap {
+    /**
+     * The number of bits used for each seat.
+     */
+    private static final int BITS_PER_SEAT = 2;
+
+    /**
+     * The number of seats stored in each long.
+     */
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+
+    /**
+     * A long with the low bit of every seat set, multiplying by a state repeats the state for every seat.
+     */
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    /**
+     * The seat state bitmap for each row.
+     */
+    private final AtomicLongArray[] rows;
+
+    /**
+     * Construct a bitmap where every seat is available.
+     *
+     * @param venue - the venue.
+     */
+    public SeatStateBitmap(Venue venue) {
+        final int words = (venue.getSeatsPerRow() + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        this.rows = new AtomicLongArray[venue.getRows()];
+        for (int row = 0; row < this.rows.length; row++) {
+            this.rows[row] = new AtomicLongArray(words);
+        }
+    }
+
+    /**
+     * Retrieve the state of a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return one of SeatStore.AVAILABLE, SeatStore.HELD or SeatStore.RESERVED.
+     */
+    public byte getState(int seat, int row) {
+        long word = this.rows[row].get(seat / SEATS_PER_WORD);
+        return (byte) ((word >>> shift(seat)) & 0x3L);
+    }
+
+    /**
+     * Change the state of a range of seats within a row that the caller owns.  Each long is updated atomically so the
+     * states of the other seats sharing it, which may be changed by other threads, are preserved.
+     *
+     * @param row      - the row index.
+     * @param fromSeat - the first seat, inclusive.
+     * @param toSeat   - the last seat, exclusive.
+     * @param state    - the new state.
+     */
+    public void set(int row, int fromSeat, int toSeat, byte state) {
+        final AtomicLongArray words = this.rows[row];
+        for (int w = fromSeat / SEATS_PER_WORD; w <= (toSeat - 1) / SEATS_PER_WORD; w++) {
+            swap(words, w, mask(w, fromSeat, toSeat), state);
+        }
+    }
+
+    /**
+     * Replace the bits of the masked seats in a word, the seats are owned by the caller.
+     */
+    private static void swap(AtomicLongArray words, int w, long mask, byte to) {
+        long toBits = to * LOW_BITS & mask;
+        long current;
+        do {
+            current = words.get(w);
+        } while (!words.compareAndSet(w, current, (current & ~mask) | toBits));
+    }
+
+    /**
+     * The mask of the bits within a word that belong to a range of seats.
+     */
+    private static long mask(int word, int fromSeat, int toSeat) {
+        int lo = Math.max(fromSeat, word * SEATS_PER_WORD);
+        int hi = Math.min(toSeat, (word + 1) * SEATS_PER_WORD);
+        int width = (hi - lo) * BITS_PER_SEAT;
+        long bits = width == Long.SIZE ? -1L : (1L << width) - 1;
+        return bits << shift(lo);
+    }
+
+    private static int shift(int seat) {
+        return (seat % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+}
@@ -0,0 +1,130 @@
+package walmart.labs.seathold.models;
+
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.Arrays;
+
+/**
+ * A compact store of the seats within a venue.  Rather than an object per seat the store keeps the seat scores and
+ * the state of each seat in primitive arrays indexed by row * seatsPerRow + seat.  Seat instances are only created as
+ * views when requested.
+ * <p>
+ * NOTE: This class is not thread safe.  Callers are responsible for synchronizing access.
+ */
+public class SeatStore {
+    /**
+     * The seat is neither held nor reserved.
+     */
+    public static final byte AVAILABLE = 0;
+    /**
+     * The seat is held for a customer.
+     */
+    public static final byte HELD = 1;
+    /**
+     * The seat is reserved for a customer.
+     */
+    public static final byte RESERVED = 2;
+
+    /**
+     * The venue scores.
+     */
+    private final VenueScores scores;
+
+    /**
+     * The number of seats in each row.
+     */
+    private final int seatsPerRow;
+
+    /**
+     * The state of each seat.
+     */
+    private final byte[] states;
+
+    /**
+     * Construct a store where every seat is available.
+     *
+     * @param scores - the venue scores.
+     */
+    public SeatStore(VenueScores scores) {
+        this.scores = scores;
+        this.seatsPerRow = scores.getVenue().getSeatsPerRow();
+        this.states = new byte[scores.getVenue().getMaxSeats()];
+    }
+
+    /**
+     * Construct a store with the supplied seat states, for example when restoring a snapshot.
+     *
+     * @param scores - the venue scores.
+     * @param states - the state of each seat indexed by row * seatsPerRow + seat.
+     */
+    public SeatStore(VenueScores scores, byte[] states) {
+        if (states.length != scores.getVenue().getMaxSeats()) {
+            throw new IllegalArgumentException("Expected " + scores.getVenue().getMaxSeats() + " states: " +
+                    states.length);
+        }
+        this.scores = scores;
+        this.seatsPerRow = scores.getVenue().getSeatsPerRow();
+        this.states = states;
+    }
+
+    /**
+     * Copy the state of every seat.
+     *
+     * @return the seat states indexed by row * seatsPerRow + seat.
+     */
+    public byte[] copyStates() {
+        return this.states.clone();
+    }
+
+    /**
+     * Copy the state of the seats in a range of rows.
+     *
+     * @param fromRow - the first row, inclusive.
+     * @param toRow   - the last row, exclusive.
+     * @return the seat states indexed by (row - fromRow) * seatsPerRow + seat.
+     */
+    public byte[] copyStates(int fromRow, int toRow) {
+        return Arrays.copyOfRange(this.states, fromRow * this.seatsPerRow, toRow * this.seatsPerRow);
+    }
+
+    public VenueScores getScores() {
+        return this.scores;
+    }
+
+    public Venue getVenue() {
+        return this.scores.getVenue();
+    }
+
+    /**
+     * Retrieve a view of a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return the seat.
+     */
+    public Seat getSeat(int seat, int row) {
+        return new Seat(seat, row, this.scores.getScore(seat, row));
+    }
+
+    /**
+     * Retrieve the state of a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return one of AVAILABLE, HELD or RESERVED.
+     */
+    public byte getState(int seat, int row) {
+        return this.states[row * this.seatsPerRow + seat];
+    }
+
+    /**
+     * Update the state of each of the seats in a block.
+     *
+     * @param block - the seat block.
+     * @param state - one of AVAILABLE, HELD or RESERVED.
+     */
+    public void setState(SeatBlock block, byte state) {
+        int from = block.getRow() * this.seatsPerRow + block.getFirstSeat();
+        Arrays.fill(this.states, from, from + block.size(), state);
+    }
+}
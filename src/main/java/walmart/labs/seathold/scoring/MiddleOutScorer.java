@@ -14,30 +14,15 @@ import java.util.logging.Logger;
 public class MiddleOutScorer implements Scorer {
     private static final Logger LOG = Logger.getLogger(MiddleOutScorer.class.getName());
 
-    private float calculateRowScore(int index, int size) {
-        float result = ((float)size - (float)index) / (float)size;
-
-        if (LOG.isLoggable(Level.FINEST)) {
-            LOG.fine(String.format("%d - %d / %d", size, index, size));
-            LOG.fine("row score: " + result);
-        }
-
-        return result;
+    private static float calculateRowScore(int index, int size) {
+        return ((float)size - (float)index) / (float)size;
     }
 
-    private float calculateSeatScore(int index, int size) {
+    private static float calculateSeatScore(int index, int size) {
         float score;
         if (size % 2 == 0) {
             // Even.
             int mid = size / 2;
-
-            if (LOG.isLoggable(Level.FINEST)) {
-                LOG.finest("even");
-                LOG.finest("index: " + index);
-                LOG.finest("max: " + size);
-                LOG.finest("mid: " + mid);
-            }
-
             if (index + 1 <= mid) {
                 score = (float)(index + 1) / (float)mid;
             } else {
@@ -54,11 +39,6 @@ public class MiddleOutScorer implements Scorer {
                 score = mid / (mid - index + 1 - mid);
             }
         }
-
-        if (LOG.isLoggable(Level.FINEST)) {
-            LOG.finest("seat score: " + score);
-        }
-
         return score;
     }
 
@@ -71,10 +51,36 @@ public class MiddleOutScorer implements Scorer {
         result = SeatHoldUtils.round(result);
 
         if (LOG.isLoggable(Level.FINEST)) {
-            LOG.finest("standard score: " + result);
+            LOG.finest("seat: " + seatIndex + ", row: " + rowIndex + ", seat score: " + seatScore + ", row score: " +
+                    rowScore + ", score: " + result);
         }
 
         return result;
     }
 
+    /**
+     * Score a row without a call or branch per seat.  An even row is scored as two loops, the seats rising to the
+     * middle and the seats falling from it.
+     */
+    @Override
+    public void scoreRow(int rowIndex, Venue venue, float[] scores, int offset) {
+        final int size = venue.getSeatsPerRow();
+        final float rowScore = calculateRowScore(rowIndex, venue.getRows());
+
+        if (size % 2 == 0) {
+            final int mid = size / 2;
+            for (int seat = 0; seat < mid; seat++) {
+                float seatScore = (float)(seat + 1) / (float)mid;
+                scores[offset + seat] = SeatHoldUtils.round((seatScore + rowScore) / 2.0f);
+            }
+            for (int seat = mid; seat < size; seat++) {
+                float seatScore = (float)(size - seat) / (float)mid;
+                scores[offset + seat] = SeatHoldUtils.round((seatScore + rowScore) / 2.0f);
+            }
+        } else {
+            for (int seat = 0; seat < size; seat++) {
+                scores[offset + seat] = SeatHoldUtils.round((calculateSeatScore(seat, size) + rowScore) / 2.0f);
+            }
+        }
+    }
 }
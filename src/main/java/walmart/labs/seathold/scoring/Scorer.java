@@ -1,7 +1,23 @@
 package walmart.labs.seathold.scoring;
 
+import walmart.labs.seathold.common.SeatHoldUtils;
 import walmart.labs.seathold.models.Venue;
 
 public interface Scorer {
     float calculateScore(int seatIndex, int rowIndex, Venue venue);
+
+    /**
+     * Score every seat of a row, rounded to two decimal places.  The default implementation calls calculateScore for
+     * each seat, implementations should override it with a loop over the seats that avoids the per seat call.
+     *
+     * @param rowIndex - the row index.
+     * @param venue    - the venue.
+     * @param scores   - receives the score of seat i at index offset + i.
+     * @param offset   - the index of the score of the first seat.
+     */
+    default void scoreRow(int rowIndex, Venue venue, float[] scores, int offset) {
+        for (int seat = 0; seat < venue.getSeatsPerRow(); seat++) {
+            scores[offset + seat] = SeatHoldUtils.round(calculateScore(seat, rowIndex, venue));
+        }
+    }
 }
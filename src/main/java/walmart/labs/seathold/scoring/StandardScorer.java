@@ -13,4 +13,14 @@ public class StandardScorer implements Scorer {
         float rowScore = (float)venue.getRows() / (float)(venue.getRows() + rowIndex);
         return SeatHoldUtils.round((seatScore + rowScore) / 2);
     }
+
+    @Override
+    public void scoreRow(int rowIndex, Venue venue, float[] scores, int offset) {
+        final int seatsPerRow = venue.getSeatsPerRow();
+        final float rowScore = (float)venue.getRows() / (float)(venue.getRows() + rowIndex);
+        for (int seat = 0; seat < seatsPerRow; seat++) {
+            float seatScore = (float)seatsPerRow / (float)(seatsPerRow + seat);
+            scores[offset + seat] = SeatHoldUtils.round((seatScore + rowScore) / 2);
+        }
+    }
 }
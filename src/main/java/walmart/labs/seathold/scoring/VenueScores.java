@@ -0,0 +1,223 @@
+package walmart.labs.seathold.scoring;
+
+import walmart.labs.seathold.common.SeatHoldUtils;
+import walmart.labs.seathold.models.Venue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * The precomputed seat scores for a venue along with per row prefix sums of those scores.  The prefix sums allow the
+ * score of any contiguous range of seats within a row to be calculated with two array lookups.
+ * <p>
+ * The scores of a large venue may be calculated a range of rows at a time in parallel on a fork join pool.
+ */
+public class VenueScores {
+    /**
+     * The fewest seats scored by a single fork join task.
+     */
+    private static final int SEATS_PER_TASK = 16 * 1024;
+
+    /**
+     * Scores within this tolerance of one another are considered equal.  Seat scores are rounded to two decimal
+     * places so any real difference is far larger than this value.
+     */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * The venue that was scored.
+     */
+    private final Venue venue;
+
+    /**
+     * The number of seats in each row.
+     */
+    private final int seatsPerRow;
+
+    /**
+     * The seat scores stored by row, the score for a seat is at index row * seatsPerRow + seat.
+     */
+    private final float[] scores;
+
+    /**
+     * The prefix sums of the seat scores stored by row.  Each row has seatsPerRow + 1 entries where entry i is the sum
+     * of the scores of seats 0 through i - 1.
+     */
+    private final double[] prefixSums;
+
+    /**
+     * Score each of the seats within a venue.
+     *
+     * @param venue  - the venue.
+     * @param scorer - the scorer implementation.
+     */
+    public VenueScores(Venue venue, Scorer scorer) {
+        this(venue, scorer, null);
+    }
+
+    /**
+     * Score each of the seats within a venue, scoring ranges of rows in parallel on a fork join pool.  The scorer must
+     * be safe to call from multiple threads.
+     * <p>
+     * NOTE: The pool threads cannot call a scorer whose class is still being initialized, for example a lambda created
+     * in a static initializer, and scoring would never complete.
+     *
+     * @param venue  - the venue.
+     * @param scorer - the scorer implementation.
+     * @param pool   - the pool used to score the rows or null to score them on the calling thread.
+     */
+    public VenueScores(Venue venue, Scorer scorer, ForkJoinPool pool) {
+        this(venue, score(venue, scorer, pool), pool);
+    }
+
+    /**
+     * Construct the scores of a venue from seat scores that have already been calculated, for example when restoring
+     * a snapshot.
+     *
+     * @param venue  - the venue.
+     * @param scores - the rounded seat scores stored by row, the score for a seat is at index row * seatsPerRow + seat.
+     */
+    public VenueScores(Venue venue, float[] scores) {
+        this(venue, scores, null);
+    }
+
+    private VenueScores(Venue venue, float[] scores, ForkJoinPool pool) {
+        if (scores.length != venue.getMaxSeats()) {
+            throw new IllegalArgumentException("Expected " + venue.getMaxSeats() + " scores: " + scores.length);
+        }
+        this.venue = venue;
+        this.seatsPerRow = venue.getSeatsPerRow();
+        this.scores = scores;
+
+        final int seatsPerRow = this.seatsPerRow;
+        final double[] prefixSums = new double[venue.getRows() * (seatsPerRow + 1)];
+        forEachRow(venue, pool, row -> {
+            int base = row * (seatsPerRow + 1);
+            double sum = 0.0;
+            for (int seat = 0; seat < seatsPerRow; seat++) {
+                sum += scores[row * seatsPerRow + seat];
+                prefixSums[base + seat + 1] = sum;
+            }
+        });
+        this.prefixSums = prefixSums;
+    }
+
+    private static float[] score(Venue venue, Scorer scorer, ForkJoinPool pool) {
+        final int seatsPerRow = venue.getSeatsPerRow();
+        final float[] scores = new float[venue.getMaxSeats()];
+        forEachRow(venue, pool, row -> scorer.scoreRow(row, venue, scores, row * seatsPerRow));
+        return scores;
+    }
+
+    /**
+     * Perform an action for each row of a venue.  The rows are split into tasks of at least SEATS_PER_TASK seats when
+     * a pool is supplied.  Every task writes distinct rows and has completed before this method returns.
+     */
+    private static void forEachRow(Venue venue, ForkJoinPool pool, IntConsumer action) {
+        if (pool == null || venue.getMaxSeats() <= SEATS_PER_TASK) {
+            for (int row = 0; row < venue.getRows(); row++) {
+                action.accept(row);
+            }
+        } else {
+            int rowsPerTask = Math.max(1, SEATS_PER_TASK / Math.max(1, venue.getSeatsPerRow()));
+            pool.invoke(new RowTask(0, venue.getRows(), rowsPerTask, action));
+        }
+    }
+
+    /**
+     * Splits a range of rows in half until it is small enough to process directly.
+     */
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+        private final int rowsPerTask;
+        private final IntConsumer action;
+
+        private RowTask(int fromRow, int toRow, int rowsPerTask, IntConsumer action) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.rowsPerTask = rowsPerTask;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.toRow - this.fromRow <= this.rowsPerTask) {
+                for (int row = this.fromRow; row < this.toRow; row++) {
+                    this.action.accept(row);
+                }
+            } else {
+                int mid = (this.fromRow + this.toRow) >>> 1;
+                invokeAll(new RowTask(this.fromRow, mid, this.rowsPerTask, this.action),
+                        new RowTask(mid, this.toRow, this.rowsPerTask, this.action));
+            }
+        }
+    }
+
+    public Venue getVenue() {
+        return this.venue;
+    }
+
+    /**
+     * Retrieve the score for a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return the seat score.
+     */
+    public float getScore(int seat, int row) {
+        return this.scores[row * this.seatsPerRow + seat];
+    }
+
+    /**
+     * Retrieve the sum of the scores for a range of seats in a row.
+     *
+     * @param row      - the row index.
+     * @param fromSeat - the first seat, inclusive.
+     * @param toSeat   - the last seat, exclusive.
+     * @return the sum of the seat scores.
+     */
+    public double sum(int row, int fromSeat, int toSeat) {
+        int base = row * (this.seatsPerRow + 1);
+        return this.prefixSums[base + toSeat] - this.prefixSums[base + fromSeat];
+    }
+
+    /**
+     * Retrieve the average score for a range of seats in a row rounded to two decimal places.
+     *
+     * @param row      - the row index.
+     * @param fromSeat - the first seat, inclusive.
+     * @param toSeat   - the last seat, exclusive.
+     * @return the average seat score.
+     */
+    public float average(int row, int fromSeat, int toSeat) {
+        return SeatHoldUtils.round((float) (sum(row, fromSeat, toSeat) / (toSeat - fromSeat)));
+    }
+
+    /**
+     * Find the first seat of the best scoring window of "size" seats within a range of seats in a row.  When windows
+     * have equal scores the left most window is used.
+     *
+     * @param row      - the row index.
+     * @param fromSeat - the first seat of the range, inclusive.
+     * @param toSeat   - the last seat of the range, exclusive.
+     * @param size     - the size of the window.
+     * @return the seat index that starts the best window.
+     */
+    public int bestStartingSeat(int row, int fromSeat, int toSeat, int size) {
+        int base = row * (this.seatsPerRow + 1);
+        int bestStartingSeat = fromSeat;
+        double maxSum = 0.0;
+        for (int seat = fromSeat; seat <= toSeat - size; seat++) {
+            double sum = this.prefixSums[base + seat + size] - this.prefixSums[base + seat];
+            if (sum > maxSum + EPSILON) {
+                maxSum = sum;
+                bestStartingSeat = seat;
+            }
+        }
+        return bestStartingSeat;
+    }
+}
@@ -0,0 +1,269 @@
+package walmart.labs.seathold.service;
+
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.ReserveRequest;
+import walmart.labs.seathold.models.SeatHold;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An asynchronous facade for a TicketService.  Requests are queued and return immediately with a CompletableFuture so
+ * callers do not need a thread parked on the service lock while they wait.
+ * <p>
+ * A single writer thread takes the queued requests in arrival order and submits consecutive requests of the same kind
+ * to the service as one batch, so the service lock is acquired once per batch rather than once per request.  The
+ * futures are completed on the writer thread unless a completion executor is supplied, in which case dependent stages
+ * run on that executor instead.  On a JDK with virtual threads a virtual thread per task executor can be supplied.
+ */
+public class AsyncTicketService {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(AsyncTicketService.class.getName());
+
+    /**
+     * The largest number of requests taken from the queue at once.
+     */
+    static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * The service that fulfills the requests.
+     */
+    private final TicketService service;
+
+    /**
+     * The executor used to complete futures or null to complete them on the writer thread.
+     */
+    private final Executor completionExecutor;
+
+    /**
+     * The pending requests in arrival order.
+     */
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * The single writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * False once the service has been shut down.
+     */
+    private volatile boolean running = true;
+
+
+    /**
+     * Construct an asynchronous service that completes futures on its writer thread.
+     *
+     * @param service - the service that fulfills the requests.
+     */
+    public AsyncTicketService(TicketService service) {
+        this(service, null);
+    }
+
+    /**
+     * Construct an asynchronous service.
+     *
+     * @param service            - the service that fulfills the requests.
+     * @param completionExecutor - the executor used to complete futures or null to complete them on the writer thread.
+     *                           A future whose completion the executor rejects is completed on the writer thread.
+     */
+    public AsyncTicketService(TicketService service, Executor completionExecutor) {
+        this.service = service;
+        this.completionExecutor = completionExecutor;
+        this.writer = new Thread(this::run, "ticket-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved.  The count is read directly from the
+     * service without queueing.
+     *
+     * @return the number of tickets available in the venue
+     */
+    public int numSeatsAvailable() {
+        return this.service.numSeatsAvailable();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a future completed with the SeatHold, or null if the seats could not be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+        HoldCommand command = new HoldCommand(new HoldRequest(numSeats, customerEmail));
+        submit(command);
+        return command.future;
+    }
+
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a future completed with the reservation confirmation code
+     */
+    public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+        ReserveCommand command = new ReserveCommand(new ReserveRequest(seatHoldId, customerEmail));
+        submit(command);
+        return command.future;
+    }
+
+    /**
+     * Stop accepting requests.  Requests already queued are still fulfilled.
+     */
+    public void shutdown() {
+        this.running = false;
+        this.writer.interrupt();
+    }
+
+    private void submit(Command command) {
+        if (!this.running) {
+            command.fail(new RejectedExecutionException("The ticket service has been shut down"));
+            return;
+        }
+        this.queue.add(command);
+        if (!this.running && this.queue.remove(command)) {
+            // The writer may have stopped before the request was queued.
+            command.fail(new RejectedExecutionException("The ticket service has been shut down"));
+        }
+    }
+
+    /**
+     * The body of the writer thread.
+     */
+    private void run() {
+        final List<Command> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                if (this.queue.drainTo(batch, MAX_BATCH_SIZE) == 0) {
+                    batch.add(this.queue.take());
+                    this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down, fulfill whatever remains in the queue.
+                continue;
+            }
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Submit the commands to the service, consecutive commands of the same kind are submitted as a single batch.
+     */
+    private void process(List<Command> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            final boolean holds = batch.get(from) instanceof HoldCommand;
+            int to = from + 1;
+            while (to < batch.size() && (batch.get(to) instanceof HoldCommand) == holds) {
+                to++;
+            }
+
+            List<Command> run = batch.subList(from, to);
+            try {
+                if (holds) {
+                    List<HoldRequest> requests = new ArrayList<>(run.size());
+                    for (Command command : run) {
+                        requests.add(((HoldCommand) command).request);
+                    }
+                    complete(run, this.service.findAndHoldSeatsBatch(requests));
+                } else {
+                    List<ReserveRequest> requests = new ArrayList<>(run.size());
+                    for (Command command : run) {
+                        requests.add(((ReserveCommand) command).request);
+                    }
+                    complete(run, this.service.reserveSeatsBatch(requests));
+                }
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Failed to process a batch of ticket requests", e);
+                for (Command command : run) {
+                    command.fail(e);
+                }
+            }
+            from = to;
+        }
+    }
+
+    private void complete(List<Command> commands, List<? extends BatchResult<?>> results) {
+        for (int i = 0; i < commands.size(); i++) {
+            commands.get(i).complete(results.get(i));
+        }
+    }
+
+    /**
+     * A queued request and the future for its result.
+     */
+    private abstract class Command {
+        abstract CompletableFuture<?> future();
+
+        @SuppressWarnings("unchecked")
+        void complete(BatchResult<?> result) {
+            CompletableFuture<Object> future = (CompletableFuture<Object>) future();
+            if (result.isSuccess()) {
+                execute(() -> future.complete(result.getValue()));
+            } else {
+                execute(() -> future.completeExceptionally(result.getError()));
+            }
+        }
+
+        void fail(RuntimeException e) {
+            execute(() -> future().completeExceptionally(e));
+        }
+
+        private void execute(Runnable completion) {
+            if (completionExecutor == null) {
+                completion.run();
+                return;
+            }
+            try {
+                completionExecutor.execute(completion);
+            } catch (RejectedExecutionException e) {
+                // The executor is saturated or shut down, complete the future here rather than lose it.
+                LOG.log(Level.FINE, "Completion executor rejected a completion", e);
+                completion.run();
+            }
+        }
+    }
+
+    private final class HoldCommand extends Command {
+        private final HoldRequest request;
+        private final CompletableFuture<SeatHold> future = new CompletableFuture<>();
+
+        private HoldCommand(HoldRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        CompletableFuture<?> future() {
+            return this.future;
+        }
+    }
+
+    private final class ReserveCommand extends Command {
+        private final ReserveRequest request;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private ReserveCommand(ReserveRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        CompletableFuture<?> future() {
+            return this.future;
+        }
+    }
+}
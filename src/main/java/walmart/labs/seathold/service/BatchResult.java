@@ -0,0 +1,67 @@
+package walmart.labs.seathold.service;
+
+/**
+ * The outcome of a single request within a batch.  A request either succeeds with a value or fails with the exception
+ * the equivalent single request would have thrown.
+ *
+ * @param <T> - the result type.
+ */
+public final class BatchResult<T> {
+    private final T value;
+    private final RuntimeException error;
+
+    private BatchResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * A successful result.
+     *
+     * @param value - the result value, a null hold indicates there were not enough seats to fulfill the request.
+     * @param <T>   - the result type.
+     * @return the result.
+     */
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    /**
+     * A failed result.
+     *
+     * @param error - the reason the request failed.
+     * @param <T>   - the result type.
+     * @return the result.
+     */
+    public static <T> BatchResult<T> failure(RuntimeException error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+
+    public T getValue() {
+        return this.value;
+    }
+
+    public RuntimeException getError() {
+        return this.error;
+    }
+
+    /**
+     * Retrieve the value of a successful result or throw the error of a failed one.
+     *
+     * @return the result value.
+     */
+    public T get() {
+        if (this.error != null) {
+            throw this.error;
+        }
+        return this.value;
+    }
+
+    public String toString() {
+        return isSuccess() ? "BatchResult(value: " + this.value + ")" : "BatchResult(error: " + this.error + ")";
+    }
+}
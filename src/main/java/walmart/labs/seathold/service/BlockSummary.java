@@ -0,0 +1,75 @@
+package walmart.labs.seathold.service;
+
+import walmart.labs.seathold.index.SeatBlockIndex;
+import walmart.labs.seathold.models.SeatBlock;
+
+/**
+ * An immutable summary of the available seat blocks of a service, published after every change so that it can be read
+ * without taking the service lock.
+ * <p>
+ * The summary records the largest available block along with the best block score for each power of two size class.
+ * The best score for blocks of at least 2^k seats is an upper bound for the best score of any request between 2^k and
+ * 2^(k+1) - 1 seats.
+ */
+final class BlockSummary {
+    /**
+     * The summary of a service without any available seats.
+     */
+    static final BlockSummary EMPTY = new BlockSummary(0, new float[0]);
+
+    /**
+     * The size of the largest available block.
+     */
+    private final int largestBlockSize;
+
+    /**
+     * The best block score for each size class, entry k is the best score of the blocks with at least 2^k seats.
+     */
+    private final float[] bestScores;
+
+    private BlockSummary(int largestBlockSize, float[] bestScores) {
+        this.largestBlockSize = largestBlockSize;
+        this.bestScores = bestScores;
+    }
+
+    /**
+     * Summarize the blocks in an index.
+     *
+     * @param index - the index of available blocks.
+     * @return the summary.
+     */
+    static BlockSummary of(SeatBlockIndex index) {
+        final int largestBlockSize = index.largestBlockSize();
+        if (largestBlockSize == 0) {
+            return EMPTY;
+        }
+
+        float[] bestScores = new float[sizeClass(largestBlockSize) + 1];
+        for (int k = 0; k < bestScores.length; k++) {
+            SeatBlock best = index.best(1 << k);
+            bestScores[k] = best != null ? best.getScore() : Float.NEGATIVE_INFINITY;
+        }
+        return new BlockSummary(largestBlockSize, bestScores);
+    }
+
+    int getLargestBlockSize() {
+        return this.largestBlockSize;
+    }
+
+    /**
+     * An upper bound for the score of the best block having at least the supplied number of seats.
+     *
+     * @param numSeats - the number of seats.
+     * @return the upper bound or negative infinity if no available block is large enough.
+     */
+    float bestScoreBound(int numSeats) {
+        if (numSeats > this.largestBlockSize) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return this.bestScores[sizeClass(Math.max(numSeats, 1))];
+    }
+
+    private static int sizeClass(int numSeats) {
+        return 31 - Integer.numberOfLeadingZeros(numSeats);
+    }
+}
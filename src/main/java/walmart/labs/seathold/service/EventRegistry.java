@@ -0,0 +1,211 @@
+package walmart.labs.seathold.service;
+
+import walmart.labs.seathold.expiry.HoldExpiryScheduler;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.Scorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A registry of the ticket services of many events, for example the performances of a hall, hosted in one process.
+ * <p>
+ * Events with the same venue layout and scorer share one immutable template of precomputed seat scores, so the venue
+ * is only scored once and each event only allocates its mutable seat states, available block index and holds.  Every
+ * event expires its holds with the one scheduler owned by the registry rather than a thread per event.
+ * <p>
+ * Creating and removing events is synchronized, finding an event is not.
+ */
+public class EventRegistry {
+    /**
+     * The hold timeout of the events.
+     */
+    private final long holdTimeout;
+
+    /**
+     * The pool new templates are scored on or null to score them on the calling thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The scheduler shared by every event.
+     */
+    private final HoldExpiryScheduler expiryScheduler = new HoldExpiryScheduler();
+
+    /**
+     * The events by id.
+     */
+    private final Map<String, Event> events = new ConcurrentHashMap<>();
+
+    /**
+     * The score templates by venue layout and scorer.
+     */
+    private final Map<TemplateKey, Template> templates = new HashMap<>();
+
+
+    /**
+     * Construct a registry whose events hold seats for the supplied time.
+     *
+     * @param holdTimeout - the hold timeout value.
+     */
+    public EventRegistry(long holdTimeout) {
+        this(holdTimeout, null);
+    }
+
+    /**
+     * Construct a registry that scores the rows of new venue templates in parallel.
+     *
+     * @param holdTimeout - the hold timeout value.
+     * @param pool        - the pool new templates are scored on or null to score them on the calling thread.
+     */
+    public EventRegistry(long holdTimeout, ForkJoinPool pool) {
+        if (holdTimeout <= 0) {
+            throw new IllegalArgumentException("The hold timeout must be greater than zero: " + holdTimeout);
+        }
+        this.holdTimeout = holdTimeout;
+        this.pool = pool;
+    }
+
+    /**
+     * Create the ticket service of an event.  The seat scores are shared with the other events having the same venue
+     * layout and scorer instance.
+     *
+     * @param eventId - a unique id for the event.
+     * @param venue   - the venue of the event.
+     * @param scorer  - the scorer implementation.
+     * @return the ticket service of the event.
+     * @throws IllegalArgumentException if an event with the id already exists.
+     */
+    public synchronized TicketServiceImpl createEvent(String eventId, Venue venue, Scorer scorer) {
+        if (this.events.containsKey(eventId)) {
+            throw new IllegalArgumentException("The event already exists: " + eventId);
+        }
+
+        final TemplateKey key = new TemplateKey(venue, scorer);
+        Template template = this.templates.get(key);
+        if (template == null) {
+            template = new Template(new VenueScores(venue, scorer, this.pool));
+            this.templates.put(key, template);
+        }
+        template.events++;
+
+        TicketServiceImpl service = new TicketServiceImpl(template.scores, this.holdTimeout, this.expiryScheduler,
+                null);
+        this.events.put(eventId, new Event(service, key));
+        return service;
+    }
+
+    /**
+     * Find the ticket service of an event.
+     *
+     * @param eventId - the event id.
+     * @return the ticket service or null if the event does not exist.
+     */
+    public TicketServiceImpl getEvent(String eventId) {
+        Event event = this.events.get(eventId);
+        return event != null ? event.service : null;
+    }
+
+    /**
+     * Remove an event, cancelling its pending expirations.  The template of the event is released once no other
+     * event uses it.
+     *
+     * @param eventId - the event id.
+     * @return true if the event existed.
+     */
+    public synchronized boolean removeEvent(String eventId) {
+        Event event = this.events.remove(eventId);
+        if (event == null) {
+            return false;
+        }
+        event.service.shutdown();
+
+        Template template = this.templates.get(event.template);
+        if (--template.events == 0) {
+            this.templates.remove(event.template);
+        }
+        return true;
+    }
+
+    /**
+     * The ids of the events.
+     *
+     * @return an unmodifiable view of the event ids.
+     */
+    public Set<String> getEventIds() {
+        return Collections.unmodifiableSet(this.events.keySet());
+    }
+
+    public int getEventCount() {
+        return this.events.size();
+    }
+
+    /**
+     * The number of distinct score templates shared by the events.
+     *
+     * @return the template count.
+     */
+    public synchronized int getTemplateCount() {
+        return this.templates.size();
+    }
+
+    /**
+     * Remove every event and stop the shared scheduler.
+     */
+    public synchronized void shutdown() {
+        for (String eventId : new ArrayList<>(this.events.keySet())) {
+            removeEvent(eventId);
+        }
+        this.expiryScheduler.shutdown();
+    }
+
+    private static final class Event {
+        private final TicketServiceImpl service;
+        private final TemplateKey template;
+
+        private Event(TicketServiceImpl service, TemplateKey template) {
+            this.service = service;
+            this.template = template;
+        }
+    }
+
+    private static final class Template {
+        private final VenueScores scores;
+        private int events;
+
+        private Template(VenueScores scores) {
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * Identifies a template by the venue layout and the scorer instance.
+     */
+    private static final class TemplateKey {
+        private final int seatsPerRow;
+        private final int rows;
+        private final Scorer scorer;
+
+        private TemplateKey(Venue venue, Scorer scorer) {
+            this.seatsPerRow = venue.getSeatsPerRow();
+            this.rows = venue.getRows();
+            this.scorer = scorer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TemplateKey)) {
+                return false;
+            }
+            TemplateKey other = (TemplateKey) o;
+            return this.seatsPerRow == other.seatsPerRow && this.rows == other.rows && this.scorer == other.scorer;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.seatsPerRow + this.rows) * 31 + System.identityHashCode(this.scorer);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package walmart.labs.seathold.service;
+
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.index.ConcurrentSeatBlockIndex;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.SeatStateBitmap;
+import walmart.labs.seathold.models.SeatStore;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.Scorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A TicketService that holds and reserves seats without acquiring any locks.  It is an alternative to the
+ * TicketServiceImpl for workloads where many threads contend for the same seats.
+ * <p>
+ * The available seat blocks are kept in a ConcurrentSeatBlockIndex and the state of every seat in a SeatStateBitmap.
+ * A hold claims the best block that is large enough by removing it from the index, if another thread removes the block
+ * first the hold retries with the next best block.  Removing the block is the only claim: the thread that removes it
+ * owns its seats, so the held seats are simply marked held in the bitmap and the unused portions of the block are
+ * returned to the index.  Reservations and expirations race to remove a hold from the dictionary of holds, only the
+ * winner changes the seats.  The bitmap records the state of each seat for readers, it never decides a race.
+ * <p>
+ * Every hold uses the same timeout so holds expire in the order they were made.  Pending expirations are kept in a
+ * non-blocking FIFO queue that a single thread drains as the holds at its head expire.  Expired seats are merged with
+ * the adjacent available blocks of their row so the venue does not fragment as holds come and go.
+ */
+public class OptimisticTicketService implements TicketService {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(OptimisticTicketService.class.getName());
+
+    /**
+     * The timeout in milliseconds before a ticket hold will be removed.
+     */
+    private static final long HOLD_TIMEOUT = 120 * 1000;
+
+    /**
+     * The precomputed seat scores for the venue.
+     */
+    private final VenueScores scores;
+
+    /**
+     * The state of each seat in the venue.
+     */
+    private final SeatStateBitmap seatStates;
+
+    /**
+     * The hold timeout in nanoseconds.
+     */
+    private final long holdTimeoutNanos;
+
+    /**
+     * An index of the available seat blocks by size and best available seating.
+     */
+    private final ConcurrentSeatBlockIndex seatBlocks;
+
+    /**
+     * The number of seats that are neither held nor reserved.
+     */
+    private final AtomicInteger seatsAvailable = new AtomicInteger();
+
+    /**
+     * The dictionary of seat hold id's to the corresponding seat hold instance.
+     */
+    private final Map<Integer, SeatBlock> holdBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * The pending expirations in deadline order.
+     */
+    private final Queue<Expiration> expirations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The thread that expires holds.
+     */
+    private final Thread expiryThread;
+
+    /**
+     * True while the expiry thread is parked waiting for a hold to be made.
+     */
+    private volatile boolean expiryIdle;
+
+    /**
+     * False once the service has been shut down.
+     */
+    private volatile boolean running = true;
+
+
+    /**
+     * Construct an optimistic ticket service with the default hold timeout.
+     *
+     * @param venue  - the venue for this service.
+     * @param scorer - the scorer implementation.
+     */
+    public OptimisticTicketService(Venue venue, Scorer scorer) {
+        this(venue, scorer, HOLD_TIMEOUT);
+    }
+
+    /**
+     * Construct an optimistic ticket service.
+     *
+     * @param venue       - the venue for this service.
+     * @param scorer      - the scorer implementation.
+     * @param holdTimeout - the hold timeout value.
+     */
+    public OptimisticTicketService(Venue venue, Scorer scorer, long holdTimeout) {
+        assert (holdTimeout > 0);
+
+        this.scores = new VenueScores(venue, scorer);
+        this.seatStates = new SeatStateBitmap(venue);
+        this.holdTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(holdTimeout);
+
+        final int rowSize = venue.getSeatsPerRow();
+        this.seatBlocks = new ConcurrentSeatBlockIndex(Math.max(rowSize, 1));
+        for (int row = 0; row < venue.getRows() && rowSize > 0; row++) {
+            this.seatBlocks.add(new SeatBlock(this.scores, row, 0, rowSize));
+        }
+        this.seatsAvailable.set(venue.getMaxSeats());
+
+        this.expiryThread = new Thread(this::expireHolds, "hold-expiry");
+        this.expiryThread.setDaemon(true);
+        this.expiryThread.start();
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        return this.seatsAvailable.get();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+     * information
+     * @throws IllegalArgumentException if the number of seats is not valid.
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        if (numSeats <= 0) {
+            // Error, a block claimed for no seats could not be split and would be lost.
+            throw new IllegalArgumentException("Number of seats is not valid: " + numSeats);
+        }
+
+        final int numSeatsAvailable = this.seatsAvailable.get();
+        if (numSeatsAvailable == 0) {
+            // There are no seats left.
+            LOG.fine("There are currently not seats available");
+            return null;
+        } else if (numSeats > numSeatsAvailable) {
+            // There are not enough seats available to fulfill this request.
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("The requested number of seats: " + numSeats + " is greater than the number of seats that " +
+                        "are currently available: " + numSeatsAvailable);
+            }
+            return null;
+        }
+
+        // Claim the best block that is large enough, this thread now owns its seats.
+        SeatBlock block = this.seatBlocks.poll(numSeats);
+        if (block == null) {
+            LOG.fine("There are currently not enough contiguous seats available");
+            return null;
+        }
+
+        SeatBlock result;
+        List<SeatBlock> splits = null;
+        if (block.size() == numSeats) {
+            result = new SeatBlock(this.scores, block.getRow(), block.getFirstSeat(), block.size());
+        } else {
+            splits = block.split(numSeats);
+            result = splits.get(0);
+        }
+
+        final int first = result.getFirstSeat();
+        this.seatStates.set(result.getRow(), first, first + numSeats, SeatStore.HELD);
+
+        // Return the remaining seats.
+        for (int i = 1; splits != null && i < splits.size(); i++) {
+            this.seatBlocks.add(splits.get(i));
+        }
+        this.seatsAvailable.addAndGet(-numSeats);
+
+        result.hold(customerEmail);
+        this.holdBlocks.put(result.getId(), result);
+        this.expirations.add(new Expiration(result, System.nanoTime() + this.holdTimeoutNanos));
+        if (this.expiryIdle) {
+            LockSupport.unpark(this.expiryThread);
+        }
+        return result;
+    }
+
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a reservation confirmation code
+     * @throws NoSuchSeatHoldException if a corresponding hold cannot be found.
+     */
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        if (seatHoldId <= 0) {
+            // Error, invalid seat id.
+            throw new IllegalArgumentException("Seat hold id is not valid: " + seatHoldId);
+        } else if (customerEmail == null || customerEmail.equals("")) {
+            // Error, the customer email is not valid.
+            throw new IllegalArgumentException("Customer email is not valid: " + customerEmail);
+        }
+
+        SeatBlock hold = this.holdBlocks.get(seatHoldId);
+        if (hold != null && !hold.getEmail().equals(customerEmail)) {
+            // Error, this hold is not for the supplied email.
+            throw new SecurityException(String.format("Seat hold with id: %d is not related to customer email %s",
+                    seatHoldId, customerEmail));
+        } else if (hold == null || !this.holdBlocks.remove(seatHoldId, hold)) {
+            // Error, the hold does not exist or expired, or was reserved, by another thread.
+            String msg = String.format("The seat hold for customer: %s having id: %d does not exist.",
+                    customerEmail, seatHoldId);
+            throw new NoSuchSeatHoldException(msg);
+        }
+
+        final int first = hold.getFirstSeat();
+        this.seatStates.set(hold.getRow(), first, first + hold.size(), SeatStore.RESERVED);
+        String result = String.valueOf(hold.getId());
+
+        // Audit the reservation.
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("RESERVED: " + hold.size() + " seats reserved for customer: " + customerEmail +
+                    " with confirmation code: " + result);
+        }
+
+        // Return a confirmation code.
+        return result;
+    }
+
+    /**
+     * Retrieve the state of a single seat.
+     *
+     * @param seat - the seat index.
+     * @param row  - the row index.
+     * @return one of SeatStore.AVAILABLE, SeatStore.HELD or SeatStore.RESERVED.
+     */
+    byte getState(int seat, int row) {
+        return this.seatStates.getState(seat, row);
+    }
+
+    /**
+     * Stop expiring holds.
+     */
+    public void shutdown() {
+        this.running = false;
+        LockSupport.unpark(this.expiryThread);
+    }
+
+    /**
+     * The body of the expiry thread.  Expires the holds at the head of the queue as their deadlines pass and parks
+     * while the queue is empty.
+     */
+    private void expireHolds() {
+        while (this.running) {
+            Expiration head = this.expirations.peek();
+            if (head == null) {
+                // Publish that the thread is idle before checking the queue a final time so a hold made
+                // concurrently either is seen here or sees the flag and unparks this thread.
+                this.expiryIdle = true;
+                if (this.expirations.isEmpty() && this.running) {
+                    LockSupport.park(this);
+                }
+                this.expiryIdle = false;
+                continue;
+            }
+
+            long remaining = head.deadline - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                continue;
+            }
+
+            // Only this thread removes expirations so the head is unchanged.
+            this.expirations.poll();
+            SeatBlock hold = head.hold;
+            if (this.holdBlocks.remove(hold.getId(), hold)) {
+                // Release the seats before indexing them so a thread that claims them finds them available, and
+                // merge them with the adjacent available seats.
+                final int first = hold.getFirstSeat();
+                this.seatStates.set(hold.getRow(), first, first + hold.size(), SeatStore.AVAILABLE);
+                this.seatBlocks.release(hold);
+                this.seatsAvailable.addAndGet(hold.size());
+            }
+        }
+    }
+
+    /**
+     * A pending hold expiration.
+     */
+    private static final class Expiration {
+        private final SeatBlock hold;
+        private final long deadline;
+
+        private Expiration(SeatBlock hold, long deadline) {
+            this.hold = hold;
+            this.deadline = deadline;
+        }
+    }
+}
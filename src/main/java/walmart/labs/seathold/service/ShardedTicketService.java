@@ -0,0 +1,271 @@
+package walmart.labs.seathold.service;
+
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.expiry.HoldExpiryScheduler;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.ReservationStore;
+import walmart.labs.seathold.models.SeatStore;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.Scorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * A TicketService that divides the rows of a venue into shards, each an independent TicketServiceImpl with its own
+ * index of available seat blocks and its own lock.  Holds in different shards proceed in parallel.
+ * <p>
+ * Each shard publishes a summary of its available blocks that can be read without its lock.  A hold request visits
+ * the shards in order of the best score their summary allows and holds seats in the first shard whose actual best
+ * block is within the configured tolerance of every shard not yet visited.  With a tolerance of zero the seats held
+ * are the best available across the venue, a larger tolerance trades seat quality for fewer shard visits.
+ */
+public class ShardedTicketService implements TicketService {
+    /**
+     * Logging instance.
+     */
+    private static final Logger LOG = Logger.getLogger(ShardedTicketService.class.getName());
+
+    /**
+     * The timeout in milliseconds before a ticket hold will be removed.
+     */
+    private static final long HOLD_TIMEOUT = 120 * 1000;
+
+    /**
+     * The default score tolerance when choosing a shard.
+     */
+    public static final float DEFAULT_TOLERANCE = 0.01f;
+
+    /**
+     * The number of times a hold is attempted against the best shard found before searching again.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The shards in row order.
+     */
+    private final TicketServiceImpl[] shards;
+
+    /**
+     * The scheduler shared by the shards.
+     */
+    private final HoldExpiryScheduler expiryScheduler = new HoldExpiryScheduler();
+
+    /**
+     * The reservation store shared by the shards.
+     */
+    private final ReservationStore reservations;
+
+    /**
+     * The score tolerance when choosing a shard.
+     */
+    private final float tolerance;
+
+
+    /**
+     * Construct a sharded ticket service with a shard per available processor.
+     *
+     * @param venue  - the venue for this service.
+     * @param scorer - the scorer implementation.
+     */
+    public ShardedTicketService(Venue venue, Scorer scorer) {
+        this(venue, scorer, Runtime.getRuntime().availableProcessors(), HOLD_TIMEOUT, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Construct a sharded ticket service.
+     *
+     * @param venue       - the venue for this service.
+     * @param scorer      - the scorer implementation.
+     * @param shards      - the number of shards, limited to the number of rows in the venue.
+     * @param holdTimeout - the hold timeout value.
+     * @param tolerance   - the amount a shard's best score may fall short of another shard's and still be used.
+     */
+    public ShardedTicketService(Venue venue, Scorer scorer, int shards, long holdTimeout, float tolerance) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("The number of shards must be greater than zero: " + shards);
+        } else if (tolerance < 0) {
+            throw new IllegalArgumentException("The tolerance cannot be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+
+        // The shards share the seat and reservation stores, each manages a distinct range of its rows.
+        SeatStore seatStore = new SeatStore(new VenueScores(venue, scorer));
+        this.reservations = new ReservationStore(venue);
+        final int rows = venue.getRows();
+        final int count = Math.max(1, Math.min(shards, rows));
+
+        this.shards = new TicketServiceImpl[count];
+        for (int i = 0; i < count; i++) {
+            int fromRow = (int) ((long) rows * i / count);
+            int toRow = (int) ((long) rows * (i + 1) / count);
+            this.shards[i] = new TicketServiceImpl(seatStore, this.reservations, fromRow, toRow, holdTimeout,
+                    this.expiryScheduler, null);
+        }
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        int result = 0;
+        for (TicketServiceImpl shard : this.shards) {
+            result += shard.numSeatsAvailable();
+        }
+        return result;
+    }
+
+    /**
+     * Determine, without acquiring the shard monitors, whether any shard could currently hold a number of seats.
+     *
+     * @param numSeats the number of seats to hold
+     * @return false if the seats cannot currently be held
+     */
+    @Override
+    public boolean canSeat(int numSeats) {
+        for (TicketServiceImpl shard : this.shards) {
+            if (shard.canSeat(numSeats)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The size of the largest contiguous block of available seats in any shard, read without acquiring the shard
+     * monitors.
+     *
+     * @return the largest block size or zero if no seats are available.
+     */
+    public int getLargestBlockSize() {
+        int result = 0;
+        for (TicketServiceImpl shard : this.shards) {
+            result = Math.max(result, shard.getLargestBlockSize());
+        }
+        return result;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+     * information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        final int count = this.shards.length;
+        final Integer[] order = new Integer[count];
+        final float[] bounds = new float[count];
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            // Order the shards by the best score their summaries allow.
+            int candidates = 0;
+            for (int i = 0; i < count; i++) {
+                bounds[i] = this.shards[i].getSummary().bestScoreBound(numSeats);
+                if (bounds[i] != Float.NEGATIVE_INFINITY) {
+                    order[candidates++] = i;
+                }
+            }
+            if (candidates == 0) {
+                // No shard has a block large enough.
+                LOG.fine("There are currently not enough contiguous seats available");
+                return null;
+            }
+            Arrays.sort(order, 0, candidates, (a, b) -> Float.compare(bounds[b], bounds[a]));
+
+            int bestShard = -1;
+            float bestScore = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < candidates; i++) {
+                float bound = bounds[order[i]];
+                if (bestShard >= 0 && bound <= bestScore + this.tolerance) {
+                    // No remaining shard can improve on the best shard found by more than the tolerance.
+                    break; // **EXIT**
+                }
+
+                // Hold in this shard if it is within the tolerance of the remaining shards and the best found.
+                float nextBound = i + 1 < candidates ? bounds[order[i + 1]] : Float.NEGATIVE_INFINITY;
+                TicketServiceImpl shard = this.shards[order[i]];
+                SeatHold hold = shard.findAndHoldSeats(numSeats, customerEmail,
+                        Math.max(nextBound, bestScore) - this.tolerance);
+                if (hold != null) {
+                    return hold;
+                }
+
+                float score = shard.bestScore(numSeats);
+                if (score > bestScore) {
+                    bestShard = order[i];
+                    bestScore = score;
+                }
+            }
+
+            if (bestShard >= 0) {
+                SeatHold hold = this.shards[bestShard].findAndHoldSeats(numSeats, customerEmail,
+                        bestScore - this.tolerance);
+                if (hold != null) {
+                    return hold;
+                }
+            }
+            // The best shard changed while searching, search again.
+        }
+
+        // Under heavy contention settle for the first shard that can hold the seats.
+        for (TicketServiceImpl shard : this.shards) {
+            SeatHold hold = shard.findAndHoldSeats(numSeats, customerEmail);
+            if (hold != null) {
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a reservation confirmation code
+     * @throws NoSuchSeatHoldException if a corresponding hold cannot be found.
+     */
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        for (TicketServiceImpl shard : this.shards) {
+            if (shard.containsHold(seatHoldId)) {
+                return shard.reserveSeats(seatHoldId, customerEmail);
+            }
+        }
+        // Let a shard report the error consistently with an unsharded service.
+        return this.shards[0].reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Retrieve the reservations made by every shard.
+     *
+     * @return the reservation store.
+     */
+    public ReservationStore getReservations() {
+        return this.reservations;
+    }
+
+    /**
+     * The number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getShardCount() {
+        return this.shards.length;
+    }
+
+    public void shutdown() {
+        for (TicketServiceImpl shard : this.shards) {
+            shard.shutdown();
+        }
+        this.expiryScheduler.shutdown();
+    }
+}
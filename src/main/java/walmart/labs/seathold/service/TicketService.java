@@ -1,7 +1,12 @@
 package walmart.labs.seathold.service;
 
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.ReserveRequest;
 import walmart.labs.seathold.models.SeatHold;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface TicketService {
     /**
      * The number of seats in the venue that are neither held nor reserved
@@ -10,6 +15,17 @@ public interface TicketService {
      */
     int numSeatsAvailable();
 
+    /**
+     * Determine, without acquiring the service lock, whether a hold for a number of seats could currently succeed.  A
+     * false result means the hold would fail, a true result does not guarantee it will succeed.
+     *
+     * @param numSeats the number of seats to hold
+     * @return false if the seats cannot currently be held
+     */
+    default boolean canSeat(int numSeats) {
+        return numSeats <= numSeatsAvailable();
+    }
+
     /**
      * Find and hold the best available seats for a customer
      *
@@ -29,4 +45,42 @@ public interface TicketService {
      * @return a reservation confirmation code
      */
     String reserveSeats(int seatHoldId, String customerEmail);
+
+    /**
+     * Find and hold the best available seats for a batch of customers.  The requests are fulfilled in order, each
+     * result is the hold, or null if there were not enough seats, or the exception the single request would throw.
+     *
+     * @param requests the hold requests in arrival order
+     * @return a result for each request in the same order
+     */
+    default List<BatchResult<SeatHold>> findAndHoldSeatsBatch(List<HoldRequest> requests) {
+        List<BatchResult<SeatHold>> results = new ArrayList<>(requests.size());
+        for (HoldRequest request : requests) {
+            try {
+                results.add(BatchResult.success(findAndHoldSeats(request.getNumSeats(), request.getCustomerEmail())));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failure(e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Commit the seats held for a batch of customers.  The requests are processed in order, each result is the
+     * reservation confirmation code or the exception the single request would throw.
+     *
+     * @param requests the reservation requests in arrival order
+     * @return a result for each request in the same order
+     */
+    default List<BatchResult<String>> reserveSeatsBatch(List<ReserveRequest> requests) {
+        List<BatchResult<String>> results = new ArrayList<>(requests.size());
+        for (ReserveRequest request : requests) {
+            try {
+                results.add(BatchResult.success(reserveSeats(request.getSeatHoldId(), request.getCustomerEmail())));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failure(e));
+            }
+        }
+        return results;
+    }
 }
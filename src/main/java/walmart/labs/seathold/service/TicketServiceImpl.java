@@ -1,14 +1,40 @@
 package walmart.labs.seathold.service;
 
+import walmart.labs.seathold.audit.AuditLog;
+import walmart.labs.seathold.expiry.HoldExpiryScheduler;
+import walmart.labs.seathold.index.BlockHistogram;
+import walmart.labs.seathold.index.SeatBlockIndex;
+import walmart.labs.seathold.journal.Journal;
+import walmart.labs.seathold.metrics.FailureReason;
+import walmart.labs.seathold.metrics.TicketServiceMetrics;
 import walmart.labs.seathold.scoring.Scorer;
-import walmart.labs.seathold.common.SeatHoldUtils;
+import walmart.labs.seathold.scoring.VenueScores;
+import walmart.labs.seathold.snapshot.Snapshot;
 import walmart.labs.seathold.errors.NoSuchSeatHoldException;
-import walmart.labs.seathold.models.Seat;
+import walmart.labs.seathold.models.FragmentedSeatHold;
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.ReservationStore;
+import walmart.labs.seathold.models.ReserveRequest;
 import walmart.labs.seathold.models.SeatBlock;
 import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.SeatMap;
+import walmart.labs.seathold.models.SeatMapDeltas;
+import walmart.labs.seathold.models.SeatMapFeed;
+import walmart.labs.seathold.models.SeatStore;
 import walmart.labs.seathold.models.Venue;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -31,9 +57,14 @@ public class TicketServiceImpl implements TicketService {
     private Venue venue;
 
     /**
-     * The current seat scorer instance.
+     * The precomputed seat scores for the venue.
      */
-    private Scorer scorer;
+    private VenueScores scores;
+
+    /**
+     * The state of each seat in the venue.
+     */
+    private SeatStore seatStore;
 
     /**
      * The hold timeout.
@@ -41,24 +72,105 @@ public class TicketServiceImpl implements TicketService {
     private long holdTimeout;
 
     /**
-     * A collection of available seat blocks in priority of best available seating.
+     * The first row managed by this service, inclusive.
      */
-    private PriorityQueue<SeatBlock> seatBlocks = new PriorityQueue<>();
+    private final int fromRow;
 
     /**
-     * The dictionary of seat hold id's to the corresponding seat hold instance.
+     * The last row managed by this service, exclusive.
      */
-    private Map<Integer, SeatBlock> holdBlocks = new HashMap<>();
+    private final int toRow;
 
     /**
-     * A dictionary keyed by hold timeout values to the correpnding hold id.
+     * The number of seats that may be examined when a request cannot be held in one block and its seats are assembled
+     * from the blocks in nearby rows instead, zero disables the search.
      */
-    private SortedMap<Long, Integer> timeoutToHolds = Collections.synchronizedSortedMap(new TreeMap<Long, Integer>());
+    private volatile int fragmentSearchBudget;
 
     /**
-     *
+     * The audit trail of holds, reservations and expirations or null if they are not audited.
+     */
+    private volatile AuditLog auditLog;
+
+    /**
+     * An index of the available seat blocks by size and best available seating.
+     */
+    private SeatBlockIndex seatBlocks;
+
+    /**
+     * The number of seats that are neither held nor reserved.  The count is only modified while holding the service
+     * monitor but may be read without it.
+     */
+    private final AtomicInteger seatsAvailable = new AtomicInteger();
+
+    /**
+     * The dictionary of seat hold id's to the corresponding seat hold instance.  The dictionary is only modified while
+     * holding the service monitor but may be read without it.
+     */
+    private Map<Integer, SeatHold> holdBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * A summary of the available seat blocks that may be read without holding the service monitor.
+     */
+    private volatile BlockSummary summary = BlockSummary.EMPTY;
+
+    /**
+     * Guards the seat states and available blocks for readers that do not take the service monitor.  Each mutation
+     * batch takes the write lock while holding the monitor.  Readers validate an optimistic read and only take the read
+     * lock when a mutation overlapped the read, so reads never wait for the monitor.
+     */
+    private final StampedLock stateLock = new StampedLock();
+
+    /**
+     * The number of mutation batches applied to the seats.  Only modified while holding the write lock.
+     */
+    private long version;
+
+    /**
+     * The recent changes to the seats, appended while holding the write lock.
+     */
+    private final SeatMapFeed feed = new SeatMapFeed(SeatMapFeed.DEFAULT_CAPACITY);
+
+    /**
+     * The reservations made by this service, and by the other services sharing the store.
+     */
+    private final ReservationStore reservations;
+
+    /**
+     * The dictionary of seat hold id's to the corresponding pending expiration.
      */
-    private Thread sweepThread;
+    private Map<Integer, HoldExpiryScheduler.Timeout> holdTimeouts = new HashMap<>();
+
+    /**
+     * The scheduler used to expire holds.
+     */
+    private HoldExpiryScheduler expiryScheduler;
+
+    /**
+     * True if the expiry scheduler was created by, and should be shut down with, this service.
+     */
+    private boolean ownsExpiryScheduler;
+
+    /**
+     * Receives the holds that have expired from the expiry scheduler.
+     */
+    private final HoldExpiryScheduler.Listener expiryListener = this::removeHolds;
+
+    /**
+     * The latencies and counters of this service.
+     */
+    private final TicketServiceMetrics metrics = new TicketServiceMetrics(this::freeBlockSizeClasses,
+            this::fragmentation);
+
+    /**
+     * The journal that holds, reservations and expirations are written to or null if they are not journaled.
+     */
+    private final Journal journal;
+
+    /**
+     * Writes periodic snapshots or null if none have been scheduled.
+     */
+    private ScheduledExecutorService snapshotExecutor;
 
 
     /**
@@ -79,208 +191,612 @@ public class TicketServiceImpl implements TicketService {
      * @param holdTimeout - the hold timeout value.
      */
     public TicketServiceImpl(Venue venue, Scorer scorer, long holdTimeout) {
-        this.venue = venue;
-        this.scorer = scorer;
+        this(venue, scorer, holdTimeout, null);
+    }
+
+    /**
+     * Construct a ticket service implementation that expires holds using a shared scheduler.
+     *
+     * @param venue           - the venue for this service.
+     * @param scorer          - the scorer implementation.
+     * @param holdTimeout     - the hold timeout value.
+     * @param expiryScheduler - the scheduler used to expire holds or null to create one for this service.
+     */
+    public TicketServiceImpl(Venue venue, Scorer scorer, long holdTimeout, HoldExpiryScheduler expiryScheduler) {
+        this(venue, scorer, holdTimeout, expiryScheduler, null);
+    }
+
+    /**
+     * Construct a ticket service implementation that journals its holds, reservations and expirations.  The state
+     * recorded in the journal is restored before the service is used, holds that expired while the service was not
+     * running are expired immediately.  Holds and reservations are not returned to the caller until they are durable.
+     * <p>
+     * The journal is not closed when the service is shut down.
+     *
+     * @param venue           - the venue for this service.
+     * @param scorer          - the scorer implementation.
+     * @param holdTimeout     - the hold timeout value.
+     * @param expiryScheduler - the scheduler used to expire holds or null to create one for this service.
+     * @param journal         - the journal or null to keep the state of the service in memory only.
+     */
+    public TicketServiceImpl(Venue venue, Scorer scorer, long holdTimeout, HoldExpiryScheduler expiryScheduler,
+                             Journal journal) {
+        this(new VenueScores(venue, scorer), holdTimeout, expiryScheduler, journal);
+    }
+
+    /**
+     * Construct a ticket service implementation from precomputed seat scores, for example scores calculated in
+     * parallel or shared with the services of other events in the same venue.
+     *
+     * @param scores          - the venue scores, which are not modified.
+     * @param holdTimeout     - the hold timeout value.
+     * @param expiryScheduler - the scheduler used to expire holds or null to create one for this service.
+     * @param journal         - the journal or null to keep the state of the service in memory only.
+     */
+    public TicketServiceImpl(VenueScores scores, long holdTimeout, HoldExpiryScheduler expiryScheduler,
+                             Journal journal) {
+        this(new SeatStore(scores), new ReservationStore(scores.getVenue()), 0, scores.getVenue().getRows(),
+                holdTimeout, expiryScheduler, journal);
+    }
+
+    /**
+     * Construct a ticket service implementation from a snapshot.  The venue is not scored again, the seat states,
+     * available blocks and pending holds are restored from the snapshot and only the journal records appended after
+     * the snapshot was taken are replayed.
+     *
+     * @param snapshot        - the snapshot.
+     * @param holdTimeout     - the hold timeout value.
+     * @param expiryScheduler - the scheduler used to expire holds or null to create one for this service.
+     * @param journal         - the journal the snapshot was taken from or null to keep the state of the service in
+     *                        memory only.
+     */
+    public TicketServiceImpl(Snapshot snapshot, long holdTimeout, HoldExpiryScheduler expiryScheduler,
+                             Journal journal) {
+        this(new SeatStore(snapshot.getScores(), snapshot.getStates().clone()),
+                new ReservationStore(snapshot.getVenue()), 0, snapshot.getVenue().getRows(), holdTimeout,
+                expiryScheduler, journal, snapshot);
+    }
+
+    /**
+     * Construct a ticket service implementation that manages a range of the rows in a venue.  The seat store may be
+     * shared by services that manage distinct rows.
+     *
+     * @param seatStore       - the seat store for the venue.
+     * @param reservations    - the reservation store for the venue.
+     * @param fromRow         - the first row managed by this service, inclusive.
+     * @param toRow           - the last row managed by this service, exclusive.
+     * @param holdTimeout     - the hold timeout value.
+     * @param expiryScheduler - the scheduler used to expire holds or null to create one for this service.
+     * @param journal         - the journal to restore from and write to or null.
+     */
+    TicketServiceImpl(SeatStore seatStore, ReservationStore reservations, int fromRow, int toRow, long holdTimeout,
+                      HoldExpiryScheduler expiryScheduler, Journal journal) {
+        this(seatStore, reservations, fromRow, toRow, holdTimeout, expiryScheduler, journal, null);
+    }
+
+    private TicketServiceImpl(SeatStore seatStore, ReservationStore reservations, int fromRow, int toRow,
+                              long holdTimeout, HoldExpiryScheduler expiryScheduler, Journal journal,
+                              Snapshot snapshot) {
+        this.seatStore = seatStore;
+        this.reservations = reservations;
+        this.scores = seatStore.getScores();
+        this.venue = seatStore.getVenue();
         this.holdTimeout = holdTimeout;
+        this.ownsExpiryScheduler = expiryScheduler == null;
+        this.expiryScheduler = this.ownsExpiryScheduler ? new HoldExpiryScheduler() : expiryScheduler;
+        this.journal = journal;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
 
         assert (this.holdTimeout > 0);
 
-        final int rowSize = venue.getSeatsPerRow();
-        final int rows = venue.getRows();
+        final int rowSize = this.venue.getSeatsPerRow();
+
+        this.seatBlocks = new SeatBlockIndex(Math.max(rowSize, 1), fromRow, toRow);
 
-        for (int row = 0; row < rows; row++) {
-            List<Seat> seats = new ArrayList<>(rowSize);
+        if (journal == null && snapshot == null) {
+            for (int row = fromRow; row < toRow && rowSize > 0; row++) {
+                this.seatBlocks.add(new SeatBlock(this.scores, row, 0, rowSize));
+            }
+        } else {
+            restore(fromRow, toRow, snapshot);
+        }
+        this.seatsAvailable.set(this.seatBlocks.getSeatCount());
+        this.summary = BlockSummary.of(this.seatBlocks);
+    }
 
-            for (int seat = 0; seat < rowSize; seat++) {
-                float score = this.scorer.calculateScore(seat, row, this.venue);
-                score = SeatHoldUtils.round(score);
-                seats.add(new Seat(seat, row, score));
+    /**
+     * Restore the seat states and pending holds recorded in the snapshot and the journal and index the available
+     * seats.
+     *
+     * @param fromRow  - the first row managed by this service, inclusive.
+     * @param toRow    - the last row managed by this service, exclusive.
+     * @param snapshot - the snapshot to restore or null to replay the whole journal.
+     */
+    private void restore(int fromRow, int toRow, Snapshot snapshot) {
+        final Map<Integer, SeatHold> holds = new LinkedHashMap<>();
+        long fromPosition = 0;
+        if (snapshot != null) {
+            // The blocks of a fragmented hold share its id.
+            for (SeatBlock block : snapshot.getHolds()) {
+                addBlock(holds, block);
+            }
+            final Map<Integer, SeatHold> reserved = new LinkedHashMap<>();
+            for (SeatBlock block : snapshot.getReservations()) {
+                addBlock(reserved, block);
             }
+            for (SeatHold reservation : reserved.values()) {
+                this.reservations.add(reservation);
+            }
+            SeatBlock.advanceIds(snapshot.getLastId());
+            fromPosition = snapshot.getJournalPosition();
+        }
 
-            this.seatBlocks.add(new SeatBlock(seats));
-        }
-
-        /*
-            This following sweep code can most likely be improved so that it does not need to check for expired holds
-            every second.  Instead we should keep track of the date/time of the earliest hold that is set to expire and
-            sleep for that interval.  This will potentially reduce the load on the CPU when no holds need to expire.
-            The downside of this approach is that the program will use additional memory in order to store the queue of
-            seat holds by order of their submission.
-
-            A queue can probably be used to keep track of the holds as they are created.  The top of the queue should
-            always contain the earliest created hold which should be the next to expire.
-
-            There are a few wrinkles in this idea that when the thread wakes the item on the top of the queue may have
-            been reserved and therefore will not need to expire.  Because of this the code can only remove the hold if
-            it sill exists in the holdBlocks.  If the hold is missing then it can be assumed that it has been reserved.
-            In addition, when the thread wakes there may be multiple items on the top of the queue that are required to
-            be expired.  For this the code must iterate through the top of the queue removing items until it finds an
-            item that is not yet expired.  The thread can then sleep until the expiration date/time of this item.
-         */
-        this.sweepThread = new Thread(() -> {
-            while (true) {
-                Set<Integer> expiredHolds = new HashSet<>();
-                for (Map.Entry<Long, Integer> entry : this.timeoutToHolds.entrySet()) {
-                    long expireTime = entry.getKey() + this.holdTimeout;
-                    if (System.currentTimeMillis() >= expireTime) {
-                        // This entry has expired.
-                        expiredHolds.add(entry.getValue());
-                    } else {
-                        // No more holds have expired at the current time.
-                        break; // **EXIT**
+        final boolean[] replayed = new boolean[1];
+        if (this.journal != null) {
+            try {
+                this.journal.replay(new Journal.Listener() {
+                    @Override
+                    public void hold(int holdId, long holdTime, int row, int firstSeat, int size, String email) {
+                        SeatBlock block = SeatBlock.restore(scores, row, firstSeat, size, holdId, email, holdTime);
+                        if (row >= fromRow && row < toRow) {
+                            addBlock(holds, block);
+                            seatStore.setState(block, SeatStore.HELD);
+                        }
+                        replayed[0] = true;
                     }
-                }
 
-                // Remove the expired holds.
-                if (expiredHolds.size() > 0) {
-                    this.removeHolds(expiredHolds);
-                }
+                    @Override
+                    public void reserve(int holdId, long time) {
+                        SeatHold hold = holds.remove(holdId);
+                        if (hold != null) {
+                            setState(hold, SeatStore.RESERVED);
+                            reservations.add(hold);
+                        }
+                        replayed[0] = true;
+                    }
 
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    break; // **EXIT**
+                    @Override
+                    public void expire(int holdId, long time) {
+                        SeatHold hold = holds.remove(holdId);
+                        if (hold != null) {
+                            setState(hold, SeatStore.AVAILABLE);
+                        }
+                        replayed[0] = true;
+                    }
+                }, fromPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to replay the journal", e);
+            }
+        }
+
+        if (snapshot != null && !replayed[0]) {
+            // Nothing changed since the snapshot, its blocks are still the available seats.
+            for (int i = 0; i < snapshot.getBlockCount(); i++) {
+                this.seatBlocks.add(snapshot.getBlock(i));
+            }
+        } else {
+            indexAvailableSeats(fromRow, toRow);
+        }
+
+        // Resume the pending holds with the time they have left.
+        final long now = System.currentTimeMillis();
+        for (SeatHold hold : holds.values()) {
+            this.holdBlocks.put(hold.getId(), hold);
+            this.holdTimeouts.put(hold.getId(), this.expiryScheduler.schedule(this.expiryListener, hold.getId(),
+                    Math.max(0, holdTime(hold) + this.holdTimeout - now)));
+        }
+    }
+
+    /**
+     * Add a restored block to its hold, the blocks of a fragmented hold share its id.
+     */
+    private static void addBlock(Map<Integer, SeatHold> holds, SeatBlock block) {
+        SeatHold hold = holds.get(block.getId());
+        holds.put(block.getId(), hold == null ? block : FragmentedSeatHold.with(hold, block));
+    }
+
+    /**
+     * Index each run of available seats in the seat store.
+     *
+     * @param fromRow - the first row managed by this service, inclusive.
+     * @param toRow   - the last row managed by this service, exclusive.
+     */
+    private void indexAvailableSeats(int fromRow, int toRow) {
+        final int rowSize = this.venue.getSeatsPerRow();
+        for (int row = fromRow; row < toRow; row++) {
+            int first = 0;
+            for (int seat = 0; seat <= rowSize; seat++) {
+                if (seat == rowSize || this.seatStore.getState(seat, row) != SeatStore.AVAILABLE) {
+                    if (seat > first) {
+                        this.seatBlocks.add(new SeatBlock(this.scores, row, first, seat - first));
+                    }
+                    first = seat + 1;
                 }
             }
-        });
-        this.sweepThread.start();
+        }
     }
 
     /**
      * The number of seats in the venue that are neither held nor reserved
+     * <p>
+     * The count is maintained as holds are created and expire, reservations do not change it since reserved seats
+     * are already held.  Reading the count does not acquire the service monitor.
      *
      * @return the number of tickets available in the venue
      */
     @Override
-    public synchronized int numSeatsAvailable() {
-        int size = 0;
-        for (SeatBlock sb : seatBlocks) {
-            size += sb.size();
-        }
-        return size;
+    public int numSeatsAvailable() {
+        return this.seatsAvailable.get();
     }
 
     /**
-     * Find the best available block from the currently available seats.
+     * The size of the largest contiguous block of available seats, the largest party that can be seated together.
+     * The size is published with the summary of the blocks after each change so reading it does not acquire the
+     * service monitor.
      *
-     * @param numSeats        - the number of seats requested.
-     * @param useAnyBlockSize - if true then the seats do not need to be contiguous or in the same row.
-     * @return the best available SeatBlock containing enough seats to fulfill the order or null if
-     * it cannot be fulfilled.
+     * @return the largest block size or zero if no seats are available.
      */
-    private SeatBlock findBestAvailableBlocks(int numSeats, boolean useAnyBlockSize) {
-        int seatsRequired = numSeats;
-        List<Seat> heldSeats = new ArrayList<>();
-        List<SeatBlock> usedBlocks = new ArrayList<>();
+    public int getLargestBlockSize() {
+        return this.summary.getLargestBlockSize();
+    }
 
-        for (SeatBlock block : this.seatBlocks) {
-            if (useAnyBlockSize || block.size() >= numSeats) {
-                //
-                usedBlocks.add(block);
+    /**
+     * Determine, without acquiring the service monitor, whether a hold for a number of seats could currently succeed.
+     * The seats must fit in the largest available block unless fragmented holds are enabled.
+     *
+     * @param numSeats the number of seats to hold
+     * @return false if the seats cannot currently be held
+     */
+    @Override
+    public boolean canSeat(int numSeats) {
+        return numSeats <= (this.fragmentSearchBudget > 0 ? this.seatsAvailable.get() : getLargestBlockSize());
+    }
 
-                if (block.size() == seatsRequired) {
-                    // The block is an exact match.
+    /**
+     * Retrieve the live histogram of the sizes of the available blocks, venue wide and for each row managed by this
+     * service.  The histogram is updated as seats are held and released and is read without acquiring the service
+     * monitor.
+     *
+     * @return the histogram.
+     */
+    public BlockHistogram getBlockHistogram() {
+        return this.seatBlocks.getHistogram();
+    }
 
-                    // Add the entire block to the result.
-                    heldSeats.addAll(block.getSeats());
-                    seatsRequired -= block.size();
+    /**
+     * Find the best available block from the currently available seats.  The seats are always contiguous and in the
+     * same row.
+     *
+     * @param numSeats - the number of seats requested.
+     * @param minScore - the minimum acceptable block score.
+     * @return the best available SeatBlock containing enough seats to fulfill the order or null if
+     * it cannot be fulfilled.
+     */
+    private SeatBlock findBestAvailableBlock(int numSeats, float minScore) {
+        SeatBlock block = this.seatBlocks.best(numSeats);
 
-                    // There should be no seats required.
-                    assert (seatsRequired == 0);
+        if (block == null || block.getScore() < minScore) {
+            // There are no blocks that are large enough, and good enough, to fulfill this request.
+            return null;
+        }
 
-                    break; // **EXIT**
-                } else if (seatsRequired < block.size()) {
-                    // This block has more seats than is required.
+        // Take the best available portion, any remaining seats are added back to the index.
+        final int row = block.getRow();
+        return new SeatBlock(this.scores, row, this.seatBlocks.take(block, numSeats), numSeats);
+    }
 
-                    // Add the best available portion to the result.
-                    List<SeatBlock> splits = block.split(seatsRequired);
-                    SeatBlock bestAvailableBlock = splits.get(0);
-                    heldSeats.addAll(bestAvailableBlock.getSeats());
-                    seatsRequired -= bestAvailableBlock.size();
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+     * information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        return findAndHoldSeats(numSeats, customerEmail, Float.NEGATIVE_INFINITY);
+    }
 
-                    // There hold should be fulfilled.
-                    assert (seatsRequired == 0);
+    /**
+     * Find and hold the best available seats for a customer provided the seats score at least the supplied minimum.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param minScore      the minimum acceptable score for the seats
+     * @return a SeatHold object identifying the specific seats and related
+     * information or null if the seats cannot be held
+     * @throws IllegalArgumentException if the number of seats is not valid.
+     */
+    SeatHold findAndHoldSeats(int numSeats, String customerEmail, float minScore) {
+        final long start = System.nanoTime();
+        checkNumSeats(numSeats, start);
+        final SeatHold result;
+        final long durable;
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final long stamp = beginWrite();
+            try {
+                result = holdSeats(numSeats, customerEmail, minScore, start);
+                if (result != null) {
+                    // Publish the remaining blocks.
+                    this.summary = BlockSummary.of(this.seatBlocks);
+                }
+            } finally {
+                endWrite(stamp);
+            }
+            durable = journalPosition();
+            this.metrics.recordLock(locked - start, System.nanoTime() - locked);
+        }
+        if (result != null) {
+            this.metrics.recordHold(System.nanoTime() - start);
+            awaitJournal(durable);
+        }
+        return result;
+    }
 
-                    // Add the remaining seats back.
-                    for (int i = 1; i < splits.size(); i++) {
-                        this.seatBlocks.add(splits.get(i));
+    /**
+     * Find and hold the best available seats for a batch of customers.  The whole batch is fulfilled, in order, while
+     * holding the service monitor once and the summary of the remaining blocks is published once at the end.
+     *
+     * @param requests the hold requests in arrival order
+     * @return a result for each request in the same order
+     */
+    @Override
+    public List<BatchResult<SeatHold>> findAndHoldSeatsBatch(List<HoldRequest> requests) {
+        final List<BatchResult<SeatHold>> results = new ArrayList<>(requests.size());
+        final long start = System.nanoTime();
+        final long durable;
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final long stamp = beginWrite();
+            try {
+                boolean changed = false;
+                for (HoldRequest request : requests) {
+                    try {
+                        checkNumSeats(request.getNumSeats(), start);
+                    } catch (IllegalArgumentException e) {
+                        results.add(BatchResult.failure(e));
+                        continue;
                     }
-
-                    break; // **EXIT**
-                } else {
-                    // This block is smaller than the required size
-
-                    heldSeats.addAll(block.getSeats());
-                    seatsRequired -= block.size();
-
-                    // The hold should not be fulfilled.
-                    assert (seatsRequired > 0);
+                    SeatHold result = holdSeats(request.getNumSeats(), request.getCustomerEmail(),
+                            Float.NEGATIVE_INFINITY, start);
+                    if (result != null) {
+                        this.metrics.recordHold(System.nanoTime() - start);
+                        changed = true;
+                    }
+                    results.add(BatchResult.success(result));
+                }
+                if (changed) {
+                    this.summary = BlockSummary.of(this.seatBlocks);
                 }
-            } // else this block is not a match, keep searching.
+            } finally {
+                endWrite(stamp);
+            }
+            durable = journalPosition();
+            this.metrics.recordLock(locked - start, System.nanoTime() - locked);
         }
+        awaitJournal(durable);
+        return results;
+    }
 
-        if (usedBlocks.size() > 0) {
-            for (SeatBlock toDelete : usedBlocks) {
-                this.seatBlocks.remove(toDelete);
+    /**
+     * Commit the seats held for a batch of customers while holding the service monitor once.
+     *
+     * @param requests the reservation requests in arrival order
+     * @return a result for each request in the same order
+     */
+    @Override
+    public List<BatchResult<String>> reserveSeatsBatch(List<ReserveRequest> requests) {
+        final List<BatchResult<String>> results = new ArrayList<>(requests.size());
+        final long start = System.nanoTime();
+        final long durable;
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final long stamp = beginWrite();
+            try {
+                for (ReserveRequest request : requests) {
+                    try {
+                        results.add(BatchResult.success(
+                                reserve(request.getSeatHoldId(), request.getCustomerEmail(), start)));
+                    } catch (RuntimeException e) {
+                        results.add(BatchResult.failure(e));
+                    }
+                }
+            } finally {
+                endWrite(stamp);
             }
+            durable = journalPosition();
+            this.metrics.recordLock(locked - start, System.nanoTime() - locked);
         }
+        awaitJournal(durable);
+        return results;
+    }
 
-        if (heldSeats.size() == 0) {
-            // There are no blocks that are large enough to fulfill this request and we are not using
-            // individual seats.  This hold order cannot be fulfilled.
-            assert (seatsRequired == numSeats);
-            return null;
-        } else {
-            // Create a new seat hold containing all of the seats combined.
-            return new SeatBlock(heldSeats);
+    /**
+     * Validate the number of seats requested by a hold, recording an invalid request as a failure.
+     *
+     * @param start - the time the request was made, used to record the latency of a failed request.
+     * @throws IllegalArgumentException if the number of seats is not valid.
+     */
+    private void checkNumSeats(int numSeats, long start) {
+        if (numSeats <= 0) {
+            this.metrics.recordHoldFailure(FailureReason.INVALID_REQUEST, System.nanoTime() - start);
+            throw new IllegalArgumentException("Number of seats is not valid: " + numSeats);
         }
     }
 
     /**
-     * Find and hold the best available seats for a customer
+     * Hold the best available seats.  The caller must hold the service monitor and publish the summary.
      *
-     * @param numSeats      the number of seats to find and hold
-     * @param customerEmail unique identifier for the customer
-     * @return a SeatHold object identifying the specific seats and related
-     * information
+     * @param start - the time the request was made, used to record the latency of a failed request.
      */
-    @Override
-    public synchronized SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+    private SeatHold holdSeats(int numSeats, String customerEmail, float minScore, long start) {
         int numSeatsAvailable;
-        if (this.seatBlocks.size() == 0) {
+        if (this.seatBlocks.isEmpty()) {
             // There are no seats left.
             LOG.fine("There are currently not seats available");
+            this.metrics.recordHoldFailure(FailureReason.NO_SEATS_AVAILABLE, System.nanoTime() - start);
             return null;
-        } else if (numSeats > (numSeatsAvailable = numSeatsAvailable())) {
+        } else if (numSeats > (numSeatsAvailable = this.seatsAvailable.get())) {
             // There are not enough seats available to fulfill this request.
-            String msg = String.format("The requested number of seats: %d is greater than the number of " +
-                    "seats that are currently available: %d", numSeats, numSeatsAvailable);
-            LOG.fine(msg);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("The requested number of seats: " + numSeats + " is greater than the number of seats that " +
+                        "are currently available: " + numSeatsAvailable);
+            }
+            this.metrics.recordHoldFailure(FailureReason.NOT_ENOUGH_SEATS, System.nanoTime() - start);
             return null;
         } else {
-            SeatBlock result = findBestAvailableBlocks(numSeats, false);
+            SeatBlock result = findBestAvailableBlock(numSeats, minScore);
 
-            // Note: At the current time I am assuming if there is not a contiguous seat block large enough to
-            // fulfill the customers request then we do not create the hold.  The request must be retried using
-            // a smaller block.  In the future we can retry and fulfill the order with seats that are not
-            // contiguous.
-            //if (!useAnyBlockSize && result == null) {
-            //    result = findBestAvailableBlocks(numSeats, true);
-            //}
+            // Note: If there is not a contiguous seat block large enough to fulfill the customers request then the
+            // hold is only created when fragmented holds are enabled, see setFragmentSearchBudget.  Otherwise the
+            // request must be retried using a smaller block.
 
-            if (result != null) {
+            if (result == null && minScore == Float.NEGATIVE_INFINITY) {
+                // A shard rejecting seats below its minimum score is not a failure.
+                SeatHold fragmented = this.fragmentSearchBudget > 0 ? holdFragments(numSeats, customerEmail) : null;
+                if (fragmented == null) {
+                    this.metrics.recordHoldFailure(FailureReason.NO_CONTIGUOUS_BLOCK, System.nanoTime() - start);
+                }
+                return fragmented;
+            } else if (result != null) {
+                // The held seats are no longer available.
+                changeState(result, SeatStore.HELD);
+                this.seatsAvailable.addAndGet(-result.size());
                 // Associated the customer email with this hold.
                 result.hold(customerEmail);
+                if (this.journal != null) {
+                    this.journal.hold(result.getId(), result.getHoldTime(), result.getRow(), result.getFirstSeat(),
+                            result.size(), customerEmail);
+                }
+                final AuditLog auditLog = this.auditLog;
+                if (auditLog != null) {
+                    auditLog.hold(result.getId(), result.getHoldTime(), result.getRow(), result.getFirstSeat(),
+                            result.size(), customerEmail);
+                }
                 // Add the hold to the dictionary by its id.
                 this.holdBlocks.put(result.getId(), result);
-                // Store the hold id by creation date.
-                this.timeoutToHolds.put(result.getHoldTime(), result.getId());
+                // Schedule the hold to expire.
+                this.holdTimeouts.put(result.getId(),
+                        this.expiryScheduler.schedule(this.expiryListener, result.getId(), this.holdTimeout));
             }
 
             return result;
         }
     }
 
+    /**
+     * Hold seats that are not contiguous.  The search starts from the best available block and examines the rows
+     * nearest to it, taking the best blocks of each row, until enough seats are found.  Each row examined costs its
+     * number of seats from the search budget so the latency of the search is bounded, the request fails if the budget
+     * is spent first.  The caller must hold the service monitor.
+     *
+     * @return the hold or null if the seats could not be found within the budget.
+     */
+    private SeatHold holdFragments(int numSeats, String customerEmail) {
+        final SeatBlock best = this.seatBlocks.best(1);
+        final int rowSize = this.venue.getSeatsPerRow();
+        final List<SeatBlock> candidates = new ArrayList<>();
+        final List<SeatBlock> parts = new ArrayList<>();
+        int found = 0;
+        int budget = this.fragmentSearchBudget;
+        for (int distance = 0; found < numSeats; distance++) {
+            final int above = best.getRow() - distance;
+            final int below = best.getRow() + distance;
+            if (above < this.fromRow && below >= this.toRow) {
+                return null; // **EXIT**
+            }
+            for (int side = 0; side < 2 && found < numSeats; side++) {
+                final int row = side == 0 ? above : below;
+                if ((side == 1 && distance == 0) || row < this.fromRow || row >= this.toRow) {
+                    continue;
+                } else if (budget < rowSize) {
+                    return null; // **EXIT**
+                }
+                budget -= rowSize;
+
+                // Take the best blocks of the row.
+                candidates.clear();
+                for (int seat = 0; seat < rowSize; seat++) {
+                    SeatBlock block;
+                    if (this.seatStore.getState(seat, row) == SeatStore.AVAILABLE &&
+                            (block = this.seatBlocks.find(row, seat)) != null) {
+                        candidates.add(block);
+                        seat += block.size() - 1;
+                    }
+                }
+                candidates.sort(SeatBlockIndex.BEST_AVAILABLE);
+                for (int i = 0; i < candidates.size() && found < numSeats; i++) {
+                    parts.add(candidates.get(i));
+                    found += candidates.get(i).size();
+                }
+            }
+        }
+
+        // Take the blocks from the index, only the best seats of the last block may be needed.
+        final SeatBlock[] blocks = new SeatBlock[parts.size()];
+        int remaining = numSeats;
+        for (int i = 0; i < blocks.length; i++) {
+            final SeatBlock block = parts.get(i);
+            final int row = block.getRow();
+            final int size = Math.min(block.size(), remaining);
+            final int firstSeat = this.seatBlocks.take(block, size);
+            remaining -= size;
+
+            // The blocks share the id, email and hold time of the first.
+            if (i == 0) {
+                blocks[i] = new SeatBlock(this.scores, row, firstSeat, size);
+                blocks[i].hold(customerEmail);
+            } else {
+                blocks[i] = SeatBlock.restore(this.scores, row, firstSeat, size, blocks[0].getId(), customerEmail,
+                        blocks[0].getHoldTime());
+            }
+            changeState(blocks[i], SeatStore.HELD);
+            if (this.journal != null) {
+                this.journal.hold(blocks[0].getId(), blocks[0].getHoldTime(), blocks[i].getRow(),
+                        blocks[i].getFirstSeat(), blocks[i].size(), customerEmail);
+            }
+            final AuditLog auditLog = this.auditLog;
+            if (auditLog != null) {
+                auditLog.hold(blocks[0].getId(), blocks[0].getHoldTime(), blocks[i].getRow(),
+                        blocks[i].getFirstSeat(), blocks[i].size(), customerEmail);
+            }
+        }
+
+        final FragmentedSeatHold result = new FragmentedSeatHold(blocks);
+        this.seatsAvailable.addAndGet(-result.size());
+        this.holdBlocks.put(result.getId(), result);
+        this.holdTimeouts.put(result.getId(),
+                this.expiryScheduler.schedule(this.expiryListener, result.getId(), this.holdTimeout));
+        return result;
+    }
+
+    /**
+     * Enable, or disable, holding seats that are not contiguous when a request cannot be held in one block.  The
+     * seats are assembled from the best blocks in the rows nearest the best available block, examining at most the
+     * supplied number of seats so the cost of a request that cannot be fulfilled stays bounded.
+     *
+     * @param maxSeatsExamined - the search budget in seats or zero to only hold contiguous seats.
+     */
+    public void setFragmentSearchBudget(int maxSeatsExamined) {
+        if (maxSeatsExamined < 0) {
+            throw new IllegalArgumentException("The search budget cannot be negative: " + maxSeatsExamined);
+        }
+        this.fragmentSearchBudget = maxSeatsExamined;
+    }
+
+    /**
+     * Record every hold, reservation and expiration made from now on in an audit trail.  Recording an event only
+     * copies it into the ring buffer of the audit log, the log is not closed when the service is shut down.
+     *
+     * @param auditLog - the audit log or null to stop auditing.
+     */
+    public void setAuditLog(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
     /**
      * Commit seats held for a specific customer
      *
@@ -291,60 +807,419 @@ public class TicketServiceImpl implements TicketService {
      * @throws NoSuchSeatHoldException if a corresponding hold cannot be found.
      */
     @Override
-    public synchronized String reserveSeats(int seatHoldId, String customerEmail) {
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        final long start = System.nanoTime();
+        final String result;
+        final long durable;
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final long stamp = beginWrite();
+            try {
+                result = reserve(seatHoldId, customerEmail, start);
+                durable = journalPosition();
+            } finally {
+                endWrite(stamp);
+                this.metrics.recordLock(locked - start, System.nanoTime() - locked);
+            }
+        }
+        awaitJournal(durable);
+        return result;
+    }
+
+    /**
+     * Reserve the seats of a hold.  The caller must hold the service monitor.
+     *
+     * @param start - the time the request was made, used to record its latency.
+     */
+    private String reserve(int seatHoldId, String customerEmail, long start) {
         if (seatHoldId <= 0) {
             // Error, invalid seat id.
+            this.metrics.recordReservationFailure(FailureReason.INVALID_REQUEST, System.nanoTime() - start);
             throw new IllegalArgumentException("Seat hold id is not valid: " + seatHoldId);
         } else if (customerEmail == null || customerEmail.equals("")) {
             // Error, the customer email is not valid.
+            this.metrics.recordReservationFailure(FailureReason.INVALID_REQUEST, System.nanoTime() - start);
             throw new IllegalArgumentException("Customer email is not valid: " + customerEmail);
         } else if (!this.holdBlocks.containsKey(seatHoldId)) {
             // Error, the hold does not exist.
+            this.metrics.recordReservationFailure(FailureReason.NO_SUCH_HOLD, System.nanoTime() - start);
             String msg = String.format("The seat hold for customer: %s having id: %d does not exist.",
                     customerEmail, seatHoldId);
             throw new NoSuchSeatHoldException(msg);
         }
 
-        // Remove the seat block from the holds.
-        SeatBlock hold = this.holdBlocks.remove(seatHoldId);
+        SeatHold hold = this.holdBlocks.get(seatHoldId);
 
         if (!hold.getEmail().equals(customerEmail)) {
             // Error, this hold is not for the supplied email.
+            this.metrics.recordReservationFailure(FailureReason.WRONG_CUSTOMER, System.nanoTime() - start);
             throw new SecurityException(String.format("Seat hold with id: %d is not related to customer email %s",
                     seatHoldId, customerEmail));
         }
 
+        // Remove the seat block from the holds, it will no longer expire.
+        this.holdBlocks.remove(seatHoldId);
+        final HoldExpiryScheduler.Timeout timeout = this.holdTimeouts.remove(seatHoldId);
+        if (timeout != null) {
+            // The timeouts are cancelled and discarded when the service is shut down.
+            timeout.cancel();
+        }
+
+        changeState(hold, SeatStore.RESERVED);
+        this.reservations.add(hold);
+        final long now = System.currentTimeMillis();
+        if (this.journal != null) {
+            this.journal.reserve(seatHoldId, now);
+        }
         String result = String.valueOf(hold.getId());
 
         // Audit the reservation.
-        LOG.fine(String.format("RESERVED: %d seats reserved for customer: %s with confirmation code: %s",
-                hold.size(), customerEmail, result));
+        final AuditLog auditLog = this.auditLog;
+        if (auditLog != null) {
+            auditLog.reserve(seatHoldId, now, hold.size(), customerEmail);
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("RESERVED: " + hold.size() + " seats reserved for customer: " + customerEmail +
+                    " with confirmation code: " + result);
+        }
+
+        this.metrics.recordReservation(System.nanoTime() - start);
 
         // Return a confirmation code.
         return result;
     }
 
     /**
-     * Remove the seat holds by id if they exist.
+     * Remove the seat holds by id if they exist, returning their seats to the available seats.  This is called by the
+     * expiry scheduler and may be called directly to expire holds early.
      *
      * @param holdIds - a list of seat hold ids.
      */
-    private synchronized void removeHolds(Set<Integer> holdIds) {
-        for (int holdId : holdIds) {
-            // Remove the hold if it exists.
-            SeatBlock hold = this.holdBlocks.remove(holdId);
-            if (hold != null) {
-                this.seatBlocks.add(hold);
+    void removeHolds(Set<Integer> holdIds) {
+        final long start = System.nanoTime();
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final long stamp = beginWrite();
+            try {
+                final long now = System.currentTimeMillis();
+                for (int holdId : holdIds) {
+                    // Remove the hold if it exists.
+                    SeatHold hold = this.holdBlocks.remove(holdId);
+                    if (hold != null) {
+                        this.holdTimeouts.remove(holdId);
+                        changeState(hold, SeatStore.AVAILABLE);
+                        if (this.journal != null) {
+                            this.journal.expire(holdId, now);
+                        }
+                        final AuditLog auditLog = this.auditLog;
+                        if (auditLog != null) {
+                            auditLog.expire(holdId, now, hold.size(), hold.getEmail());
+                        }
+                        // Merge the seats with the available blocks they were split from.
+                        if (hold instanceof FragmentedSeatHold) {
+                            for (SeatBlock block : ((FragmentedSeatHold) hold).getBlocks()) {
+                                this.seatBlocks.release(block);
+                            }
+                        } else {
+                            this.seatBlocks.release((SeatBlock) hold);
+                        }
+                        this.seatsAvailable.addAndGet(hold.size());
+                        this.metrics.recordExpiration(
+                                TimeUnit.MILLISECONDS.toNanos(now - holdTime(hold) - this.holdTimeout));
+                    }
+                }
+                this.summary = BlockSummary.of(this.seatBlocks);
+            } finally {
+                endWrite(stamp);
             }
+
+            final long end = System.nanoTime();
+            this.metrics.recordLock(locked - start, end - locked);
+            this.metrics.recordExpirySweep(end - locked);
         }
     }
 
-    public void shutdown() {
+    /**
+     * Set the state of each seat of a hold.
+     */
+    private void setState(SeatHold hold, byte state) {
+        if (hold instanceof FragmentedSeatHold) {
+            for (SeatBlock block : ((FragmentedSeatHold) hold).getBlocks()) {
+                this.seatStore.setState(block, state);
+            }
+        } else {
+            this.seatStore.setState((SeatBlock) hold, state);
+        }
+    }
+
+    /**
+     * Set the state of each seat of a hold and append the change to the seat map feed with the version that ends the
+     * current mutation batch.  The caller must hold the write lock.
+     */
+    private void changeState(SeatHold hold, byte state) {
+        setState(hold, state);
+        if (hold instanceof FragmentedSeatHold) {
+            for (SeatBlock block : ((FragmentedSeatHold) hold).getBlocks()) {
+                this.feed.append(this.version + 1, block, state);
+            }
+        } else {
+            this.feed.append(this.version + 1, (SeatBlock) hold, state);
+        }
+    }
+
+    private static long holdTime(SeatHold hold) {
+        return hold instanceof FragmentedSeatHold ? ((FragmentedSeatHold) hold).getHoldTime()
+                : ((SeatBlock) hold).getHoldTime();
+    }
+
+    /**
+     * The blocks of the supplied holds, the blocks of a fragmented hold share its id.
+     */
+    private static List<SeatBlock> blocks(Collection<SeatHold> holds) {
+        List<SeatBlock> result = new ArrayList<>(holds.size());
+        for (SeatHold hold : holds) {
+            if (hold instanceof FragmentedSeatHold) {
+                result.addAll(((FragmentedSeatHold) hold).getBlocks());
+            } else {
+                result.add((SeatBlock) hold);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The score of the best available block having at least the supplied number of seats.
+     *
+     * @param numSeats - the number of seats.
+     * @return the block score or negative infinity if no block is large enough.
+     */
+    float bestScore(int numSeats) {
+        return read(() -> {
+            SeatBlock best = this.seatBlocks.best(numSeats);
+            return best != null ? best.getScore() : Float.NEGATIVE_INFINITY;
+        });
+    }
+
+    /**
+     * Copy the state of the seats managed by this service without acquiring the service monitor, for example to render
+     * the seat map.  The copy never delays a hold, if a hold or expiration overlaps the copy it is made again.
+     *
+     * @return the seat map.
+     */
+    public SeatMap getSeatMap() {
+        return read(() -> new SeatMap(this.venue, this.fromRow, this.toRow, this.version,
+                this.seatStore.copyStates(this.fromRow, this.toRow)));
+    }
+
+    /**
+     * Retrieve the changes to the seats made after a version without acquiring the service monitor.  A subscriber
+     * starts from the version of a seat map and resumes from the version of the last deltas it received, so only the
+     * seats that changed are copied.
+     *
+     * @param fromVersion - the version of the seat map or deltas the subscriber last received.
+     * @return the deltas, which may be empty, or null if the changes after fromVersion are no longer kept and the
+     * subscriber must start again from a new seat map.
+     * @throws IllegalArgumentException if fromVersion is after the current version of the service.
+     */
+    public SeatMapDeltas getSeatMapDeltas(long fromVersion) {
+        return read(() -> this.feed.since(fromVersion, this.version));
+    }
+
+    /**
+     * Begin a mutation of the seat states and available blocks.  The caller must hold the service monitor.
+     *
+     * @return the stamp to pass to endWrite.
+     */
+    private long beginWrite() {
+        return this.stateLock.writeLock();
+    }
+
+    /**
+     * End a mutation of the seat states and available blocks, advancing the version seen by readers.
+     */
+    private void endWrite(long stamp) {
+        this.version++;
+        this.stateLock.unlockWrite(stamp);
+    }
+
+    /**
+     * Read the seat states and available blocks without acquiring the service monitor.  The reader is first run
+     * optimistically and its result discarded if a mutation overlapped it, in which case it is run again holding the
+     * read lock.  An optimistic reader may observe inconsistent state so it must not throw or loop on it.
+     *
+     * @param reader - computes the result.
+     * @return the result of a read that did not overlap a mutation.
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = this.stateLock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = reader.get();
+            if (this.stateLock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = this.stateLock.readLock();
         try {
-            this.sweepThread.interrupt();
-            this.sweepThread.join(1000);
-        } catch (InterruptedException e) {
-            LOG.warning("Exception while shutting down: " + e.toString());
+            return reader.get();
+        } finally {
+            this.stateLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Determine if a hold is currently managed by this service without acquiring the service monitor.
+     *
+     * @param seatHoldId - the seat hold identifier.
+     * @return true if the hold exists.
+     */
+    boolean containsHold(int seatHoldId) {
+        return this.holdBlocks.containsKey(seatHoldId);
+    }
+
+    /**
+     * The journal position following the last record written by this service.  The caller must hold the service
+     * monitor.
+     */
+    private long journalPosition() {
+        return this.journal != null ? this.journal.getPosition() : 0;
+    }
+
+    /**
+     * Wait until the records written by this service up to a position are durable.
+     */
+    private void awaitJournal(long position) {
+        if (this.journal != null) {
+            this.journal.awaitDurable(position);
+        }
+    }
+
+    /**
+     * Take a snapshot of the state of this service.  The state is copied while holding the service monitor, the seat
+     * scores are immutable and shared with the snapshot.
+     * <p>
+     * The snapshot is returned once the journal is durable up to the position it records, so a snapshot written after
+     * this returns is never ahead of the journal it is restored with.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot snapshot() {
+        final long start = System.nanoTime();
+        final Snapshot snapshot;
+        synchronized (this) {
+            final long locked = System.nanoTime();
+            final int[] blocks = new int[this.seatBlocks.size() * 3];
+            int i = 0;
+            for (SeatBlock block : this.seatBlocks) {
+                blocks[i++] = block.getRow();
+                blocks[i++] = block.getFirstSeat();
+                blocks[i++] = block.size();
+            }
+            snapshot = new Snapshot(this.scores, this.seatStore.copyStates(), blocks,
+                    blocks(this.holdBlocks.values()), blocks(this.reservations.getReservations()),
+                    System.currentTimeMillis(), journalPosition(), SeatBlock.lastId());
+            this.metrics.recordLock(locked - start, System.nanoTime() - locked);
+        }
+        awaitJournal(snapshot.getJournalPosition());
+        return snapshot;
+    }
+
+    /**
+     * Write a snapshot of this service at a fixed rate until the service is shut down.  The snapshot is written
+     * outside of the service monitor by a background thread, a failed write is logged and retried at the next period.
+     *
+     * @param path         - the snapshot file.
+     * @param periodMillis - the time between snapshots.
+     */
+    public synchronized void scheduleSnapshots(Path path, long periodMillis) {
+        if (this.snapshotExecutor == null) {
+            this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.snapshotExecutor.scheduleAtFixedRate(() -> {
+            try {
+                snapshot().write(path);
+            } catch (IOException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Unable to write a snapshot to: " + path, e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The number of available blocks in each power of two size class.
+     */
+    private int[] freeBlockSizeClasses() {
+        return this.seatBlocks.getHistogram().getSizeClassCounts();
+    }
+
+    /**
+     * The fragmentation of the available blocks.
+     */
+    private double fragmentation() {
+        return read(this.seatBlocks::fragmentation);
+    }
+
+    /**
+     * Retrieve the reservations, which may be queried by confirmation code, seat, customer email and row without
+     * acquiring the service monitor.
+     *
+     * @return the reservation store.
+     */
+    public ReservationStore getReservations() {
+        return this.reservations;
+    }
+
+    /**
+     * Retrieve the latencies and counters of this service.  The metrics can be published to JMX with
+     * {@link TicketServiceMetrics#register(String)}.
+     *
+     * @return the metrics.
+     */
+    public TicketServiceMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Retrieve the precomputed seat scores, which may be shared with other services.
+     *
+     * @return the venue scores.
+     */
+    VenueScores getScores() {
+        return this.scores;
+    }
+
+    /**
+     * Retrieve the most recently published summary of the available seat blocks.
+     *
+     * @return the summary.
+     */
+    BlockSummary getSummary() {
+        return this.summary;
+    }
+
+    /**
+     * Stop expiring holds and writing snapshots and unregister the metrics from JMX.  A scheduler created by this
+     * service is shut down, otherwise the pending expirations of this service are cancelled and the shared scheduler is
+     * left running.
+     */
+    public void shutdown() {
+        this.metrics.unregister();
+        synchronized (this) {
+            if (this.snapshotExecutor != null) {
+                this.snapshotExecutor.shutdownNow();
+            }
+        }
+        if (this.ownsExpiryScheduler) {
+            this.expiryScheduler.shutdown();
+        } else {
+            synchronized (this) {
+                for (HoldExpiryScheduler.Timeout timeout : this.holdTimeouts.values()) {
+                    timeout.cancel();
+                }
+                this.holdTimeouts.clear();
+            }
         }
     }
 
@@ -352,11 +1227,21 @@ public class TicketServiceImpl implements TicketService {
      * Return the service as a string value.
      * <p>
      * NOTE: This function is currently only for debugging purposes. This function should not be used in a production
-     * environment.
+     * environment.  The blocks are copied holding the read lock, which delays holds until the copy is made but not
+     * while they are sorted and formatted.
      *
      * @return the service instance as a string.
      */
     public String toString() {
+        final List<SeatBlock> blocks;
+        final long stamp = this.stateLock.readLock();
+        try {
+            blocks = this.seatBlocks.blocks();
+        } finally {
+            this.stateLock.unlockRead(stamp);
+        }
+        blocks.sort(SeatBlockIndex.BEST_AVAILABLE);
+
         StringBuilder sb = new StringBuilder();
 
         sb.append("TicketServiceImpl (");
@@ -364,10 +1249,7 @@ public class TicketServiceImpl implements TicketService {
 
         int row = 0;
 
-        SeatBlock[] a = this.seatBlocks.toArray(new SeatBlock[this.seatBlocks.size()]);
-        Arrays.sort(a);
-
-        for (SeatBlock block : a) {
+        for (SeatBlock block : blocks) {
             sb.append("\t");
             sb.append(row);
             sb.append(" - ");
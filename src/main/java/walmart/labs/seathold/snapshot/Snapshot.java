@@ -0,0 +1,279 @@
+package walmart.labs.seathold.snapshot;
+
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A point in time image of the state of a ticket service: the seat scores, the state of every seat, the available seat
+ * blocks, the pending holds and the reservations along with the journal position the image was taken at.
+ * <p>
+ * A service restored from a snapshot does not need to score the venue or replay the journal from the start, only the
+ * records appended after the snapshot are replayed.
+ * <p>
+ * The image is a header followed by fixed width sections so it is read by mapping the file and copying each section
+ * in bulk:
+ * <pre>
+ *   int magic, int version, int seatsPerRow, int rows, long time, long journalPosition, int lastId
+ *   float[seats] scores
+ *   byte[seats]  states
+ *   int blocks, then (int row, int firstSeat, int size) for each available block
+ *   int holds, then (int id, int row, int firstSeat, int size, long holdTime, short length, byte[length] email)
+ *   int reservations, then each reservation in the same layout as a hold
+ *   int crc32 of everything above
+ * </pre>
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x53485350;
+    private static final int VERSION = 2;
+
+    private final VenueScores scores;
+    private final byte[] states;
+    private final int[] blocks;
+    private final List<SeatBlock> holds;
+    private final List<SeatBlock> reservations;
+    private final long time;
+    private final long journalPosition;
+    private final int lastId;
+
+    /**
+     * Construct a snapshot.
+     *
+     * @param scores          - the venue scores.
+     * @param states          - the state of each seat indexed by row * seatsPerRow + seat.
+     * @param blocks          - the available blocks as consecutive row, first seat and size triples.
+     * @param holds           - the blocks of the pending holds, the blocks of a fragmented hold share its id.
+     * @param reservations    - the blocks of the reservations.
+     * @param time            - the time the snapshot was taken.
+     * @param journalPosition - the position of the journal when the snapshot was taken or zero.
+     * @param lastId          - the most recently assigned hold id.
+     */
+    public Snapshot(VenueScores scores, byte[] states, int[] blocks, List<SeatBlock> holds,
+                    List<SeatBlock> reservations, long time, long journalPosition, int lastId) {
+        if (blocks.length % 3 != 0) {
+            throw new IllegalArgumentException("Blocks must be row, first seat and size triples: " + blocks.length);
+        }
+        this.scores = scores;
+        this.states = states;
+        this.blocks = blocks;
+        this.holds = Collections.unmodifiableList(holds);
+        this.reservations = Collections.unmodifiableList(reservations);
+        this.time = time;
+        this.journalPosition = journalPosition;
+        this.lastId = lastId;
+    }
+
+    public VenueScores getScores() {
+        return this.scores;
+    }
+
+    public Venue getVenue() {
+        return this.scores.getVenue();
+    }
+
+    /**
+     * The state of each seat indexed by row * seatsPerRow + seat.  The array is not copied.
+     *
+     * @return the seat states.
+     */
+    public byte[] getStates() {
+        return this.states;
+    }
+
+    /**
+     * The number of available blocks.
+     *
+     * @return the block count.
+     */
+    public int getBlockCount() {
+        return this.blocks.length / 3;
+    }
+
+    /**
+     * Create the available block at an index.
+     *
+     * @param index - the block index.
+     * @return a new seat block.
+     */
+    public SeatBlock getBlock(int index) {
+        return new SeatBlock(this.scores, this.blocks[index * 3], this.blocks[index * 3 + 1],
+                this.blocks[index * 3 + 2]);
+    }
+
+    public List<SeatBlock> getHolds() {
+        return this.holds;
+    }
+
+    public List<SeatBlock> getReservations() {
+        return this.reservations;
+    }
+
+    public long getTime() {
+        return this.time;
+    }
+
+    public long getJournalPosition() {
+        return this.journalPosition;
+    }
+
+    public int getLastId() {
+        return this.lastId;
+    }
+
+    /**
+     * Write the snapshot.  The image is written to a temporary file that replaces the target once it is complete so
+     * a crash while writing leaves the previous snapshot in place.
+     *
+     * @param path - the snapshot file.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            final CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        crc.update(b);
+                        file.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        crc.update(b, off, len);
+                        file.write(b, off, len);
+                    }
+                }, 64 * 1024));
+
+                final Venue venue = getVenue();
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(venue.getSeatsPerRow());
+                out.writeInt(venue.getRows());
+                out.writeLong(this.time);
+                out.writeLong(this.journalPosition);
+                out.writeInt(this.lastId);
+
+                for (int row = 0; row < venue.getRows(); row++) {
+                    for (int seat = 0; seat < venue.getSeatsPerRow(); seat++) {
+                        out.writeFloat(this.scores.getScore(seat, row));
+                    }
+                }
+                out.write(this.states);
+
+                out.writeInt(getBlockCount());
+                for (int value : this.blocks) {
+                    out.writeInt(value);
+                }
+
+                writeHolds(out, this.holds);
+                writeHolds(out, this.reservations);
+                out.flush();
+                file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Read a snapshot.  The file is mapped and each section is copied in bulk.
+     *
+     * @param path - the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the snapshot cannot be read or is not valid.
+     */
+    public static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 36 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot: " + path);
+            } else if (buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + path);
+            }
+
+            final ByteBuffer body = buffer.duplicate();
+            body.position(0).limit(buffer.capacity() - 4);
+            final CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(buffer.capacity() - 4)) {
+                throw new IOException("The snapshot is corrupt: " + path);
+            }
+
+            final Venue venue = new Venue(buffer.getInt(), buffer.getInt());
+            final long time = buffer.getLong();
+            final long journalPosition = buffer.getLong();
+            final int lastId = buffer.getInt();
+
+            final float[] scores = new float[venue.getMaxSeats()];
+            buffer.asFloatBuffer().get(scores);
+            buffer.position(buffer.position() + scores.length * 4);
+            final VenueScores venueScores = new VenueScores(venue, scores);
+
+            final byte[] states = new byte[venue.getMaxSeats()];
+            buffer.get(states);
+
+            final int[] blocks = new int[buffer.getInt() * 3];
+            buffer.asIntBuffer().get(blocks);
+            buffer.position(buffer.position() + blocks.length * 4);
+
+            final List<SeatBlock> holds = readHolds(buffer, venueScores);
+            final List<SeatBlock> reservations = readHolds(buffer, venueScores);
+            return new Snapshot(venueScores, states, blocks, holds, reservations, time, journalPosition, lastId);
+        }
+    }
+
+    private static void writeHolds(DataOutputStream out, List<SeatBlock> holds) throws IOException {
+        out.writeInt(holds.size());
+        for (SeatBlock hold : holds) {
+            byte[] email = hold.getEmail() != null ? hold.getEmail().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            out.writeInt(hold.getId());
+            out.writeInt(hold.getRow());
+            out.writeInt(hold.getFirstSeat());
+            out.writeInt(hold.size());
+            out.writeLong(hold.getHoldTime());
+            out.writeShort(email.length);
+            out.write(email);
+        }
+    }
+
+    private static List<SeatBlock> readHolds(ByteBuffer buffer, VenueScores scores) {
+        final int count = buffer.getInt();
+        final List<SeatBlock> holds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            int row = buffer.getInt();
+            int firstSeat = buffer.getInt();
+            int size = buffer.getInt();
+            long holdTime = buffer.getLong();
+            byte[] email = new byte[buffer.getShort()];
+            buffer.get(email);
+            holds.add(SeatBlock.restore(scores, row, firstSeat, size, id, new String(email, StandardCharsets.UTF_8),
+                    holdTime));
+        }
+        return holds;
+    }
+}
@@ -0,0 +1,75 @@
+package walmart.labs.seathold.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    void release_slowRequestsShrinkTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(64, 2, 100, 1000, 0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.acquire(0));
+            limit.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void release_fastRequestsGrowTheLimitWhileItIsUsed() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 100, 1000, 0);
+
+        // A single request at a time does not use the limit so it stays the same.
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.acquire(0));
+            limit.release(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        assertEquals(4, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            int inFlight = limit.getLimit();
+            for (int j = 0; j < inFlight; j++) {
+                assertTrue(limit.acquire(0));
+            }
+            assertFalse(limit.acquire(0));
+            for (int j = 0; j < inFlight; j++) {
+                limit.release(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void acquire_waitsInBoundedQueue() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1000, 1);
+        assertTrue(limit.acquire(0));
+
+        final boolean[] admitted = new boolean[1];
+        Thread queued = new Thread(() -> admitted[0] = limit.acquire(TimeUnit.SECONDS.toNanos(10)));
+        queued.start();
+        while (limit.getQueued() == 0) {
+            Thread.yield();
+        }
+
+        // The queue is full and the limit is reached.
+        assertFalse(limit.acquire(TimeUnit.SECONDS.toNanos(10)));
+        assertTrue(limit.retryAfterMillis() >= 1);
+
+        limit.release(TimeUnit.MICROSECONDS.toNanos(100));
+        queued.join();
+        assertTrue(admitted[0]);
+        assertEquals(1, limit.getInFlight());
+        assertEquals(0, limit.getQueued());
+    }
+
+    @Test
+    void acquire_timesOut() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1000, 4);
+        assertTrue(limit.acquire(0));
+        assertFalse(limit.acquire(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertEquals(0, limit.getQueued());
+    }
+}
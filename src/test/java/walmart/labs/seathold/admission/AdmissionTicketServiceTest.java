@@ -0,0 +1,113 @@
+package walmart.labs.seathold.admission;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.errors.RequestRejectedException;
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.service.BatchResult;
+import walmart.labs.seathold.service.TicketService;
+import walmart.labs.seathold.service.TicketServiceImpl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionTicketServiceTest {
+    private static final String EMAIL1 = "email1@email.com";
+
+    private TicketServiceImpl service;
+
+    @AfterEach
+    void afterEach() {
+        if (this.service != null) {
+            this.service.shutdown();
+        }
+    }
+
+    @Test
+    void findAndHoldSeats_rejectsSeatsThatCannotBeSeated() {
+        this.service = new TicketServiceImpl(new Venue(10, 2), new MiddleOutScorer(), 60000);
+        AdmissionTicketService admission = new AdmissionTicketService(this.service, 60000);
+
+        RequestRejectedException e = assertThrows(RequestRejectedException.class,
+                () -> admission.findAndHoldSeats(11, EMAIL1));
+        assertEquals(RequestRejectedException.Reason.CANNOT_SEAT, e.getReason());
+        assertEquals(60000, e.getRetryAfterMillis());
+        // Invalid requests still reach the service.
+        assertThrows(IllegalArgumentException.class, () -> admission.findAndHoldSeats(0, EMAIL1));
+
+        assertNotNull(admission.findAndHoldSeats(10, EMAIL1));
+        assertNotNull(admission.findAndHoldSeats(10, EMAIL1));
+        e = assertThrows(RequestRejectedException.class, () -> admission.findAndHoldSeats(1, EMAIL1));
+        assertEquals(RequestRejectedException.Reason.SOLD_OUT, e.getReason());
+        assertEquals(1, admission.getRejectedCount(RequestRejectedException.Reason.CANNOT_SEAT));
+        assertEquals(1, admission.getRejectedCount(RequestRejectedException.Reason.SOLD_OUT));
+        assertEquals(0, admission.getLimit().getInFlight());
+
+    }
+
+    @Test
+    void findAndHoldSeatsBatch_rejectsIndividually() {
+        this.service = new TicketServiceImpl(new Venue(10, 2), new MiddleOutScorer(), 60000);
+        AdmissionTicketService admission = new AdmissionTicketService(this.service, 60000);
+
+        List<BatchResult<SeatHold>> results = admission.findAndHoldSeatsBatch(Arrays.asList(
+                new HoldRequest(4, EMAIL1), new HoldRequest(12, EMAIL1), new HoldRequest(0, EMAIL1)));
+        assertNotNull(results.get(0).get());
+        assertEquals(RequestRejectedException.Reason.CANNOT_SEAT,
+                ((RequestRejectedException) results.get(1).getError()).getReason());
+        assertTrue(results.get(2).getError() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void findAndHoldSeats_shedsWhenQueueIsFull() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        TicketService blocking = new TicketService() {
+            @Override
+            public int numSeatsAvailable() {
+                return 100;
+            }
+
+            @Override
+            public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+
+            @Override
+            public String reserveSeats(int seatHoldId, String customerEmail) {
+                return String.valueOf(seatHoldId);
+            }
+        };
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1000, 0);
+        AdmissionTicketService admission = new AdmissionTicketService(blocking, limit, 10, 60000);
+
+        Thread holder = new Thread(() -> admission.findAndHoldSeats(1, EMAIL1));
+        holder.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        RequestRejectedException e = assertThrows(RequestRejectedException.class,
+                () -> admission.findAndHoldSeats(1, EMAIL1));
+        assertEquals(RequestRejectedException.Reason.OVERLOADED, e.getReason());
+        assertTrue(e.getRetryAfterMillis() >= 1);
+        // Reservations are not limited.
+        assertEquals("7", admission.reserveSeats(7, EMAIL1));
+
+        release.countDown();
+        holder.join();
+        assertEquals(0, limit.getInFlight());
+        assertNull(admission.findAndHoldSeats(1, EMAIL1));
+    }
+}
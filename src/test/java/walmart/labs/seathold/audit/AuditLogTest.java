@@ -0,0 +1,134 @@
+package walmart.labs.seathold.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+    private Path path;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        this.path = Files.createTempFile("audit", ".log");
+        Files.delete(this.path);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    void read() throws IOException {
+        try (AuditLog log = new AuditLog(this.path, 4, 100)) {
+            log.hold(1, 0L, 2, 3, 4, "email1@email.com");
+            log.reserve(1, 1000L, 4, "email1@email.com");
+            log.expire(2, 2000L, 1, null);
+        }
+
+        assertEquals(Arrays.asList(
+                "1970-01-01T00:00:00Z HELD: 4 seats in row 2 from seat 3 held for customer: email1@email.com with " +
+                        "hold id: 1",
+                "1970-01-01T00:00:01Z RESERVED: 4 seats reserved for customer: email1@email.com with confirmation " +
+                        "code: 1",
+                "1970-01-01T00:00:02Z EXPIRED: 1 seats held for customer: null with hold id: 2"), read(this.path));
+    }
+
+    @Test
+    void append_concurrentProducersWrapTheRing() throws Exception {
+        final int threads = 4;
+        final int records = 5000;
+        try (AuditLog log = new AuditLog(this.path, 8, 10)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < records; i++) {
+                        log.reserve(thread * records + i, i, 1, "customer" + thread + "@email.com");
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        }
+
+        // Every record is written once and the records of each producer stay in order.
+        final int[] next = new int[threads];
+        final int[] count = new int[1];
+        AuditLog.read(this.path, (type, time, holdId, row, firstSeat, seats, email, truncated) -> {
+            int thread = holdId / records;
+            assertEquals(AuditLog.RESERVE, type);
+            assertEquals(next[thread]++, time);
+            assertEquals("customer" + thread + "@email.com", email);
+            count[0]++;
+        });
+        assertEquals(threads * records, count[0]);
+    }
+
+    @Test
+    void append_truncatesLongEmails() throws IOException {
+        StringBuilder email = new StringBuilder();
+        while (email.length() <= AuditLog.EMAIL_CAPACITY) {
+            email.append("\u00e9");
+        }
+        try (AuditLog log = new AuditLog(this.path, 4, 100)) {
+            log.reserve(1, 0L, 1, email.toString());
+            log.reserve(2, 0L, 1, "customer@email.com");
+        }
+
+        final List<Boolean> truncated = new ArrayList<>();
+        AuditLog.read(this.path, (type, time, holdId, row, firstSeat, seats, e, t) -> truncated.add(t));
+        assertEquals(Arrays.asList(true, false), truncated);
+    }
+
+    @Test
+    void append_truncatesAtCharacterBoundary() throws IOException {
+        // The odd prefix puts a character across the EMAIL_CAPACITY byte.
+        StringBuilder email = new StringBuilder("a");
+        while (email.length() <= AuditLog.EMAIL_CAPACITY) {
+            email.append("\u00e9");
+        }
+        try (AuditLog log = new AuditLog(this.path, 4, 100)) {
+            log.reserve(1, 0L, 1, email.toString());
+        }
+
+        final List<String> emails = new ArrayList<>();
+        AuditLog.read(this.path, (type, time, holdId, row, firstSeat, seats, e, t) -> emails.add(e));
+        assertEquals(1, emails.size());
+        assertEquals(email.substring(0, AuditLog.EMAIL_CAPACITY / 2), emails.get(0));
+    }
+
+    @Test
+    void open_appendsAfterTornRecord() throws IOException {
+        try (AuditLog log = new AuditLog(this.path, 4, 100)) {
+            log.reserve(1, 0L, 1, "email1@email.com");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+            file.setLength(file.length() + AuditLog.RECORD_SIZE / 2);
+        }
+        try (AuditLog log = new AuditLog(this.path, 4, 100)) {
+            log.reserve(2, 0L, 1, "email2@email.com");
+        }
+        assertEquals(2, read(this.path).size());
+        assertTrue(read(this.path).get(1).contains("email2@email.com"));
+    }
+
+    private static List<String> read(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        AuditLog.read(path, (type, time, holdId, row, firstSeat, seats, email, truncated) ->
+                lines.add(AuditLogReader.format(type, time, holdId, row, firstSeat, seats, email, truncated)));
+        return lines;
+    }
+}
@@ -0,0 +1,117 @@
+package walmart.labs.seathold.expiry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldExpirySchedulerTest {
+    private HoldExpiryScheduler scheduler;
+
+    @BeforeEach
+    void beforeEach() {
+        this.scheduler = new HoldExpiryScheduler(5, 8);
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.scheduler.shutdown();
+    }
+
+    @Test
+    void schedule_expiresAfterDeadline() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(1);
+        long start = System.nanoTime();
+        this.scheduler.schedule(listener, 1, 50);
+
+        assertTrue(listener.await());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 50, "Expired early: " + elapsed);
+        assertEquals(Collections.singleton(1), listener.expired());
+        assertEquals(0, this.scheduler.size());
+    }
+
+    @Test
+    void schedule_sameMillisecond() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(3);
+        this.scheduler.schedule(listener, 1, 10);
+        this.scheduler.schedule(listener, 2, 10);
+        this.scheduler.schedule(listener, 3, 10);
+
+        assertTrue(listener.await());
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), listener.expired());
+    }
+
+    @Test
+    void schedule_beyondOneRotation() throws InterruptedException {
+        // The wheel covers 8 ticks of 5ms, this deadline requires several rotations.
+        RecordingListener listener = new RecordingListener(2);
+        long start = System.nanoTime();
+        this.scheduler.schedule(listener, 1, 120);
+        this.scheduler.schedule(listener, 2, 10);
+
+        assertTrue(listener.await());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 120, "Expired early: " + elapsed);
+    }
+
+    @Test
+    void cancel() throws InterruptedException {
+        RecordingListener listener = new RecordingListener(1);
+        HoldExpiryScheduler.Timeout cancelled = this.scheduler.schedule(listener, 1, 20);
+        this.scheduler.schedule(listener, 2, 40);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        assertTrue(listener.await());
+        assertEquals(Collections.singleton(2), listener.expired());
+    }
+
+    @Test
+    void schedule_afterIdle() throws InterruptedException {
+        RecordingListener first = new RecordingListener(1);
+        this.scheduler.schedule(first, 1, 5);
+        assertTrue(first.await());
+
+        // Let the wheel sit idle for several rotations.
+        Thread.sleep(100);
+
+        RecordingListener second = new RecordingListener(1);
+        long start = System.nanoTime();
+        this.scheduler.schedule(second, 2, 30);
+        assertTrue(second.await());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 30, "Expired early: " + elapsed);
+    }
+
+    private static class RecordingListener implements HoldExpiryScheduler.Listener {
+        private final Set<Integer> expired = Collections.synchronizedSet(new HashSet<>());
+        private final CountDownLatch latch;
+
+        RecordingListener(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void holdsExpired(Set<Integer> holdIds) {
+            this.expired.addAll(holdIds);
+            for (int i = 0; i < holdIds.size(); i++) {
+                this.latch.countDown();
+            }
+        }
+
+        boolean await() throws InterruptedException {
+            return this.latch.await(5, TimeUnit.SECONDS);
+        }
+
+        Set<Integer> expired() {
+            return new HashSet<>(this.expired);
+        }
+    }
+}
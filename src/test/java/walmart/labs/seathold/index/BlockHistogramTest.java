@@ -0,0 +1,77 @@
+package walmart.labs.seathold.index;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockHistogramTest {
+
+    @Test
+    void takeAndRelease_matchesBlocks() {
+        final int seatsPerRow = 40;
+        final int rows = 6;
+        VenueScores scores = new VenueScores(new Venue(seatsPerRow, rows), new MiddleOutScorer());
+        SeatBlockIndex index = new SeatBlockIndex(seatsPerRow, 1, rows);
+        for (int row = 0; row < rows; row++) {
+            index.add(new SeatBlock(scores, row, 0, seatsPerRow));
+        }
+        List<SeatBlock> taken = new ArrayList<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 5000; i++) {
+            if (random.nextBoolean() || taken.isEmpty()) {
+                int size = random.nextInt(8) + 1;
+                SeatBlock block = index.best(size);
+                if (block != null) {
+                    int row = block.getRow();
+                    taken.add(new SeatBlock(scores, row, index.take(block, size), size));
+                }
+            } else {
+                index.release(taken.remove(random.nextInt(taken.size())));
+            }
+            assertHistogram(index, seatsPerRow, 1, rows);
+        }
+    }
+
+    @Test
+    void getLargestSizeClass() {
+        VenueScores scores = new VenueScores(new Venue(20, 2), (seat, row, venue) -> 1.0f);
+        SeatBlockIndex index = new SeatBlockIndex(20, 0, 2);
+        BlockHistogram histogram = index.getHistogram();
+        index.add(new SeatBlock(scores, 0, 0, 3));
+        index.add(new SeatBlock(scores, 0, 5, 12));
+
+        assertEquals(5, histogram.getSizeClasses());
+        assertEquals(3, histogram.getLargestSizeClass(0));
+        assertEquals(-1, histogram.getLargestSizeClass(1));
+        assertArrayEquals(new int[]{0, 1, 0, 1, 0}, histogram.getSizeClassCounts(0));
+        assertEquals(1, histogram.getBlockCount(12));
+        assertEquals(0, histogram.getBlockCount(21));
+        assertThrows(IndexOutOfBoundsException.class, () -> histogram.getSizeClassCounts(2));
+    }
+
+    private static void assertHistogram(SeatBlockIndex index, int maxBlockSize, int fromRow, int toRow) {
+        final BlockHistogram histogram = index.getHistogram();
+        final int[] counts = new int[maxBlockSize];
+        final int[] classCounts = new int[histogram.getSizeClasses()];
+        final int[][] rowCounts = new int[toRow][histogram.getSizeClasses()];
+        for (SeatBlock block : index.blocks()) {
+            counts[block.size() - 1]++;
+            classCounts[31 - Integer.numberOfLeadingZeros(block.size())]++;
+            rowCounts[block.getRow()][BlockHistogram.sizeClass(block.size())]++;
+        }
+        assertArrayEquals(counts, histogram.getBlockCounts());
+        assertArrayEquals(classCounts, histogram.getSizeClassCounts());
+        for (int row = fromRow; row < toRow; row++) {
+            assertArrayEquals(rowCounts[row], histogram.getSizeClassCounts(row));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package walmart.labs.seathold.index;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockTableTest {
+
+    @Test
+    void randomOperations_matchHashMap() {
+        VenueScores scores = new VenueScores(new Venue(4, 1), (seat, row, venue) -> 1.0f);
+        BlockTable table = new BlockTable();
+        Map<Long, SeatBlock> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200000; i++) {
+            long key = (long) random.nextInt(64) << 32 | random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                SeatBlock block = expected.get(key);
+                assertEquals(block != null, table.remove(key, block));
+                expected.remove(key);
+            } else if (random.nextBoolean()) {
+                SeatBlock block = new SeatBlock(scores, 0, 0, 1);
+                table.put(key, block);
+                expected.put(key, block);
+            }
+            assertSame(expected.get(key), table.get(key));
+            assertEquals(expected.size(), table.size());
+        }
+        for (Map.Entry<Long, SeatBlock> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void remove_requiresValue() {
+        VenueScores scores = new VenueScores(new Venue(4, 1), (seat, row, venue) -> 1.0f);
+        BlockTable table = new BlockTable();
+        SeatBlock block = new SeatBlock(scores, 0, 0, 1);
+        table.put(1L, block);
+
+        assertFalse(table.remove(1L, new SeatBlock(scores, 0, 0, 1)));
+        assertFalse(table.remove(2L, block));
+        assertTrue(table.remove(1L, block));
+        assertNull(table.get(1L));
+    }
+}
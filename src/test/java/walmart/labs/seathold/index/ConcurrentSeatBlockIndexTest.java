@@ -0,0 +1,47 @@
+package walmart.labs.seathold.index;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentSeatBlockIndexTest {
+
+    @Test
+    void best_skipsSmallerBlocksOfTheSameSizeClass() {
+        // Scores decrease by row so the smaller blocks of the first rows are better than the one that fits.
+        VenueScores scores = new VenueScores(new Venue(20, 1001), (seat, row, venue) -> 1.0f - row / 2000.0f);
+        ConcurrentSeatBlockIndex index = new ConcurrentSeatBlockIndex(20);
+        for (int row = 0; row < 1000; row++) {
+            index.add(new SeatBlock(scores, row, 0, 4));
+        }
+        SeatBlock fits = new SeatBlock(scores, 1000, 0, 6);
+        index.add(fits);
+
+        assertEquals(1001, index.size());
+        assertSame(fits, index.best(5));
+        assertSame(fits, index.poll(6));
+        assertNull(index.best(5));
+        assertEquals(0, index.best(4).getRow());
+    }
+
+    @Test
+    void best_prefersLargerSizeClassWithBetterScore() {
+        final float[] rowScores = {.5f, .9f};
+        VenueScores scores = new VenueScores(new Venue(20, 2), (seat, row, venue) -> rowScores[row]);
+        ConcurrentSeatBlockIndex index = new ConcurrentSeatBlockIndex(20);
+        SeatBlock medium = new SeatBlock(scores, 0, 0, 5);
+        SeatBlock large = new SeatBlock(scores, 1, 0, 16);
+        index.add(medium);
+        index.add(large);
+
+        assertSame(large, index.best(5));
+        assertTrue(index.remove(large));
+        assertFalse(index.remove(large));
+        assertSame(medium, index.best(5));
+        assertNull(index.best(6));
+        assertNull(index.best(21));
+    }
+}
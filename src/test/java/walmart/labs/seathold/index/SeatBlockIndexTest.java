@@ -0,0 +1,240 @@
+package walmart.labs.seathold.index;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatBlockIndexTest {
+    private static final int seatsPerRow = 1000;
+    private static final int maxBlockSize = 25;
+    private static final int fragments = 40000;
+    private static final int lookups = 2000;
+    private static final int blocksPerRow = seatsPerRow / maxBlockSize;
+
+    /**
+     * Venue scores where every seat in each group of max block size seats shares a pseudo random score.
+     */
+    private static final VenueScores fragmentScores = new VenueScores(
+            new Venue(seatsPerRow, fragments / blocksPerRow), (seat, row, venue) -> {
+                long hash = (row * (long) blocksPerRow + seat / maxBlockSize) * 2654435761L;
+                return (float) ((hash >>> 8) % 100) / 100.0f;
+            });
+
+    @Test
+    void best_emptyIndex() {
+        SeatBlockIndex index = new SeatBlockIndex(10);
+        assertTrue(index.isEmpty());
+        assertNull(index.best(1));
+        assertNull(index.poll(5));
+    }
+
+    @Test
+    void best_largerThanMaxBlockSize() {
+        VenueScores scores = new VenueScores(new Venue(10, 2), (seat, row, venue) -> 1.0f);
+        SeatBlockIndex index = new SeatBlockIndex(4);
+        index.add(new SeatBlock(scores, 0, 0, 4));
+        assertNull(index.best(5));
+        assertThrows(IllegalArgumentException.class, () -> index.add(new SeatBlock(scores, 1, 0, 5)));
+    }
+
+    @Test
+    void best_smallestSufficientBlockIsNotRequired() {
+        final float[] rowScores = {.9f, .5f, .7f};
+        VenueScores scores = new VenueScores(new Venue(10, 3), (seat, row, venue) -> rowScores[row]);
+        SeatBlockIndex index = new SeatBlockIndex(10);
+        SeatBlock small = new SeatBlock(scores, 0, 0, 2);
+        SeatBlock medium = new SeatBlock(scores, 1, 0, 4);
+        SeatBlock large = new SeatBlock(scores, 2, 0, 8);
+        index.add(small);
+        index.add(medium);
+        index.add(large);
+
+        assertSame(small, index.best(1));
+        assertSame(large, index.best(3));
+        assertSame(large, index.best(8));
+        assertNull(index.best(9));
+
+        assertSame(large, index.poll(3));
+        assertSame(medium, index.best(3));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void best_tiesFavorFrontAndLeft() {
+        VenueScores scores = new VenueScores(new Venue(10, 2), (seat, row, venue) -> .75f);
+        SeatBlockIndex index = new SeatBlockIndex(10);
+        SeatBlock right = new SeatBlock(scores, 0, 5, 3);
+        SeatBlock left = new SeatBlock(scores, 0, 0, 3);
+        SeatBlock back = new SeatBlock(scores, 1, 0, 3);
+        index.add(back);
+        index.add(right);
+        index.add(left);
+
+        assertSame(left, index.poll(2));
+        assertSame(right, index.poll(2));
+        assertSame(back, index.poll(2));
+    }
+
+    @Test
+    void best_matchesFullScan() {
+        Random random = new Random(42);
+        SeatBlockIndex index = new SeatBlockIndex(maxBlockSize);
+        List<SeatBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            SeatBlock b = randomBlock(random, i);
+            blocks.add(b);
+            index.add(b);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            int numSeats = random.nextInt(maxBlockSize) + 1;
+            SeatBlock expected = null;
+            for (SeatBlock b : blocks) {
+                if (b.size() >= numSeats &&
+                        (expected == null || SeatBlockIndex.BEST_AVAILABLE.compare(b, expected) < 0)) {
+                    expected = b;
+                }
+            }
+            SeatBlock actual = index.poll(numSeats);
+            assertSame(expected, actual);
+            if (expected != null) {
+                blocks.remove(expected);
+            }
+        }
+        assertEquals(blocks.size(), index.size());
+    }
+
+    @Test
+    void iterator_bestAvailableOrder() {
+        Random random = new Random(7);
+        SeatBlockIndex index = new SeatBlockIndex(maxBlockSize);
+        for (int i = 0; i < 500; i++) {
+            index.add(randomBlock(random, i));
+        }
+
+        SeatBlock previous = null;
+        int count = 0;
+        for (SeatBlock b : index) {
+            if (previous != null) {
+                assertTrue(SeatBlockIndex.BEST_AVAILABLE.compare(previous, b) < 0);
+            }
+            previous = b;
+            count++;
+        }
+        assertEquals(index.size(), count);
+    }
+
+    @Test
+    void release_mergesAdjacentBlocks() {
+        VenueScores scores = new VenueScores(new Venue(10, 2), (seat, row, venue) -> 1.0f);
+        SeatBlockIndex index = new SeatBlockIndex(10);
+        index.add(new SeatBlock(scores, 0, 0, 3));
+        index.add(new SeatBlock(scores, 0, 6, 4));
+        index.add(new SeatBlock(scores, 1, 3, 2));
+        assertEquals(1.0 - 1.0 / 3, index.fragmentation(), 1e-9);
+
+        // A block without available neighbours is added as a copy, the released block is never modified.
+        SeatBlock released = new SeatBlock(scores, 1, 6, 1);
+        SeatBlock added = index.release(released);
+        assertNotSame(released, added);
+        assertEquals(1, added.getRow());
+        assertEquals(6, added.getFirstSeat());
+        assertEquals(1, added.size());
+        assertEquals(4, index.size());
+
+        // Merged with the blocks on both sides.
+        SeatBlock merged = index.release(new SeatBlock(scores, 0, 3, 3));
+        assertEquals(0, merged.getRow());
+        assertEquals(0, merged.getFirstSeat());
+        assertEquals(10, merged.size());
+        assertEquals(3, index.size());
+        assertSame(merged, index.best(10));
+
+        // Merged with the block on the left only, rows are never merged.
+        merged = index.release(new SeatBlock(scores, 1, 5, 1));
+        assertEquals(3, merged.getFirstSeat());
+        assertEquals(4, merged.size());
+        assertEquals(2, index.size());
+        assertEquals(14, index.getSeatCount());
+        assertEquals(0.0, index.fragmentation(), 1e-9);
+    }
+
+    @Test
+    void take_returnsRemainders() {
+        VenueScores scores = new VenueScores(new Venue(10, 2), new MiddleOutScorer());
+        SeatBlockIndex index = new SeatBlockIndex(10);
+        SeatBlock row = new SeatBlock(scores, 0, 0, 10);
+        index.add(row);
+
+        // The middle seats are taken, the removed block is reused for the left remainder.
+        assertEquals(4, index.take(row, 2));
+        assertEquals(2, index.size());
+        assertEquals(8, index.getSeatCount());
+        assertSame(row, index.find(0, 0));
+        assertEquals(4, row.size());
+        assertEquals(4, index.find(0, 6).size());
+
+        // The whole block is taken.
+        assertEquals(6, index.take(index.find(0, 6), 4));
+        assertEquals(1, index.size());
+        assertNull(index.find(0, 6));
+
+        assertThrows(IllegalArgumentException.class, () -> index.take(row, 5));
+        assertThrows(IllegalArgumentException.class, () -> index.take(new SeatBlock(scores, 1, 0, 2), 1));
+    }
+
+    /**
+     * Check the index against a linear scan for the best block on a heavily fragmented venue.  Each lookup takes the
+     * best block large enough for the request and returns a single remainder to the available blocks.
+     */
+    @Test
+    void fragmentedLookup_matchesLinearScan() {
+        Random random = new Random(1);
+        List<SeatBlock> blocks = new ArrayList<>(fragments);
+        for (int i = 0; i < fragments; i++) {
+            blocks.add(randomBlock(random, i));
+        }
+        SeatBlockIndex index = new SeatBlockIndex(maxBlockSize);
+        blocks.forEach(index::add);
+
+        for (int i = 0; i < lookups; i++) {
+            int numSeats = random.nextInt(maxBlockSize) + 1;
+            SeatBlock expected = null;
+            for (SeatBlock b : blocks) {
+                if (b.size() >= numSeats && (expected == null || SeatBlockIndex.BEST_AVAILABLE.compare(b, expected) < 0)) {
+                    expected = b;
+                }
+            }
+            SeatBlock actual = index.poll(numSeats);
+            if (expected == null) {
+                assertNull(actual);
+                continue;
+            }
+            assertEquals(expected.getRow(), actual.getRow());
+            assertEquals(expected.getFirstSeat(), actual.getFirstSeat());
+            assertEquals(expected.size(), actual.size());
+
+            blocks.remove(expected);
+            if (expected.size() > numSeats) {
+                blocks.add(remainder(expected, numSeats));
+                index.add(remainder(actual, numSeats));
+            }
+        }
+        assertEquals(blocks.size(), index.size());
+    }
+
+    private static SeatBlock randomBlock(Random random, int i) {
+        int size = random.nextInt(maxBlockSize) + 1;
+        return new SeatBlock(fragmentScores, i / blocksPerRow, (i % blocksPerRow) * maxBlockSize, size);
+    }
+
+    private static SeatBlock remainder(SeatBlock block, int used) {
+        return new SeatBlock(fragmentScores, block.getRow(), block.getFirstSeat() + used, block.size() - used);
+    }
+}
@@ -0,0 +1,153 @@
+package walmart.labs.seathold.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    private Path path;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        this.path = Files.createTempFile("journal", ".log");
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    void replay() throws IOException {
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            journal.hold(1, 1000L, 2, 3, 4, "email1@email.com");
+            journal.hold(2, 1001L, 5, 0, 1, "email2@email.com");
+            journal.reserve(1, 1002L);
+            long position = journal.expire(2, 1003L);
+            journal.awaitDurable(position);
+        }
+
+        List<String> records = replay(this.path);
+        assertEquals(4, records.size());
+        assertEquals("hold 1 1000 2 3 4 email1@email.com", records.get(0));
+        assertEquals("reserve 1 1002", records.get(2));
+        assertEquals("expire 2 1003", records.get(3));
+
+        // Reopening appends after the existing records.
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            journal.reserve(3, 1004L);
+        }
+        records = replay(this.path);
+        assertEquals(5, records.size());
+        assertEquals("reserve 3 1004", records.get(4));
+    }
+
+    @Test
+    void replay_acrossRegions() throws IOException {
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            for (int i = 1; i <= 200; i++) {
+                journal.hold(i, i, 0, i, 1, "email" + i + "@email.com");
+            }
+        }
+        assertTrue(Files.size(this.path) > 1024);
+
+        List<String> records = replay(this.path);
+        assertEquals(200, records.size());
+        assertEquals("hold 200 200 0 200 1 email200@email.com", records.get(199));
+    }
+
+    @Test
+    void replay_stopsAtTornRecord() throws IOException {
+        long position;
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            journal.reserve(1, 1L);
+            position = journal.getPosition();
+            journal.reserve(2, 2L);
+        }
+
+        // Corrupt the body of the second record.
+        try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+            file.seek(position + 10);
+            file.write(0xff);
+        }
+
+        assertEquals(1, replay(this.path).size());
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            // The torn record is overwritten.
+            assertEquals(position, journal.getPosition());
+        }
+    }
+
+    @Test
+    void replay_longEmail() throws IOException {
+        final StringBuilder email = new StringBuilder();
+        while (email.length() < 40000) {
+            email.append("\u00e9");
+        }
+        try (Journal journal = new Journal(this.path, 1024, 100)) {
+            journal.hold(1, 1000L, 2, 3, 4, email.toString());
+            journal.reserve(1, 1001L);
+        }
+
+        List<String> records = replay(this.path);
+        assertEquals(2, records.size());
+        assertEquals("hold 1 1000 2 3 4 " + email.substring(0, Journal.EMAIL_CAPACITY / 2), records.get(0));
+        assertEquals("reserve 1 1001", records.get(1));
+    }
+
+    @Test
+    void awaitDurable_failedForce() throws IOException {
+        final Journal journal = new Journal(this.path, 1024, 100) {
+            @Override
+            void force(MappedByteBuffer region) {
+                throw new UncheckedIOException(new IOException("Injected force failure"));
+            }
+        };
+        try {
+            final long position = journal.reserve(1, 1L);
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(position));
+            assertEquals("Injected force failure", e.getCause().getMessage());
+
+            // Later records are not acknowledged either.
+            final long next = journal.reserve(2, 2L);
+            assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(next));
+        } finally {
+            assertThrows(IOException.class, journal::close);
+        }
+    }
+
+    private static List<String> replay(Path path) throws IOException {
+        final List<String> records = new ArrayList<>();
+        try (Journal journal = new Journal(path, 1024, 100)) {
+            journal.replay(new Journal.Listener() {
+                @Override
+                public void hold(int holdId, long holdTime, int row, int firstSeat, int size, String email) {
+                    records.add(String.format("hold %d %d %d %d %d %s", holdId, holdTime, row, firstSeat, size,
+                            email));
+                }
+
+                @Override
+                public void reserve(int holdId, long time) {
+                    records.add(String.format("reserve %d %d", holdId, time));
+                }
+
+                @Override
+                public void expire(int holdId, long time) {
+                    records.add(String.format("expire %d %d", holdId, time));
+                }
+            });
+        }
+        return records;
+    }
+}
@@ -0,0 +1,43 @@
+package walmart.labs.seathold.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void buckets_areContiguous() {
+        for (int bucket = 0; bucket < 900; bucket++) {
+            long lowest = LatencyHistogram.lowestEquivalentValue(bucket);
+            long highest = LatencyHistogram.highestEquivalentValue(bucket);
+            assertEquals(bucket, LatencyHistogram.bucket(lowest));
+            assertEquals(bucket, LatencyHistogram.bucket(highest));
+            assertEquals(bucket + 1, LatencyHistogram.bucket(highest + 1));
+            // Each bucket is within about 6% of its values.
+            assertTrue(highest - lowest <= Math.max(0, lowest / 16));
+        }
+        assertTrue(LatencyHistogram.bucket(Long.MAX_VALUE) < 976);
+    }
+
+    @Test
+    void valueAtPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 0.001);
+
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+}
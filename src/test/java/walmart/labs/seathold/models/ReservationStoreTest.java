@@ -0,0 +1,56 @@
+package walmart.labs.seathold.models;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationStoreTest {
+
+    @Test
+    void lookups() {
+        Venue venue = new Venue(10, 5);
+        VenueScores scores = new VenueScores(venue, new MiddleOutScorer());
+        ReservationStore store = new ReservationStore(venue);
+        assertEquals(0, store.countReservedSeats(0, 5));
+        assertNull(store.getReservation(0, 0));
+
+        SeatBlock first = reservation(scores, 1, 2, 4, "email1@email.com");
+        SeatBlock second = reservation(scores, 3, 0, 10, "email2@email.com");
+        SeatBlock third = reservation(scores, 4, 9, 1, "email1@email.com");
+        store.add(first);
+        store.add(second);
+        store.add(third);
+
+        assertEquals(3, store.size());
+        assertSame(second, store.get(second.getId()));
+        assertNull(store.get(-1));
+
+        assertNull(store.getReservation(1, 1));
+        assertSame(first, store.getReservation(2, 1));
+        assertSame(first, store.getReservation(5, 1));
+        assertNull(store.getReservation(6, 1));
+        assertSame(third, store.getReservation(9, 4));
+
+        List<SeatHold> reservations = store.getReservations("email1@email.com");
+        assertEquals(2, reservations.size());
+        assertSame(first, reservations.get(0));
+        assertSame(third, reservations.get(1));
+        assertTrue(store.getReservations("email3@email.com").isEmpty());
+
+        assertEquals(15, store.countReservedSeats(0, 5));
+        assertEquals(4, store.countReservedSeats(0, 3));
+        assertEquals(10, store.countReservedSeats(2, 4));
+        assertEquals(1, store.countReservedSeats(4, 5));
+        assertEquals(0, store.countReservedSeats(2, 3));
+    }
+
+    private static SeatBlock reservation(VenueScores scores, int row, int firstSeat, int size, String email) {
+        SeatBlock block = new SeatBlock(scores, row, firstSeat, size);
+        block.hold(email);
+        return block;
+    }
+}
@@ -0,0 +1,50 @@
+package walmart.labs.seathold.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatHoldTest {
+
+    @Test
+    void defaultRanges() {
+        final List<Seat> seats = Arrays.asList(new Seat(3, 1, 1.0f), new Seat(4, 1, 1.0f), new Seat(5, 1, 1.0f),
+                new Seat(3, 2, 1.0f), new Seat(7, 2, 1.0f), new Seat(8, 2, 1.0f));
+        SeatHold hold = new SeatHold() {
+            @Override
+            public int getId() {
+                return 1;
+            }
+
+            @Override
+            public String getEmail() {
+                return "email@email.com";
+            }
+
+            @Override
+            public List<Seat> getSeats() {
+                return seats;
+            }
+
+            @Override
+            public int size() {
+                return seats.size();
+            }
+        };
+
+        assertEquals(3, hold.getRangeCount());
+        assertEquals(1, hold.getRow(0));
+        assertEquals(3, hold.getFirstSeat(0));
+        assertEquals(3, hold.getRangeSize(0));
+        assertEquals(2, hold.getRow(1));
+        assertEquals(3, hold.getFirstSeat(1));
+        assertEquals(1, hold.getRangeSize(1));
+        assertEquals(7, hold.getFirstSeat(2));
+        assertEquals(2, hold.getRangeSize(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> hold.getRow(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> hold.getRangeSize(-1));
+    }
+}
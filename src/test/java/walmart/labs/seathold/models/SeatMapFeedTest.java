@@ -0,0 +1,98 @@
+package walmart.labs.seathold.models;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatMapFeedTest {
+    private final Venue venue = new Venue(10, 2);
+    private final VenueScores scores = new VenueScores(this.venue, (seat, row, venue) -> 1.0f);
+
+    @Test
+    void since_returnsDeltasAfterVersion() {
+        SeatMapFeed feed = new SeatMapFeed(8);
+        feed.append(1, new SeatBlock(this.scores, 0, 0, 4), SeatStore.HELD);
+        feed.append(1, new SeatBlock(this.scores, 1, 2, 3), SeatStore.HELD);
+        feed.append(3, new SeatBlock(this.scores, 0, 0, 4), SeatStore.RESERVED);
+
+        SeatMapDeltas deltas = feed.since(1, 3);
+        assertEquals(1, deltas.getFromVersion());
+        assertEquals(3, deltas.getVersion());
+        assertEquals(1, deltas.size());
+        assertEquals(3, deltas.getVersion(0));
+        assertEquals(0, deltas.getRow(0));
+        assertEquals(0, deltas.getFirstSeat(0));
+        assertEquals(4, deltas.getRangeSize(0));
+        assertEquals(SeatStore.RESERVED, deltas.getState(0));
+
+        assertEquals(3, feed.since(0, 3).size());
+        assertEquals(0, feed.since(3, 4).size());
+        assertEquals(4, feed.since(3, 4).getVersion());
+    }
+
+    @Test
+    void since_futureVersion() {
+        SeatMapFeed feed = new SeatMapFeed(4);
+        assertEquals(0, feed.since(2, 2).size());
+        assertThrows(IllegalArgumentException.class, () -> feed.since(3, 2));
+    }
+
+    @Test
+    void since_afterEvictionRequiresNewSeatMap() {
+        SeatMapFeed feed = new SeatMapFeed(4);
+        for (int version = 1; version <= 6; version++) {
+            feed.append(version, new SeatBlock(this.scores, 0, version, 1), SeatStore.HELD);
+        }
+
+        // Versions 1 and 2 were replaced so only subscribers at version 2 or later can resume.
+        assertNull(feed.since(0, 6));
+        assertNull(feed.since(1, 6));
+        SeatMapDeltas deltas = feed.since(2, 6);
+        assertEquals(4, deltas.size());
+        assertEquals(3, deltas.getVersion(0));
+        assertEquals(6, deltas.getVersion(3));
+    }
+
+    @Test
+    void encode_decode() {
+        byte[] states = new byte[this.venue.getMaxSeats()];
+        states[3] = SeatStore.HELD;
+        states[4] = SeatStore.HELD;
+        states[12] = SeatStore.RESERVED;
+        SeatMap map = new SeatMap(this.venue, 0, 2, 7, states);
+
+        byte[] encoded = map.encode();
+        // The header and five runs of a state and a one byte length.
+        assertEquals(16 + 5 * 2, encoded.length);
+        SeatMap decoded = SeatMap.decode(this.venue, encoded);
+        assertEquals(7, decoded.getVersion());
+        for (int row = 0; row < 2; row++) {
+            for (int seat = 0; seat < 10; seat++) {
+                assertEquals(map.getState(seat, row), decoded.getState(seat, row));
+            }
+        }
+
+        Venue large = new Venue(1000, 1000);
+        SeatMap empty = new SeatMap(large, 0, 1000, 0, new byte[large.getMaxSeats()]);
+        assertEquals(16 + 4, empty.encode().length);
+        assertEquals(large.getMaxSeats(), SeatMap.decode(large, empty.encode()).count(SeatStore.AVAILABLE));
+    }
+
+    @Test
+    void apply() {
+        SeatMap map = new SeatMap(this.venue, 0, 2, 0, new byte[this.venue.getMaxSeats()]);
+        SeatMapFeed feed = new SeatMapFeed(8);
+        feed.append(1, new SeatBlock(this.scores, 1, 2, 3), SeatStore.HELD);
+        feed.append(2, new SeatBlock(this.scores, 1, 2, 3), SeatStore.AVAILABLE);
+        feed.append(2, new SeatBlock(this.scores, 0, 0, 2), SeatStore.HELD);
+
+        SeatMap applied = map.apply(feed.since(0, 2));
+        assertEquals(2, applied.getVersion());
+        assertEquals(2, applied.count(SeatStore.HELD));
+        assertEquals(SeatStore.HELD, applied.getState(1, 0));
+        assertEquals(SeatStore.AVAILABLE, applied.getState(2, 1));
+        assertEquals(0, map.count(SeatStore.HELD));
+        assertThrows(IllegalArgumentException.class, () -> map.apply(feed.since(1, 2)));
+    }
+}
@@ -0,0 +1,52 @@
+package walmart.labs.seathold.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatStateBitmapTest {
+
+    @Test
+    void set_acrossWords() {
+        Venue venue = new Venue(100, 2);
+        SeatStateBitmap bitmap = new SeatStateBitmap(venue);
+
+        bitmap.set(1, 30, 70, SeatStore.HELD);
+        for (int seat = 0; seat < 100; seat++) {
+            byte expected = seat >= 30 && seat < 70 ? SeatStore.HELD : SeatStore.AVAILABLE;
+            assertEquals(expected, bitmap.getState(seat, 1));
+            assertEquals(SeatStore.AVAILABLE, bitmap.getState(seat, 0));
+        }
+
+        bitmap.set(1, 30, 70, SeatStore.RESERVED);
+        assertEquals(SeatStore.RESERVED, bitmap.getState(64, 1));
+    }
+
+    @Test
+    void set_preservesNeighbours() {
+        Venue venue = new Venue(100, 1);
+        SeatStateBitmap bitmap = new SeatStateBitmap(venue);
+
+        bitmap.set(0, 20, 21, SeatStore.RESERVED);
+        bitmap.set(0, 21, 70, SeatStore.HELD);
+        for (int seat = 0; seat < 100; seat++) {
+            byte expected = seat == 20 ? SeatStore.RESERVED : seat > 20 && seat < 70 ? SeatStore.HELD :
+                    SeatStore.AVAILABLE;
+            assertEquals(expected, bitmap.getState(seat, 0));
+        }
+    }
+
+    @Test
+    void set_fullWord() {
+        Venue venue = new Venue(64, 1);
+        SeatStateBitmap bitmap = new SeatStateBitmap(venue);
+
+        bitmap.set(0, 0, 64, SeatStore.RESERVED);
+        assertEquals(SeatStore.RESERVED, bitmap.getState(0, 0));
+        assertEquals(SeatStore.RESERVED, bitmap.getState(63, 0));
+
+        bitmap.set(0, 0, 32, SeatStore.AVAILABLE);
+        assertEquals(SeatStore.AVAILABLE, bitmap.getState(31, 0));
+        assertEquals(SeatStore.RESERVED, bitmap.getState(32, 0));
+    }
+}
@@ -87,6 +87,32 @@ class MiddleOutScorerTest {
 //        assertEquals(.63f, scorer.calculateScore(7, 0, v));
     }
 
+    @Test
+    void scoreRow_evenRows() {
+        // Even rows are scored by the rising and falling loops.
+        for (Venue v : new Venue[]{new Venue(2, 1), new Venue(8, 4), new Venue(50, 4)}) {
+            assertScoreRow(v);
+        }
+    }
+
+    @Test
+    void scoreRow_oddRows() {
+        // Odd rows are scored seat by seat.
+        for (Venue v : new Venue[]{new Venue(1, 1), new Venue(7, 3), new Venue(51, 7)}) {
+            assertScoreRow(v);
+        }
+    }
+
+    private void assertScoreRow(Venue v) {
+        float[] scores = new float[v.getSeatsPerRow() + 2];
+        for (int row = 0; row < v.getRows(); row++) {
+            scorer.scoreRow(row, v, scores, 2);
+            for (int seat = 0; seat < v.getSeatsPerRow(); seat++) {
+                assertEquals(scorer.calculateScore(seat, row, v), scores[seat + 2]);
+            }
+        }
+    }
+
 //    char[][] seats = new char[cols][rows];
 //    PriorityQueue<SeatBlock> blocks = new PriorityQueue<>();
 //
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import walmart.labs.seathold.models.Venue;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class StandardScorerTest {
@@ -19,6 +20,7 @@ public class StandardScorerTest {
     void tearDown() {
         scorer = null;
     }
+
     @Test
     void calculateScore_8x4() {
         Venue v = new Venue(10, 10);
@@ -35,4 +37,25 @@ public class StandardScorerTest {
         assertEquals(.78f, scorer.calculateScore(8, 0, v));
         assertEquals(.76f, scorer.calculateScore(9, 0, v));
     }
+
+    @Test
+    void scoreRow_10x10() {
+        Venue v = new Venue(10, 10);
+        float[] scores = new float[12];
+        scores[0] = -1.0f;
+        scores[11] = -1.0f;
+
+        // assert row 1 is written after the offset and the entries around it are untouched.
+        scorer.scoreRow(0, v, scores, 1);
+        assertArrayEquals(new float[]{-1.0f, 1.0f, .95f, .92f, .88f, .86f, .83f, .81f, .79f, .78f, .76f, -1.0f},
+                scores);
+
+        // assert the hoisted row score of every row.
+        for (int row = 1; row < v.getRows(); row++) {
+            scorer.scoreRow(row, v, scores, 1);
+            for (int seat = 0; seat < v.getSeatsPerRow(); seat++) {
+                assertEquals(scorer.calculateScore(seat, row, v), scores[seat + 1]);
+            }
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package walmart.labs.seathold.scoring;
+
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.common.SeatHoldUtils;
+import walmart.labs.seathold.models.Venue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VenueScoresTest {
+
+    @Test
+    void getScore_matchesScorer() {
+        Venue v = new Venue(8, 4);
+        Scorer scorer = new MiddleOutScorer();
+        VenueScores scores = new VenueScores(v, scorer);
+
+        for (int row = 0; row < v.getRows(); row++) {
+            for (int seat = 0; seat < v.getSeatsPerRow(); seat++) {
+                assertEquals(scorer.calculateScore(seat, row, v), scores.getScore(seat, row));
+            }
+        }
+    }
+
+    @Test
+    void average_8x4() {
+        VenueScores scores = new VenueScores(new Venue(8, 4), new MiddleOutScorer());
+
+        assertEquals(1.0f, scores.average(0, 3, 5));
+        assertEquals(.75f, scores.average(0, 0, 3));
+        assertEquals(.75f, scores.average(0, 5, 8));
+        assertEquals(.69f, scores.average(1, 0, 8));
+    }
+
+    @Test
+    void bestStartingSeat_8x4() {
+        VenueScores scores = new VenueScores(new Venue(8, 4), new MiddleOutScorer());
+
+        assertEquals(3, scores.bestStartingSeat(0, 0, 8, 2));
+        assertEquals(1, scores.bestStartingSeat(0, 0, 3, 2));
+        assertEquals(5, scores.bestStartingSeat(0, 5, 8, 2));
+        // Equal windows favor the left most.
+        assertEquals(2, scores.bestStartingSeat(0, 0, 8, 4));
+        assertEquals(0, scores.bestStartingSeat(0, 0, 8, 8));
+    }
+
+    @Test
+    void bestStartingSeat_matchesFullScan() {
+        Venue v = new Venue(1000, 3);
+        VenueScores scores = new VenueScores(v, new StandardScorer());
+
+        for (int size = 1; size <= 25; size++) {
+            int expected = 0;
+            float max = 0.0f;
+            for (int i = 0; i <= v.getSeatsPerRow() - size; i++) {
+                float sum = 0.0f;
+                for (int j = i; j < i + size; j++) {
+                    sum += scores.getScore(j, 2);
+                }
+                if (SeatHoldUtils.round(sum / size) > max) {
+                    max = SeatHoldUtils.round(sum / size);
+                    expected = i;
+                }
+            }
+            assertEquals(expected, scores.bestStartingSeat(2, 0, v.getSeatsPerRow(), size));
+        }
+    }
+
+    @Test
+    void construct_parallelMatchesSequential() {
+        Venue v = new Venue(300, 200);
+        Scorer scorer = new MiddleOutScorer();
+        VenueScores sequential = new VenueScores(v, scorer);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            VenueScores parallel = new VenueScores(v, scorer, pool);
+            for (int row = 0; row < v.getRows(); row++) {
+                for (int seat = 0; seat < v.getSeatsPerRow(); seat++) {
+                    assertEquals(sequential.getScore(seat, row), parallel.getScore(seat, row));
+                }
+                assertEquals(sequential.sum(row, 0, v.getSeatsPerRow()), parallel.sum(row, 0, v.getSeatsPerRow()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
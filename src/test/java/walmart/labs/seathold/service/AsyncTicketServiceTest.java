@@ -0,0 +1,107 @@
+package walmart.labs.seathold.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.models.Seat;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTicketServiceTest {
+    private static final String EMAIL1 = "email1@email.com";
+
+    private TicketServiceImpl service;
+    private AsyncTicketService async;
+
+    @AfterEach
+    void afterEach() {
+        if (this.async != null) {
+            this.async.shutdown();
+        }
+        if (this.service != null) {
+            this.service.shutdown();
+        }
+    }
+
+    @Test
+    void findAndHoldSeats_thenReserve() throws Exception {
+        Venue venue = new Venue(10, 10);
+        this.service = new TicketServiceImpl(venue, new MiddleOutScorer());
+        this.async = new AsyncTicketService(this.service);
+
+        String confirmation = this.async.findAndHoldSeats(4, EMAIL1)
+                .thenCompose(hold -> this.async.reserveSeats(hold.getId(), EMAIL1))
+                .get(10, TimeUnit.SECONDS);
+        assertNotNull(confirmation);
+        assertEquals(venue.getMaxSeats() - 4, this.async.numSeatsAvailable());
+
+        // Failures complete the future exceptionally.
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> this.async.reserveSeats(Integer.parseInt(confirmation), EMAIL1).get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof NoSuchSeatHoldException);
+
+        // Requests that cannot be fulfilled complete with null.
+        assertNull(this.async.findAndHoldSeats(11, EMAIL1).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void findAndHoldSeats_rejectingCompletionExecutor() throws Exception {
+        Venue venue = new Venue(10, 10);
+        this.service = new TicketServiceImpl(venue, new MiddleOutScorer());
+        ExecutorService completions = Executors.newSingleThreadExecutor();
+        completions.shutdown();
+        this.async = new AsyncTicketService(this.service, completions);
+
+        // The futures are completed on the writer thread, which keeps serving requests.
+        SeatHold hold = this.async.findAndHoldSeats(4, EMAIL1).get(10, TimeUnit.SECONDS);
+        assertNotNull(hold);
+        assertEquals(String.valueOf(hold.getId()),
+                this.async.reserveSeats(hold.getId(), EMAIL1).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void findAndHoldSeats_manyCallers() throws Exception {
+        // Rows of two seats so every request is an exact match.
+        Venue venue = new Venue(2, 5000);
+        this.service = new TicketServiceImpl(venue, new MiddleOutScorer());
+        ExecutorService completions = Executors.newFixedThreadPool(2);
+        this.async = new AsyncTicketService(this.service, completions);
+
+        try {
+            // Far more outstanding requests than threads.
+            List<CompletableFuture<SeatHold>> futures = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                futures.add(this.async.findAndHoldSeats(2, EMAIL1));
+            }
+
+            Set<Seat> seats = new HashSet<>();
+            for (CompletableFuture<SeatHold> future : futures) {
+                SeatHold hold = future.get(30, TimeUnit.SECONDS);
+                assertNotNull(hold);
+                for (Seat seat : hold.getSeats()) {
+                    assertTrue(seats.add(seat));
+                }
+            }
+            assertEquals(0, this.async.numSeatsAvailable());
+        } finally {
+            completions.shutdownNow();
+        }
+    }
+
+    @Test
+    void shutdown_rejectsRequests() {
+        this.service = new TicketServiceImpl(new Venue(10, 10), new MiddleOutScorer());
+        this.async = new AsyncTicketService(this.service);
+        this.async.shutdown();
+
+        CompletableFuture<SeatHold> future = this.async.findAndHoldSeats(2, EMAIL1);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+}
@@ -0,0 +1,93 @@
+package walmart.labs.seathold.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.StandardScorer;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRegistryTest {
+    private static final String EMAIL1 = "email1@email.com";
+
+    private EventRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        this.registry = new EventRegistry(60000);
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.registry.shutdown();
+    }
+
+    @Test
+    void events_shareTemplates() {
+        Venue venue = new Venue(10, 5);
+        MiddleOutScorer middleOut = new MiddleOutScorer();
+        TicketServiceImpl matinee = this.registry.createEvent("matinee", venue, middleOut);
+        TicketServiceImpl evening = this.registry.createEvent("evening", new Venue(10, 5), middleOut);
+        TicketServiceImpl other = this.registry.createEvent("other", venue, new StandardScorer());
+
+        assertSame(matinee.getScores(), evening.getScores());
+        assertNotSame(matinee.getScores(), other.getScores());
+        assertEquals(2, this.registry.getTemplateCount());
+        assertEquals(3, this.registry.getEventCount());
+        assertSame(evening, this.registry.getEvent("evening"));
+        assertThrows(IllegalArgumentException.class, () -> this.registry.createEvent("matinee", venue, middleOut));
+
+        // Each event has its own seat states.
+        SeatHold hold = matinee.findAndHoldSeats(10, EMAIL1);
+        assertEquals(40, matinee.numSeatsAvailable());
+        assertEquals(50, evening.numSeatsAvailable());
+        matinee.reserveSeats(hold.getId(), EMAIL1);
+        assertNotNull(evening.findAndHoldSeats(10, EMAIL1));
+
+        // The template is released with its last event.
+        assertTrue(this.registry.removeEvent("other"));
+        assertFalse(this.registry.removeEvent("other"));
+        assertEquals(1, this.registry.getTemplateCount());
+        assertNull(this.registry.getEvent("other"));
+        assertEquals(2, this.registry.getEventIds().size());
+    }
+
+    @Test
+    void events_shareScheduler() throws Exception {
+        EventRegistry registry = new EventRegistry(50);
+        try {
+            MiddleOutScorer scorer = new MiddleOutScorer();
+            TicketServiceImpl first = registry.createEvent("first", new Venue(10, 1), scorer);
+            TicketServiceImpl second = registry.createEvent("second", new Venue(10, 1), scorer);
+            assertNotNull(first.findAndHoldSeats(10, EMAIL1));
+            assertNotNull(second.findAndHoldSeats(4, EMAIL1));
+
+            // Removing an event cancels its expirations without stopping the other events.
+            registry.removeEvent("first");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (second.numSeatsAvailable() != 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(10, second.numSeatsAvailable());
+            assertEquals(0, first.numSeatsAvailable());
+            assertEquals(Collections.singleton("second"), registry.getEventIds());
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void removeEvent_holdsCanStillBeReserved() {
+        TicketServiceImpl event = this.registry.createEvent("event", new Venue(10, 1), new MiddleOutScorer());
+        SeatHold hold = event.findAndHoldSeats(4, EMAIL1);
+        assertTrue(this.registry.removeEvent("event"));
+
+        assertEquals(String.valueOf(hold.getId()), event.reserveSeats(hold.getId(), EMAIL1));
+        assertEquals(6, event.numSeatsAvailable());
+    }
+}
@@ -0,0 +1,168 @@
+package walmart.labs.seathold.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.models.Seat;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.SeatStore;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.Scorer;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticTicketServiceTest {
+    private static final String EMAIL1 = "email1@email.com";
+    private static final String EMAIL2 = "email2@email.com";
+    private static final Scorer scorer = new MiddleOutScorer();
+
+    private OptimisticTicketService service;
+    private TicketServiceImpl reference;
+
+    @AfterEach
+    void afterEach() {
+        if (this.service != null) {
+            this.service.shutdown();
+        }
+        if (this.reference != null) {
+            this.reference.shutdown();
+        }
+    }
+
+    @Test
+    void findAndHoldSeats_matchesTicketServiceImpl() {
+        Venue venue = new Venue(30, 20);
+        this.service = new OptimisticTicketService(venue, scorer, 60000);
+        this.reference = new TicketServiceImpl(venue, scorer, 60000);
+
+        Random random = new Random(7);
+        while (true) {
+            int numSeats = random.nextInt(8) + 1;
+            SeatBlock expected = (SeatBlock) this.reference.findAndHoldSeats(numSeats, EMAIL1);
+            SeatBlock actual = (SeatBlock) this.service.findAndHoldSeats(numSeats, EMAIL1);
+            if (expected == null) {
+                assertNull(actual);
+                break;
+            }
+            assertNotNull(actual);
+            assertEquals(expected.getRow(), actual.getRow());
+            assertEquals(expected.getFirstSeat(), actual.getFirstSeat());
+            assertEquals(this.reference.numSeatsAvailable(), this.service.numSeatsAvailable());
+            for (Seat seat : actual.getSeats()) {
+                assertEquals(SeatStore.HELD, this.service.getState(seat.getSeat(), seat.getRow()));
+            }
+        }
+    }
+
+    @Test
+    void findAndHoldSeats_invalidNumSeats() {
+        Venue venue = new Venue(10, 1);
+        this.service = new OptimisticTicketService(venue, scorer, 60000);
+
+        assertThrows(IllegalArgumentException.class, () -> this.service.findAndHoldSeats(0, EMAIL1));
+        assertThrows(IllegalArgumentException.class, () -> this.service.findAndHoldSeats(-3, EMAIL1));
+
+        // No seats were lost.
+        assertEquals(10, this.service.numSeatsAvailable());
+        assertNotNull(this.service.findAndHoldSeats(10, EMAIL1));
+    }
+
+    @Test
+    void reserveSeats() {
+        Venue venue = new Venue(10, 10);
+        this.service = new OptimisticTicketService(venue, scorer, 60000);
+
+        SeatHold hold = this.service.findAndHoldSeats(4, EMAIL1);
+        assertThrows(SecurityException.class, () -> this.service.reserveSeats(hold.getId(), EMAIL2));
+        assertEquals(String.valueOf(hold.getId()), this.service.reserveSeats(hold.getId(), EMAIL1));
+        assertThrows(NoSuchSeatHoldException.class, () -> this.service.reserveSeats(hold.getId(), EMAIL1));
+
+        for (Seat seat : hold.getSeats()) {
+            assertEquals(SeatStore.RESERVED, this.service.getState(seat.getSeat(), seat.getRow()));
+        }
+        assertEquals(venue.getMaxSeats() - 4, this.service.numSeatsAvailable());
+    }
+
+    @Test
+    void holdTimeout() throws InterruptedException {
+        Venue venue = new Venue(10, 10);
+        this.service = new OptimisticTicketService(venue, scorer, 200);
+
+        SeatHold expired = this.service.findAndHoldSeats(5, EMAIL1);
+        Thread.sleep(100);
+        SeatHold reserved = this.service.findAndHoldSeats(5, EMAIL1);
+        this.service.reserveSeats(reserved.getId(), EMAIL1);
+        assertEquals(90, this.service.numSeatsAvailable());
+
+        Thread.sleep(400);
+        assertEquals(95, this.service.numSeatsAvailable());
+        assertThrows(NoSuchSeatHoldException.class, () -> this.service.reserveSeats(expired.getId(), EMAIL1));
+        for (Seat seat : expired.getSeats()) {
+            assertEquals(SeatStore.AVAILABLE, this.service.getState(seat.getSeat(), seat.getRow()));
+        }
+
+        // The released seats are the best available and can be held again.
+        SeatBlock again = (SeatBlock) this.service.findAndHoldSeats(5, EMAIL1);
+        assertEquals(((SeatBlock) expired).getRow(), again.getRow());
+        assertEquals(((SeatBlock) expired).getFirstSeat(), again.getFirstSeat());
+    }
+
+    @Test
+    void holdTimeout_mergesExpiredSeats() throws InterruptedException {
+        Venue venue = new Venue(10, 1);
+        this.service = new OptimisticTicketService(venue, scorer, 100);
+
+        // Holding the middle seats leaves a block on either side.
+        SeatBlock hold = (SeatBlock) this.service.findAndHoldSeats(4, EMAIL1);
+        assertTrue(hold.getFirstSeat() > 0);
+        assertNull(this.service.findAndHoldSeats(10, EMAIL1));
+
+        Thread.sleep(400);
+        assertEquals(10, this.service.numSeatsAvailable());
+        SeatHold row = this.service.findAndHoldSeats(10, EMAIL1);
+        assertNotNull(row);
+        assertEquals(10, row.getSeats().size());
+    }
+
+    @Test
+    void findAndHoldSeats_concurrent() throws Exception {
+        Venue venue = new Venue(100, 200);
+        this.service = new OptimisticTicketService(venue, scorer, 60000);
+
+        final Set<Seat> heldSeats = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    int held = 0;
+                    SeatHold hold;
+                    while ((hold = this.service.findAndHoldSeats(ThreadLocalRandom.current().nextInt(1, 5),
+                            EMAIL1)) != null || this.service.numSeatsAvailable() > 0) {
+                        if (hold != null) {
+                            for (Seat s : hold.getSeats()) {
+                                assertTrue(heldSeats.add(s));
+                            }
+                            held += hold.size();
+                        }
+                    }
+                    return held;
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> f : futures) {
+                total += f.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(venue.getMaxSeats(), total);
+            assertEquals(venue.getMaxSeats(), heldSeats.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
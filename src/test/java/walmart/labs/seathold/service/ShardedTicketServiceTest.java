@@ -0,0 +1,130 @@
+package walmart.labs.seathold.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.models.Seat;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.Scorer;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTicketServiceTest {
+    private static final String EMAIL1 = "email1@email.com";
+    private static final Scorer scorer = new MiddleOutScorer();
+
+    private ShardedTicketService service;
+    private TicketServiceImpl reference;
+
+    @AfterEach
+    void afterEach() {
+        if (this.service != null) {
+            this.service.shutdown();
+        }
+        if (this.reference != null) {
+            this.reference.shutdown();
+        }
+    }
+
+    @Test
+    void numSeatsAvailable() {
+        Venue venue = new Venue(10, 7);
+        this.service = new ShardedTicketService(venue, scorer, 3, 60000, 0.0f);
+        assertEquals(3, this.service.getShardCount());
+        assertEquals(venue.getMaxSeats(), this.service.numSeatsAvailable());
+
+        SeatHold hold = this.service.findAndHoldSeats(4, EMAIL1);
+        assertNotNull(hold);
+        assertEquals(venue.getMaxSeats() - 4, this.service.numSeatsAvailable());
+    }
+
+    @Test
+    void moreShardsThanRows() {
+        Venue venue = new Venue(10, 2);
+        this.service = new ShardedTicketService(venue, scorer, 8, 60000, 0.0f);
+        assertEquals(2, this.service.getShardCount());
+        assertEquals(venue.getMaxSeats(), this.service.numSeatsAvailable());
+    }
+
+    @Test
+    void findAndHoldSeats_matchesUnshardedScores() {
+        Venue venue = new Venue(50, 100);
+        this.service = new ShardedTicketService(venue, scorer, 4, 60000, 0.0f);
+        this.reference = new TicketServiceImpl(venue, scorer, 60000);
+
+        Random random = new Random(3);
+        while (true) {
+            int numSeats = random.nextInt(10) + 1;
+            SeatBlock expected = (SeatBlock) this.reference.findAndHoldSeats(numSeats, EMAIL1);
+            SeatBlock actual = (SeatBlock) this.service.findAndHoldSeats(numSeats, EMAIL1);
+            if (expected == null) {
+                assertNull(actual);
+                break;
+            }
+            assertNotNull(actual);
+            assertEquals(expected.getScore(), actual.getScore());
+            assertEquals(this.reference.numSeatsAvailable(), this.service.numSeatsAvailable());
+        }
+    }
+
+    @Test
+    void reserveSeats() {
+        Venue venue = new Venue(10, 8);
+        this.service = new ShardedTicketService(venue, scorer, 4, 60000, 0.0f);
+
+        List<SeatHold> holds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            holds.add(this.service.findAndHoldSeats(10, EMAIL1));
+        }
+        assertEquals(0, this.service.numSeatsAvailable());
+
+        Set<String> confirmations = new HashSet<>();
+        for (SeatHold hold : holds) {
+            assertTrue(confirmations.add(this.service.reserveSeats(hold.getId(), EMAIL1)));
+        }
+        assertThrows(NoSuchSeatHoldException.class, () -> this.service.reserveSeats(holds.get(0).getId(), EMAIL1));
+    }
+
+    @Test
+    void findAndHoldSeats_concurrent() throws Exception {
+        Venue venue = new Venue(100, 200);
+        this.service = new ShardedTicketService(venue, scorer, 8, 60000, ShardedTicketService.DEFAULT_TOLERANCE);
+
+        final Set<Seat> heldSeats = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    int held = 0;
+                    SeatHold hold;
+                    while ((hold = this.service.findAndHoldSeats(ThreadLocalRandom.current().nextInt(1, 5),
+                            EMAIL1)) != null || this.service.numSeatsAvailable() > 0) {
+                        if (hold != null) {
+                            for (Seat s : hold.getSeats()) {
+                                assertTrue(heldSeats.add(s));
+                            }
+                            held += hold.size();
+                        }
+                    }
+                    return held;
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> f : futures) {
+                total += f.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(venue.getMaxSeats(), total);
+            assertEquals(venue.getMaxSeats(), heldSeats.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
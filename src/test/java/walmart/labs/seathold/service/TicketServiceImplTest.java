@@ -4,14 +4,35 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.audit.AuditLog;
 import walmart.labs.seathold.scoring.MiddleOutScorer;
 import walmart.labs.seathold.scoring.StandardScorer;
 import walmart.labs.seathold.errors.NoSuchSeatHoldException;
+import walmart.labs.seathold.journal.Journal;
+import walmart.labs.seathold.metrics.FailureReason;
+import walmart.labs.seathold.metrics.TicketServiceMetrics;
+import walmart.labs.seathold.models.FragmentedSeatHold;
+import walmart.labs.seathold.models.HoldRequest;
+import walmart.labs.seathold.models.ReserveRequest;
 import walmart.labs.seathold.models.Seat;
 import walmart.labs.seathold.models.SeatHold;
+import walmart.labs.seathold.models.SeatMap;
+import walmart.labs.seathold.models.SeatMapDeltas;
+import walmart.labs.seathold.models.SeatMapFeed;
+import walmart.labs.seathold.models.SeatStore;
 import walmart.labs.seathold.models.Venue;
-
+import walmart.labs.seathold.snapshot.Snapshot;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -198,6 +219,454 @@ class TicketServiceImplTest {
         assertEquals(venue.getMaxSeats(), service.numSeatsAvailable());
     }
 
+    @Test
+    void findAndHoldSeatsBatch() {
+        Venue venue = new Venue(10, 3);
+        this.service = new TicketServiceImpl(venue, this.scorer);
+        TicketService reference = new TicketServiceImpl(venue, this.scorer);
+        try {
+            List<HoldRequest> requests = Arrays.asList(new HoldRequest(4, EMAIL1), new HoldRequest(0, EMAIL1),
+                    new HoldRequest(11, EMAIL1), new HoldRequest(10, EMAIL1), new HoldRequest(6, EMAIL1));
+            List<BatchResult<SeatHold>> results = this.service.findAndHoldSeatsBatch(requests);
+            assertEquals(requests.size(), results.size());
+
+            // Invalid requests fail, requests that cannot be fulfilled succeed without a hold.
+            assertFalse(results.get(1).isSuccess());
+            assertTrue(results.get(1).getError() instanceof IllegalArgumentException);
+            assertTrue(results.get(2).isSuccess());
+            assertNull(results.get(2).getValue());
+
+            // The remaining requests are fulfilled in order exactly as single requests would be.
+            for (int i : new int[]{0, 3, 4}) {
+                SeatHold expected = reference.findAndHoldSeats(requests.get(i).getNumSeats(), EMAIL1);
+                SeatHold actual = results.get(i).get();
+                assertSeatHold(actual, EMAIL1);
+                assertEquals(expected.getSeats(), actual.getSeats());
+            }
+            assertEquals(reference.numSeatsAvailable(), this.service.numSeatsAvailable());
+        } finally {
+            ((TicketServiceImpl) reference).shutdown();
+        }
+    }
+
+    @Test
+    void reserveSeatsBatch() {
+        Venue venue = new Venue(10, 3);
+        this.service = new TicketServiceImpl(venue, this.scorer);
+        SeatHold hold1 = this.service.findAndHoldSeats(3, EMAIL1);
+        SeatHold hold2 = this.service.findAndHoldSeats(3, EMAIL1);
+
+        List<BatchResult<String>> results = this.service.reserveSeatsBatch(Arrays.asList(
+                new ReserveRequest(hold1.getId(), EMAIL1), new ReserveRequest(hold1.getId(), EMAIL1),
+                new ReserveRequest(hold2.getId(), "other@email.com"), new ReserveRequest(hold2.getId(), EMAIL1)));
+
+        assertEquals(String.valueOf(hold1.getId()), results.get(0).get());
+        assertTrue(results.get(1).getError() instanceof NoSuchSeatHoldException);
+        assertTrue(results.get(2).getError() instanceof SecurityException);
+        assertEquals(String.valueOf(hold2.getId()), results.get(3).get());
+    }
+
+    @Test
+    void findAndHoldSeats_invalidNumSeats() {
+        Venue venue = new Venue(4, 1);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000);
+        this.service = service;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.findAndHoldSeats(0, EMAIL1));
+        assertEquals("Number of seats is not valid: 0", e.getMessage());
+
+        // The number of seats is validated even once the venue is sold out.
+        assertNotNull(service.findAndHoldSeats(4, EMAIL1));
+        assertThrows(IllegalArgumentException.class, () -> service.findAndHoldSeats(-1, EMAIL1));
+        assertEquals(2, service.getMetrics().getFailures(FailureReason.INVALID_REQUEST));
+    }
+
+    @Test
+    void metrics() throws Exception {
+        Venue venue = new Venue(10, 2);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 200);
+        this.service = service;
+        TicketServiceMetrics metrics = service.getMetrics();
+
+        SeatHold hold = service.findAndHoldSeats(4, EMAIL1);
+        service.findAndHoldSeats(4, EMAIL1);
+        assertNull(service.findAndHoldSeats(30, EMAIL1));
+        assertNull(service.findAndHoldSeats(11, EMAIL1));
+        service.reserveSeats(hold.getId(), EMAIL1);
+        assertThrows(NoSuchSeatHoldException.class, () -> service.reserveSeats(hold.getId(), EMAIL1));
+
+        assertEquals(2, metrics.getHolds());
+        assertEquals(1, metrics.getReservations());
+        assertEquals(1, metrics.getFailures(FailureReason.NOT_ENOUGH_SEATS));
+        assertEquals(1, metrics.getFailures(FailureReason.NO_CONTIGUOUS_BLOCK));
+        assertEquals(1, metrics.getFailures(FailureReason.NO_SUCH_HOLD));
+        assertEquals(4, metrics.getHoldLatency().getCount());
+        assertEquals(2, metrics.getReserveLatency().getCount());
+        assertEquals(6, metrics.getLockHold().getCount());
+
+        // Both rows have been split around the held seats.
+        assertEquals(4, metrics.getFreeBlockCount());
+
+        // The remaining hold expires.
+        Thread.sleep(500);
+        assertEquals(1, metrics.getExpirations());
+        assertEquals(1, metrics.getExpiryLag().getCount());
+
+        metrics.register("metrics-test");
+        try {
+            ObjectName name = new ObjectName("walmart.labs.seathold:type=TicketService,name=\"metrics-test\"");
+            assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Holds"));
+        } finally {
+            service.shutdown();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                new ObjectName("walmart.labs.seathold:type=TicketService,name=\"metrics-test\"")));
+    }
+
+    @Test
+    void journal_restore() throws Exception {
+        Venue venue = new Venue(10, 3);
+        Path path = Files.createTempFile("journal", ".log");
+        try {
+            SeatHold reserved;
+            SeatHold pending;
+            SeatHold expired;
+            try (Journal journal = new Journal(path)) {
+                TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000, null, journal);
+                reserved = service.findAndHoldSeats(10, EMAIL1);
+                pending = service.findAndHoldSeats(4, EMAIL1);
+                expired = service.findAndHoldSeats(3, EMAIL1);
+                service.reserveSeats(reserved.getId(), EMAIL1);
+                service.removeHolds(Collections.singleton(expired.getId()));
+                service.shutdown();
+            }
+
+            // A new service restores the reservation and the pending hold.
+            try (Journal journal = new Journal(path)) {
+                TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000, null, journal);
+                this.service = service;
+                assertEquals(venue.getMaxSeats() - 14, service.numSeatsAvailable());
+                assertThrows(NoSuchSeatHoldException.class, () -> service.reserveSeats(reserved.getId(), EMAIL1));
+                assertThrows(NoSuchSeatHoldException.class, () -> service.reserveSeats(expired.getId(), EMAIL1));
+                assertEquals(String.valueOf(pending.getId()), service.reserveSeats(pending.getId(), EMAIL1));
+                assertEquals(2, service.getReservations().getReservations(EMAIL1).size());
+                assertEquals(14, service.getReservations().countReservedSeats(0, venue.getRows()));
+
+                // The expired seats are available again and new holds do not reuse ids.
+                SeatHold hold = service.findAndHoldSeats(6, EMAIL1);
+                assertNotNull(hold);
+                assertTrue(hold.getId() > expired.getId());
+                assertEquals(venue.getMaxSeats() - 20, service.numSeatsAvailable());
+                service.shutdown();
+                this.service = null;
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void removeHolds_coalesces() {
+        Venue venue = new Venue(20, 1);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer);
+        this.service = service;
+        SeatHold middle = service.findAndHoldSeats(4, EMAIL1);
+        SeatHold other = service.findAndHoldSeats(6, EMAIL1);
+        assertEquals(2, service.getMetrics().getFreeBlockCount());
+        assertTrue(service.getMetrics().getFragmentation() > 0);
+
+        service.removeHolds(Collections.singleton(middle.getId()));
+        service.removeHolds(Collections.singleton(other.getId()));
+
+        // The row is a single block again and the largest party can be seated.
+        assertEquals(1, service.getMetrics().getFreeBlockCount());
+        assertEquals(0.0, service.getMetrics().getFragmentation());
+        assertNotNull(service.findAndHoldSeats(20, EMAIL1));
+    }
+
+    @Test
+    void findAndHoldSeats_fragmented() throws Exception {
+        Venue venue = new Venue(10, 3);
+        Path path = Files.createTempFile("journal", ".log");
+        try {
+            SeatHold hold;
+            try (Journal journal = new Journal(path)) {
+                TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000, null, journal);
+                // Leave two blocks of two seats in each row.
+                for (int row = 0; row < venue.getRows(); row++) {
+                    assertNotNull(service.findAndHoldSeats(6, EMAIL1));
+                }
+                assertNull(service.findAndHoldSeats(5, EMAIL1));
+
+                // A budget of one row is not enough to find five seats.
+                service.setFragmentSearchBudget(10);
+                assertNull(service.findAndHoldSeats(5, EMAIL1));
+
+                service.setFragmentSearchBudget(30);
+                hold = service.findAndHoldSeats(5, EMAIL1);
+                assertTrue(hold instanceof FragmentedSeatHold);
+                assertEquals(5, hold.size());
+                assertEquals(5, hold.getSeats().size());
+                assertEquals(EMAIL1, hold.getEmail());
+                assertEquals(7, service.numSeatsAvailable());
+
+                // The seat view walks the ranges of the hold in order.
+                assertTrue(hold.getRangeCount() > 1);
+                int index = 0;
+                for (int range = 0; range < hold.getRangeCount(); range++) {
+                    for (int i = 0; i < hold.getRangeSize(range); i++, index++) {
+                        assertEquals(hold.getRow(range), hold.getSeats().get(index).getRow());
+                        assertEquals(hold.getFirstSeat(range) + i, hold.getSeats().get(index).getSeat());
+                    }
+                }
+                assertEquals(5, index);
+
+                // Expiring the hold returns every block.
+                service.removeHolds(Collections.singleton(hold.getId()));
+                assertEquals(12, service.numSeatsAvailable());
+                hold = service.findAndHoldSeats(5, EMAIL1);
+                assertNotNull(hold);
+                service.shutdown();
+            }
+
+            // The blocks of the hold are restored as one hold.
+            try (Journal journal = new Journal(path)) {
+                TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000, null, journal);
+                this.service = service;
+                assertEquals(7, service.numSeatsAvailable());
+                assertEquals(String.valueOf(hold.getId()), service.reserveSeats(hold.getId(), EMAIL1));
+                assertEquals(5, service.getReservations().get(hold.getId()).size());
+                assertEquals(5, service.getReservations().countReservedSeats(0, venue.getRows()));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void auditLog() throws Exception {
+        Path path = Files.createTempFile("audit", ".log");
+        Files.delete(path);
+        try {
+            TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), this.scorer);
+            this.service = service;
+            SeatHold reserved;
+            SeatHold expired;
+            try (AuditLog auditLog = new AuditLog(path)) {
+                service.setAuditLog(auditLog);
+                reserved = service.findAndHoldSeats(4, EMAIL1);
+                expired = service.findAndHoldSeats(2, EMAIL1);
+                service.reserveSeats(reserved.getId(), EMAIL1);
+                service.removeHolds(Collections.singleton(expired.getId()));
+            }
+
+            List<String> records = new ArrayList<>();
+            AuditLog.read(path, (type, time, holdId, row, firstSeat, seats, email, truncated) ->
+                    records.add(type + ":" + holdId + ":" + seats + ":" + email));
+            assertEquals(Arrays.asList(
+                    AuditLog.HOLD + ":" + reserved.getId() + ":4:" + EMAIL1,
+                    AuditLog.HOLD + ":" + expired.getId() + ":2:" + EMAIL1,
+                    AuditLog.RESERVE + ":" + reserved.getId() + ":4:" + EMAIL1,
+                    AuditLog.EXPIRE + ":" + expired.getId() + ":2:" + EMAIL1), records);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void snapshot_awaitsDurableJournal() throws Exception {
+        Path journalPath = Files.createTempFile("journal", ".log");
+        final long[] durable = new long[1];
+        try (Journal journal = new Journal(journalPath) {
+            @Override
+            public void awaitDurable(long position) {
+                super.awaitDurable(position);
+                durable[0] = Math.max(durable[0], position);
+            }
+        }) {
+            TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 3), this.scorer, 60000, null, journal);
+            this.service = service;
+            service.findAndHoldSeats(4, EMAIL1);
+            durable[0] = 0;
+
+            // The snapshot is not returned until the journal it records is durable.
+            Snapshot snapshot = service.snapshot();
+            assertTrue(snapshot.getJournalPosition() > 0);
+            assertEquals(snapshot.getJournalPosition(), durable[0]);
+        } finally {
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    @Test
+    void snapshot_restore() throws Exception {
+        Venue venue = new Venue(10, 3);
+        Path journalPath = Files.createTempFile("journal", ".log");
+        Path snapshotPath = Files.createTempFile("snapshot", ".img");
+        try {
+            SeatHold reserved;
+            SeatHold pending;
+            SeatHold afterSnapshot;
+            try (Journal journal = new Journal(journalPath)) {
+                TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer, 60000, null, journal);
+                reserved = service.findAndHoldSeats(10, EMAIL1);
+                pending = service.findAndHoldSeats(4, EMAIL1);
+                service.reserveSeats(reserved.getId(), EMAIL1);
+
+                // Without later records the snapshot restores the same blocks.
+                service.snapshot().write(snapshotPath);
+                TicketServiceImpl copy = new TicketServiceImpl(Snapshot.read(snapshotPath), 60000, null, null);
+                assertEquals(service.numSeatsAvailable(), copy.numSeatsAvailable());
+                assertEquals(service.getSummary().getLargestBlockSize(), copy.getSummary().getLargestBlockSize());
+                copy.shutdown();
+
+                afterSnapshot = service.findAndHoldSeats(3, EMAIL1);
+                service.removeHolds(Collections.singleton(pending.getId()));
+                service.shutdown();
+            }
+
+            // The records appended after the snapshot are replayed on top of it.
+            try (Journal journal = new Journal(journalPath)) {
+                TicketServiceImpl service = new TicketServiceImpl(Snapshot.read(snapshotPath), 60000, null, journal);
+                this.service = service;
+                assertEquals(venue.getMaxSeats() - 13, service.numSeatsAvailable());
+                assertThrows(NoSuchSeatHoldException.class, () -> service.reserveSeats(reserved.getId(), EMAIL1));
+                assertThrows(NoSuchSeatHoldException.class, () -> service.reserveSeats(pending.getId(), EMAIL1));
+                assertEquals(reserved.getId(), service.getReservations().getReservation(0, 0).getId());
+                assertEquals(String.valueOf(afterSnapshot.getId()),
+                        service.reserveSeats(afterSnapshot.getId(), EMAIL1));
+                assertTrue(service.findAndHoldSeats(1, EMAIL1).getId() > afterSnapshot.getId());
+            }
+        } finally {
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(snapshotPath);
+        }
+    }
+
+    @Test
+    void getSeatMap() {
+        Venue venue = new Venue(10, 3);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer);
+        this.service = service;
+        SeatMap empty = service.getSeatMap();
+        SeatHold reserved = service.findAndHoldSeats(4, EMAIL1);
+        service.reserveSeats(reserved.getId(), EMAIL1);
+        SeatHold held = service.findAndHoldSeats(3, EMAIL1);
+        SeatMap map = service.getSeatMap();
+
+        assertEquals(venue.getMaxSeats(), empty.count(SeatStore.AVAILABLE));
+        assertTrue(map.getVersion() > empty.getVersion());
+        assertEquals(4, map.count(SeatStore.RESERVED));
+        assertEquals(3, map.count(SeatStore.HELD));
+        for (Seat seat : held.getSeats()) {
+            assertEquals(SeatStore.HELD, map.getState(seat.getSeat(), seat.getRow()));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> map.getState(0, 3));
+
+        // A map is an immutable copy.
+        service.removeHolds(Collections.singleton(held.getId()));
+        assertEquals(3, map.count(SeatStore.HELD));
+        assertEquals(0, service.getSeatMap().count(SeatStore.HELD));
+    }
+
+    @Test
+    void getSeatMap_consistentDuringHolds() throws Exception {
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(50, 20), this.scorer);
+        this.service = service;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                SeatHold hold = service.findAndHoldSeats(4, EMAIL1);
+                service.removeHolds(Collections.singleton(hold.getId()));
+            }
+        });
+        writer.start();
+        try {
+            // Every hold is four seats so a map copied part way through a hold would show a partial hold.
+            for (int i = 0; i < 20000; i++) {
+                SeatMap map = service.getSeatMap();
+                int held = map.count(SeatStore.HELD);
+                assertTrue(held == 0 || held == 4, "Inconsistent seat map with " + held + " held seats");
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void getSeatMapDeltas() {
+        Venue venue = new Venue(100, 50);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer);
+        this.service = service;
+        service.setFragmentSearchBudget(100);
+        SeatMap subscriber = service.getSeatMap();
+        List<SeatHold> holds = new ArrayList<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 500; i++) {
+            int operation = random.nextInt(4);
+            if (operation < 2 || holds.isEmpty()) {
+                SeatHold hold = service.findAndHoldSeats(random.nextInt(25) + 1, EMAIL1);
+                if (hold != null) {
+                    holds.add(hold);
+                }
+            } else {
+                SeatHold hold = holds.remove(random.nextInt(holds.size()));
+                if (operation == 2) {
+                    service.reserveSeats(hold.getId(), EMAIL1);
+                } else {
+                    service.removeHolds(Collections.singleton(hold.getId()));
+                }
+            }
+
+            // Following the deltas reproduces the seat map.
+            if (random.nextInt(5) == 0) {
+                SeatMapDeltas deltas = service.getSeatMapDeltas(subscriber.getVersion());
+                subscriber = subscriber.apply(deltas);
+                SeatMap expected = service.getSeatMap();
+                assertEquals(expected.getVersion(), subscriber.getVersion());
+                assertArrayEquals(expected.encode(), subscriber.encode());
+            }
+        }
+
+        // A subscriber that has fallen too far behind starts again from a new seat map.
+        for (int i = 0; i < SeatMapFeed.DEFAULT_CAPACITY; i++) {
+            SeatHold hold = service.findAndHoldSeats(1, EMAIL1);
+            service.removeHolds(Collections.singleton(hold.getId()));
+        }
+        assertNull(service.getSeatMapDeltas(subscriber.getVersion()));
+
+        // A version the service has not reached is rejected.
+        long version = service.getSeatMap().getVersion();
+        assertEquals(0, service.getSeatMapDeltas(version).size());
+        assertThrows(IllegalArgumentException.class, () -> service.getSeatMapDeltas(version + 1));
+    }
+
+    @Test
+    void getLargestBlockSize() {
+        Venue venue = new Venue(10, 2);
+        TicketServiceImpl service = new TicketServiceImpl(venue, this.scorer);
+        this.service = service;
+        assertEquals(10, service.getLargestBlockSize());
+        assertEquals(2, service.getBlockHistogram().getBlockCount(10));
+
+        // Holding the middle of the first row leaves blocks of 3 seats on either side.
+        SeatHold first = service.findAndHoldSeats(4, EMAIL1);
+        assertEquals(10, service.getLargestBlockSize());
+        assertEquals(2, service.getBlockHistogram().getBlockCount(3));
+        SeatHold second = service.findAndHoldSeats(10, EMAIL1);
+        assertEquals(3, service.getLargestBlockSize());
+        assertEquals(-1, service.getBlockHistogram().getLargestSizeClass(second.getSeats().get(0).getRow()));
+        assertEquals(1, service.getBlockHistogram().getLargestSizeClass(first.getSeats().get(0).getRow()));
+
+        service.removeHolds(Collections.singleton(first.getId()));
+        assertEquals(10, service.getLargestBlockSize());
+        assertEquals(1, service.getBlockHistogram().getBlockCount(10));
+        assertEquals(0, service.getBlockHistogram().getBlockCount(3));
+    }
+
     private void assertSeatHold(SeatHold hold, String email) {
         this.assertSeatHold(hold, email, null, null);
     }
@@ -0,0 +1,93 @@
+package walmart.labs.seathold.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import walmart.labs.seathold.models.SeatBlock;
+import walmart.labs.seathold.models.SeatStore;
+import walmart.labs.seathold.models.Venue;
+import walmart.labs.seathold.scoring.MiddleOutScorer;
+import walmart.labs.seathold.scoring.VenueScores;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+    private Path path;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        this.path = Files.createTempFile("snapshot", ".img");
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        Venue venue = new Venue(10, 3);
+        VenueScores scores = new VenueScores(venue, new MiddleOutScorer());
+        SeatStore store = new SeatStore(scores);
+        SeatBlock hold = new SeatBlock(scores, 1, 2, 4);
+        hold.hold("email1@email.com");
+        store.setState(hold, SeatStore.HELD);
+        SeatBlock reserved = new SeatBlock(scores, 2, 0, 10);
+        reserved.hold("email2@email.com");
+        store.setState(reserved, SeatStore.RESERVED);
+
+        Snapshot snapshot = new Snapshot(scores, store.copyStates(), new int[]{0, 0, 10, 1, 0, 2, 1, 6, 4},
+                Collections.singletonList(hold), Collections.singletonList(reserved), 1000L, 42L, reserved.getId());
+        snapshot.write(this.path);
+
+        Snapshot read = Snapshot.read(this.path);
+        assertEquals(1000L, read.getTime());
+        assertEquals(42L, read.getJournalPosition());
+        assertEquals(reserved.getId(), read.getLastId());
+        assertEquals(10, read.getVenue().getSeatsPerRow());
+        assertEquals(3, read.getVenue().getRows());
+        for (int row = 0; row < venue.getRows(); row++) {
+            for (int seat = 0; seat < venue.getSeatsPerRow(); seat++) {
+                assertEquals(scores.getScore(seat, row), read.getScores().getScore(seat, row));
+                assertEquals(store.getState(seat, row), new SeatStore(read.getScores(), read.getStates())
+                        .getState(seat, row));
+            }
+        }
+
+        assertEquals(3, read.getBlockCount());
+        SeatBlock block = read.getBlock(2);
+        assertEquals(1, block.getRow());
+        assertEquals(6, block.getFirstSeat());
+        assertEquals(4, block.size());
+
+        assertEquals(1, read.getHolds().size());
+        SeatBlock readHold = read.getHolds().get(0);
+        assertEquals(hold.getId(), readHold.getId());
+        assertEquals(hold.getEmail(), readHold.getEmail());
+        assertEquals(hold.getHoldTime(), readHold.getHoldTime());
+        assertEquals(hold.getScore(), readHold.getScore());
+        assertEquals(1, read.getReservations().size());
+        assertEquals(reserved.getId(), read.getReservations().get(0).getId());
+        assertEquals("email2@email.com", read.getReservations().get(0).getEmail());
+    }
+
+    @Test
+    void read_corrupt() throws IOException {
+        VenueScores scores = new VenueScores(new Venue(10, 3), new MiddleOutScorer());
+        new Snapshot(scores, new SeatStore(scores).copyStates(), new int[0], Collections.emptyList(),
+                Collections.emptyList(), 0L, 0L, 0)
+                .write(this.path);
+
+        try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+            file.seek(40);
+            file.write(0xff);
+        }
+        assertThrows(IOException.class, () -> Snapshot.read(this.path));
+    }
+}